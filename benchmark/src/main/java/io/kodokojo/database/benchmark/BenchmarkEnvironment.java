@@ -0,0 +1,166 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.pattern.Patterns;
+import akka.util.Timeout;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.config.ApplicationConfig;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.BootstrapStackData;
+import io.kodokojo.commons.service.BrickFactory;
+import io.kodokojo.commons.service.DefaultBrickFactory;
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.commons.service.ssl.SSLKeyPair;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.config.module.EndpointModule;
+import io.kodokojo.database.service.BootstrapConfigurationProvider;
+import io.kodokojo.database.service.ConfigurationStore;
+import io.kodokojo.database.service.actor.EndpointShards;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Start the actor tree of the service as the Launcher does, on top of {@link InMemoryRepositories}.
+ * The event bus and the email sender are no-op stand-ins.
+ */
+public class BenchmarkEnvironment {
+
+    public static final Timeout TIMEOUT = Timeout.apply(10, TimeUnit.SECONDS);
+
+    private static final Duration AWAIT = Duration.create(10, TimeUnit.SECONDS);
+
+    private final InMemoryRepositories repositories;
+
+    private final RsaKeyPairPool rsaKeyPairPool;
+
+    private final ActorSystem actorSystem;
+
+    private final ActorRef endpoint;
+
+    public BenchmarkEnvironment(int rsaKeyPairPoolSize, WorkerRouting workerRouting) {
+        this(rsaKeyPairPoolSize, workerRouting, 1);
+    }
+
+    public BenchmarkEnvironment(int rsaKeyPairPoolSize, WorkerRouting workerRouting, int endpointShards) {
+        repositories = new InMemoryRepositories();
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        rsaKeyPairPool = new RsaKeyPairPool(rsaKeyPairPoolSize, rsaKeyPairPoolSize / 4, metricsRegistry);
+        rsaKeyPairPool.start();
+        UserCache userCache = new UserCache(1024, 1, TimeUnit.MINUTES, metricsRegistry);
+
+        ApplicationConfig applicationConfig = mock(ApplicationConfig.class, withSettings().stubOnly());
+        when(applicationConfig.userCreationRoutedInWaitingList()).thenReturn(false);
+        BrickFactory brickFactory = new DefaultBrickFactory();
+        BootstrapConfigurationProvider bootstrapConfigurationProvider = (projectName, stackName) -> 10022;
+        ConfigurationStore configurationStore = new ConfigurationStore() {
+            @Override
+            public boolean storeBootstrapStackData(BootstrapStackData bootstrapStackData) {
+                return true;
+            }
+
+            @Override
+            public boolean storeSSLKeys(String projectName, String brickTypeName, SSLKeyPair sslKeyPair) {
+                return true;
+            }
+        };
+
+        UserRepository userRepository = repositories.getUserRepository();
+        OrganisationRepository organisationRepository = repositories.getOrganisationRepository();
+        ProjectRepository projectRepository = repositories.getProjectRepository();
+        DatabaseConfig databaseConfig = mock(DatabaseConfig.class, withSettings().stubOnly());
+        when(databaseConfig.brickStateCoalescingMaxEvents()).thenReturn(1);
+        when(databaseConfig.emailDeliveryQueueSize()).thenReturn(16);
+        when(databaseConfig.emailDeliveryConcurrency()).thenReturn(1);
+        when(databaseConfig.emailDeliveryBatchSize()).thenReturn(16);
+        //  Endpoint children are wired by the production EndpointModule, only their collaborators are replaced.
+        Injector injector = Guice.createInjector(new EndpointModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(UserRepository.class).toInstance(userRepository);
+                bind(UserFetcher.class).toInstance(userRepository);
+                bind(OrganisationRepository.class).toInstance(organisationRepository);
+                bind(ProjectRepository.class).toInstance(projectRepository);
+                bind(UserCache.class).toInstance(userCache);
+                bind(MetricsRegistry.class).toInstance(metricsRegistry);
+                bind(RsaKeyPairPool.class).toInstance(rsaKeyPairPool);
+                bind(WorkerRouting.class).toInstance(workerRouting);
+                bind(ApplicationConfig.class).toInstance(applicationConfig);
+                bind(DatabaseConfig.class).toInstance(databaseConfig);
+                bind(EventBus.class).toInstance(mock(EventBus.class, withSettings().stubOnly()));
+                bind(EventBuilderFactory.class).toInstance(mock(EventBuilderFactory.class, withSettings().stubOnly()));
+                bind(EmailSender.class).toInstance(mock(EmailSender.class, withSettings().stubOnly()));
+                bind(EmailBatchSender.class).toInstance(EmailBatchSender.of(mock(EmailSender.class, withSettings().stubOnly())));
+                bind(EmailTemplateEngine.class).toInstance(new EmailTemplateEngine(null));
+                bind(BrickFactory.class).toInstance(brickFactory);
+                bind(BootstrapConfigurationProvider.class).toInstance(bootstrapConfigurationProvider);
+                bind(ConfigurationStore.class).toInstance(configurationStore);
+            }
+        });
+
+        //  Sagas reach the endpoint through EndpointActor.ACTOR_PATH, names must match the ones of the Launcher.
+        //  The endpoint dispatcher gets a thread per shard, as KODOKOJO_ENDPOINT_DISPATCHER_POOL_SIZE would in production.
+        actorSystem = ActorSystem.create("kodokojo", ConfigFactory.parseString("akka.loglevel = WARNING\n" +
+                "kodokojo.endpoint-dispatcher.instrumented-thread-pool.pool-size = " + Math.max(4, endpointShards)).withFallback(ConfigFactory.load()));
+        endpoint = actorSystem.actorOf(EndpointShards.PROPS(injector, endpointShards), "endpoint");
+    }
+
+    public Object ask(Object msg) throws Exception {
+        return ask(endpoint, msg);
+    }
+
+    public Object ask(ActorRef actorRef, Object msg) throws Exception {
+        return Await.result(Patterns.ask(actorRef, msg, TIMEOUT), AWAIT);
+    }
+
+    public InMemoryRepositories getRepositories() {
+        return repositories;
+    }
+
+    public ActorSystem getActorSystem() {
+        return actorSystem;
+    }
+
+    public void stop() throws Exception {
+        rsaKeyPairPool.stop();
+        Await.result(actorSystem.terminate(), AWAIT);
+    }
+
+}
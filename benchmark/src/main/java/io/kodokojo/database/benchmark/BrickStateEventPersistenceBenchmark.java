@@ -0,0 +1,101 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import akka.actor.ActorRef;
+import akka.actor.Inbox;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.project.BrickStateEventPersistenceActor;
+import io.kodokojo.test.DataBuilder;
+import org.openjdk.jmh.annotations.*;
+import scala.concurrent.duration.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistence of brick states into their project, one state per update or a coalesced batch of states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class BrickStateEventPersistenceBenchmark {
+
+    private static final Duration AWAIT = Duration.create(10, TimeUnit.SECONDS);
+
+    @Param({"1", "16"})
+    public int nbStatesPerUpdate;
+
+    private BenchmarkEnvironment environment;
+
+    @Setup
+    public void setup() {
+        environment = new BenchmarkEnvironment(0, WorkerRouting.perMessage());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.stop();
+    }
+
+    /**
+     * Each thread works on its own project, project snapshots are updated in place.
+     */
+    @State(Scope.Thread)
+    public static class ProjectState implements DataBuilder {
+
+        private Inbox inbox;
+
+        private BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg msg;
+
+        @Setup
+        public void setup(BrickStateEventPersistenceBenchmark benchmark) {
+            InMemoryRepositories repositories = benchmark.environment.getRepositories();
+            String projectConfigurationIdentifier = repositories.nextId();
+            repositories.addProject(projectConfigurationIdentifier, aProjectWithStacks(aBuildStack()));
+            inbox = Inbox.create(benchmark.environment.getActorSystem());
+            Gson gson = new Gson();
+            List<BrickStateEvent> brickStateEvents = new ArrayList<>(benchmark.nbStatesPerUpdate);
+            for (int i = 0; i < benchmark.nbStatesPerUpdate; i++) {
+                JsonObject brickStateEvent = new JsonObject();
+                brickStateEvent.addProperty("projectConfigurationIdentifier", projectConfigurationIdentifier);
+                brickStateEvent.addProperty("stackName", "build-A");
+                brickStateEvent.addProperty("brickType", "CI");
+                brickStateEvent.addProperty("brickName", "brick-" + i);
+                brickStateEvents.add(gson.fromJson(brickStateEvent, BrickStateEvent.class));
+            }
+            msg = new BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg(projectConfigurationIdentifier, brickStateEvents, 0);
+        }
+    }
+
+    @Benchmark
+    public Object persistBrickStates(ProjectState state) throws Exception {
+        ActorRef persistence = environment.getActorSystem().actorOf(BrickStateEventPersistenceActor.PROPS(environment.getRepositories().getProjectRepository()));
+        persistence.tell(state.msg, state.inbox.getRef());
+        return state.inbox.receive(AWAIT);
+    }
+
+}
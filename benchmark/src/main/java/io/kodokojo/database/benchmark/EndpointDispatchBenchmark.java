@@ -0,0 +1,65 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.user.UserFetcherActor;
+import io.kodokojo.test.DataBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a message dispatched by the EndpointActor to a sub endpoint and its worker.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class EndpointDispatchBenchmark implements DataBuilder {
+
+    @Param({"perMessage", WorkerRouting.POOLED_MODE})
+    public String routing;
+
+    private BenchmarkEnvironment environment;
+
+    private UserFetcherActor.UserFetchMsg userFetchMsg;
+
+    @Setup
+    public void setup() {
+        environment = new BenchmarkEnvironment(0, WorkerRouting.fromConfig(routing, 8));
+        User user = anUser();
+        environment.getRepositories().addUser(user);
+        userFetchMsg = new UserFetcherActor.UserFetchMsg(null, null, user.getIdentifier());
+    }
+
+    @Benchmark
+    public Object dispatchUserFetch() throws Exception {
+        return environment.ask(userFetchMsg);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.stop();
+    }
+
+}
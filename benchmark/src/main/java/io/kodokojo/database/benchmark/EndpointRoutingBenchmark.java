@@ -0,0 +1,146 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import akka.actor.ActorRef;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import io.kodokojo.database.service.actor.EndpointRoutingTable;
+import io.kodokojo.database.service.actor.organisation.OrganisationCreatorActor;
+import io.kodokojo.database.service.actor.organisation.OrganisationEndpointActor;
+import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
+import io.kodokojo.database.service.actor.project.*;
+import io.kodokojo.database.service.actor.user.*;
+import org.objenesis.Objenesis;
+import org.objenesis.ObjenesisStd;
+import org.openjdk.jmh.annotations.*;
+import scala.PartialFunction;
+import scala.runtime.BoxedUnit;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Cost of resolving the target of a message in the endpoint actor, without any actor involved:
+ * the previous chain of <code>ReceiveBuilder.match</code> clauses against the {@link EndpointRoutingTable} lookup.
+ * Messages are dispatched round robin over every routed message class.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EndpointRoutingBenchmark {
+
+    private static final Class<?>[] MESSAGE_CLASSES = {
+            UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class,
+            UserCreatorActor.EventUserCreateMsg.class,
+            UserFetcherActor.UserFetchMsg.class,
+            UserServiceCreatorActor.UserServiceCreateMsg.class,
+            UserMessage.UserUpdateMessageUser.class,
+            OrganisationCreatorActor.OrganisationCreateMsg.class,
+            OrganisationMessage.ChangeUserToOrganisationMsg.class,
+            ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class,
+            ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg.class,
+            ProjectCreatorActor.ProjectCreateMsg.class,
+            ProjectUpdaterMessages.ProjectUpdateMsg.class,
+            ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class,
+            ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg.class,
+            BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class,
+            BootstrapStackActor.BootstrapStackMsg.class,
+            EmailSenderActor.EmailSenderMsg.class
+    };
+
+    private Object[] messages;
+
+    private int index;
+
+    private ActorRef routed;
+
+    private PartialFunction<Object, BoxedUnit> matcherChain;
+
+    private EndpointRoutingTable routingTable;
+
+    @Setup
+    public void setup() {
+        ActorRef userEndpoint = mock(ActorRef.class, withSettings().stubOnly());
+        ActorRef organisationEndpoint = mock(ActorRef.class, withSettings().stubOnly());
+        ActorRef projectEndpoint = mock(ActorRef.class, withSettings().stubOnly());
+        ActorRef emailSender = mock(ActorRef.class, withSettings().stubOnly());
+
+        //  Message contents do not matter to routing, instantiate them without calling their constructor.
+        Objenesis objenesis = new ObjenesisStd();
+        messages = new Object[MESSAGE_CLASSES.length];
+        for (int i = 0; i < MESSAGE_CLASSES.length; i++) {
+            messages[i] = objenesis.newInstance(MESSAGE_CLASSES[i]);
+        }
+
+        //  Same clauses, in the same order, as the matcher chain the routing table replaced.
+        matcherChain = ReceiveBuilder.match(UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class, msg -> routed = userEndpoint)
+                .match(UserCreatorActor.EventUserCreateMsg.class, msg -> routed = userEndpoint)
+                .match(UserFetcherActor.UserFetchMsg.class, msg -> routed = userEndpoint)
+                .match(UserServiceCreatorActor.UserServiceCreateMsg.class, msg -> routed = userEndpoint)
+                .match(OrganisationCreatorActor.OrganisationCreateMsg.class, msg -> routed = organisationEndpoint)
+                .match(OrganisationMessage.ChangeUserToOrganisationMsg.class, msg -> routed = organisationEndpoint)
+                .match(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectCreatorActor.ProjectCreateMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectUpdaterMessages.ProjectUpdateMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg.class, msg -> routed = projectEndpoint)
+                .match(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, msg -> routed = projectEndpoint)
+                .match(EmailSenderActor.EmailSenderMsg.class, msg -> routed = emailSender)
+                .match(UserMessage.UserUpdateMessageUser.class, msg -> routed = userEndpoint)
+                .match(ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class, msg -> routed = projectEndpoint)
+                .match(BootstrapStackActor.BootstrapStackMsg.class, msg -> routed = projectEndpoint)
+                .match(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, msg -> routed = projectEndpoint)
+                .match(ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class, msg -> routed = projectEndpoint)
+                .build();
+
+        EndpointRoutingTable.Builder builder = EndpointRoutingTable.builder();
+        UserEndpointActor.registerRoutes(builder, userEndpoint);
+        OrganisationEndpointActor.registerRoutes(builder, organisationEndpoint);
+        ProjectEndpointActor.registerRoutes(builder, projectEndpoint);
+        routingTable = builder.route(EmailSenderActor.EmailSenderMsg.class, emailSender).build();
+    }
+
+    @Benchmark
+    public ActorRef matcherChain() {
+        Object msg = nextMessage();
+        if (matcherChain.isDefinedAt(msg)) {
+            matcherChain.apply(msg);
+        }
+        return routed;
+    }
+
+    @Benchmark
+    public ActorRef routingTable() {
+        Object msg = nextMessage();
+        return routingTable.routes(msg) ? routingTable.targetOf(msg) : null;
+    }
+
+    private Object nextMessage() {
+        Object msg = messages[index];
+        index = (index + 1) % messages.length;
+        return msg;
+    }
+
+}
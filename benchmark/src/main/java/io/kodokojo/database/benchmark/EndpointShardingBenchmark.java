@@ -0,0 +1,86 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.user.UserFetcherActor;
+import io.kodokojo.test.DataBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Round trip of messages of distinct organisations through an endpoint split in 1, 2, 4 or 8 shards.
+ * Each benchmark thread plays one organisation, its messages are pinned to a single shard.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(16)
+public class EndpointShardingBenchmark implements DataBuilder {
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private BenchmarkEnvironment environment;
+
+    private String userIdentifier;
+
+    @Setup
+    public void setup() {
+        environment = new BenchmarkEnvironment(0, WorkerRouting.fromConfig(WorkerRouting.POOLED_MODE, 8), shards);
+        User user = anUser();
+        environment.getRepositories().addUser(user);
+        userIdentifier = user.getIdentifier();
+    }
+
+    @State(Scope.Thread)
+    public static class OrganisationState {
+
+        private UserFetcherActor.UserFetchMsg userFetchMsg;
+
+        @Setup
+        public void setup(EndpointShardingBenchmark benchmark) {
+            Event event = mock(Event.class, withSettings().stubOnly());
+            doReturn(Collections.singletonMap(Event.ORGANISATION_ID_CUSTOM_HEADER, UUID.randomUUID().toString())).when(event).getCustom();
+            userFetchMsg = new UserFetcherActor.UserFetchMsg(null, event, benchmark.userIdentifier);
+        }
+    }
+
+    @Benchmark
+    public Object dispatchOrganisationUserFetch(OrganisationState organisation) throws Exception {
+        return environment.ask(organisation.userFetchMsg);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.stop();
+    }
+
+}
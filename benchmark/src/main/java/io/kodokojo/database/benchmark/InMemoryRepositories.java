@@ -0,0 +1,98 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.model.UserService;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.commons.service.repository.UserRepository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * In-memory stand-ins of the repositories, so benchmarks measure the actors and not a store.
+ */
+public class InMemoryRepositories {
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+
+    private final Map<String, Project> projects = new ConcurrentHashMap<>();
+
+    private final AtomicLong ids = new AtomicLong();
+
+    private final UserRepository userRepository;
+
+    private final OrganisationRepository organisationRepository;
+
+    private final ProjectRepository projectRepository;
+
+    public InMemoryRepositories() {
+        userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.generateId()).thenAnswer(invocation -> nextId());
+        when(userRepository.identifierExpectedNewUser(anyString())).thenReturn(true);
+        when(userRepository.usernameAlreadyExist(anyString())).thenReturn(false);
+        when(userRepository.addUser(any(User.class))).thenAnswer(invocation -> {
+            addUser((User) invocation.getArguments()[0]);
+            return true;
+        });
+        when(userRepository.addUserService(any(UserService.class))).thenReturn(true);
+        when(userRepository.getUserByIdentifier(anyString())).thenAnswer(invocation -> users.get((String) invocation.getArguments()[0]));
+
+        organisationRepository = mock(OrganisationRepository.class, withSettings().stubOnly());
+        when(organisationRepository.addOrganisation(any(Organisation.class))).thenAnswer(invocation -> nextId());
+
+        projectRepository = mock(ProjectRepository.class, withSettings().stubOnly());
+        when(projectRepository.getProjectByProjectConfigurationId(anyString())).thenAnswer(invocation -> projects.get((String) invocation.getArguments()[0]));
+    }
+
+    public String nextId() {
+        return Long.toString(ids.incrementAndGet());
+    }
+
+    public void addUser(User user) {
+        users.put(user.getIdentifier(), user);
+    }
+
+    public void addProject(String projectConfigurationIdentifier, Project project) {
+        projects.put(projectConfigurationIdentifier, project);
+    }
+
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+
+    public OrganisationRepository getOrganisationRepository() {
+        return organisationRepository;
+    }
+
+    public ProjectRepository getProjectRepository() {
+        return projectRepository;
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.kodokojo.commons.dto.ProjectConfigurationCreationDto;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.project.ProjectConfigurationBuilderActor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build of a project configuration: users fetch, service user creation and stack bootstrap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class ProjectConfigurationBuilderBenchmark {
+
+    @Param({"1", "200"})
+    public int nbUsers;
+
+    private BenchmarkEnvironment environment;
+
+    private User owner;
+
+    private ProjectConfigurationCreationDto projectConfigurationCreationDto;
+
+    @Setup
+    public void setup() {
+        environment = new BenchmarkEnvironment(256, WorkerRouting.perMessage());
+        InMemoryRepositories repositories = environment.getRepositories();
+        String organisationId = repositories.nextId();
+        owner = aUser(repositories, organisationId);
+        JsonArray userIdentifiers = new JsonArray();
+        for (int i = 1; i < nbUsers; i++) {
+            userIdentifiers.add(aUser(repositories, organisationId).getIdentifier());
+        }
+        JsonObject dto = new JsonObject();
+        dto.addProperty("organisationIdentifier", organisationId);
+        dto.addProperty("name", "benchmark");
+        dto.addProperty("ownerIdentifier", owner.getIdentifier());
+        dto.add("userIdentifiers", userIdentifiers);
+        projectConfigurationCreationDto = new Gson().fromJson(dto, ProjectConfigurationCreationDto.class);
+    }
+
+    @Benchmark
+    public Object buildProjectConfiguration() throws Exception {
+        return environment.ask(new ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg(owner, null, projectConfigurationCreationDto));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.stop();
+    }
+
+    private static User aUser(InMemoryRepositories repositories, String organisationId) {
+        String id = repositories.nextId();
+        User user = new User(id, organisationId, "user" + id, "user" + id, "user" + id + "@kodokojo.io", "password", "ssh-rsa AAAA", false);
+        repositories.addUser(user);
+        return user;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Render time of the user creation email, Velocity template against the previous string concatenation.
+ * Run with <code>-prof gc</code> to get the allocation per email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UserCreatedMailBenchmark {
+
+    private EmailTemplateEngine emailTemplateEngine;
+
+    private String username;
+
+    private String password;
+
+    @Setup
+    public void setup() {
+        emailTemplateEngine = new EmailTemplateEngine(null).precompile(EmailTemplateEngine.USER_CREATED);
+        username = "jpthiery";
+        password = "s3cr3tP4ssw0rd";
+    }
+
+    @Benchmark
+    public String concatenation() {
+        return LegacyUserCreatedMail.render(username, password);
+    }
+
+    @Benchmark
+    public String template() {
+        Map<String, Object> model = new HashMap<>();
+        model.put("username", username);
+        model.put("password", password);
+        return emailTemplateEngine.render(EmailTemplateEngine.USER_CREATED, model);
+    }
+
+}
@@ -0,0 +1,63 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.user.UserCreatorActor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full user creation saga: eligibility, security data, storage, organisation membership and email.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class UserCreatorSagaBenchmark {
+
+    @Param({"0", "256"})
+    public int rsaKeyPairPoolSize;
+
+    private BenchmarkEnvironment environment;
+
+    private String organisationId;
+
+    @Setup
+    public void setup() {
+        environment = new BenchmarkEnvironment(rsaKeyPairPoolSize, WorkerRouting.perMessage());
+        organisationId = environment.getRepositories().nextId();
+    }
+
+    @Benchmark
+    public Object createUser() throws Exception {
+        String id = environment.getRepositories().nextId();
+        String username = "bench" + id;
+        return environment.ask(new UserCreatorActor.EventUserCreateMsg(null, null, id, username + "@kodokojo.io", username, organisationId, false));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        environment.stop();
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.pattern.Patterns;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.database.service.actor.user.UserGenerateSecurityData;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import org.openjdk.jmh.annotations.*;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the password and the RSA key pair of a new user, with and without the key pair pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(4)
+public class UserGenerateSecurityDataBenchmark {
+
+    private static final Duration AWAIT = Duration.create(10, TimeUnit.SECONDS);
+
+    @Param({"0", "256"})
+    public int rsaKeyPairPoolSize;
+
+    private ActorSystem actorSystem;
+
+    private RsaKeyPairPool rsaKeyPairPool;
+
+    private UserGenerateSecurityData.GenerateSecurityMsg generateSecurityMsg;
+
+    @Setup
+    public void setup() {
+        actorSystem = ActorSystem.create("benchmark", ConfigFactory.parseString("akka.loglevel = WARNING").withFallback(ConfigFactory.load()));
+        rsaKeyPairPool = new RsaKeyPairPool(rsaKeyPairPoolSize, rsaKeyPairPoolSize / 4, new MetricsRegistry());
+        rsaKeyPairPool.start();
+        generateSecurityMsg = new UserGenerateSecurityData.GenerateSecurityMsg();
+    }
+
+    @Benchmark
+    public Object generateSecurityData() throws Exception {
+        ActorRef generator = actorSystem.actorOf(UserGenerateSecurityData.PROPS(rsaKeyPairPool));
+        try {
+            return Await.result(Patterns.ask(generator, generateSecurityMsg, BenchmarkEnvironment.TIMEOUT), AWAIT);
+        } finally {
+            actorSystem.stop(generator);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rsaKeyPairPool.stop();
+        Await.result(actorSystem.terminate(), AWAIT);
+    }
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.benchmark;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.pattern.Patterns;
+import akka.util.Timeout;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.config.ApplicationConfig;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.user.UserEndpointActor;
+import io.kodokojo.database.service.actor.user.UserFetcherActor;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import org.openjdk.jmh.annotations.*;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Compare per-message worker creation with pooled workers on the user endpoint.
+ * Run with <code>-prof gc</code> to get the allocation rate of each mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(8)
+public class WorkerRoutingBenchmark {
+
+    private static final Timeout TIMEOUT = Timeout.apply(5, TimeUnit.SECONDS);
+
+    @Param({"perMessage", WorkerRouting.POOLED_MODE})
+    public String routing;
+
+    @Param({"8"})
+    public int poolSize;
+
+    private ActorSystem actorSystem;
+
+    private ActorRef userEndpoint;
+
+    private UserFetcherActor.UserFetchMsg userFetchMsg;
+
+    @Setup
+    public void setup() {
+        actorSystem = ActorSystem.create("benchmark", ConfigFactory.parseString("akka.loglevel = WARNING").withFallback(ConfigFactory.load()));
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        ApplicationConfig applicationConfig = mock(ApplicationConfig.class, withSettings().stubOnly());
+        userEndpoint = actorSystem.actorOf(UserEndpointActor.PROPS(userRepository, mock(OrganisationRepository.class, withSettings().stubOnly()), applicationConfig, new RsaKeyPairPool(0, 0, new MetricsRegistry()), new UserCache(0, 1, TimeUnit.MINUTES, new MetricsRegistry()), new EmailTemplateEngine(null), WorkerRouting.fromConfig(routing, poolSize)), "userEndpoint");
+        userFetchMsg = new UserFetcherActor.UserFetchMsg(null, null, "1234");
+    }
+
+    @Benchmark
+    public Object fetchUser() throws Exception {
+        return Await.result(Patterns.ask(userEndpoint, userFetchMsg, TIMEOUT), Duration.create(5, TimeUnit.SECONDS));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Await.result(actorSystem.terminate(), Duration.create(10, TimeUnit.SECONDS));
+    }
+
+}
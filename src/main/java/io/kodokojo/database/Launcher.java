@@ -24,6 +24,7 @@ import com.google.inject.name.Names;
 import io.kodokojo.commons.RSAUtils;
 import io.kodokojo.commons.config.MicroServiceConfig;
 import io.kodokojo.commons.config.module.*;
+import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.EventBus;
 import io.kodokojo.commons.model.Organisation;
 import io.kodokojo.commons.model.User;
@@ -34,7 +35,17 @@ import io.kodokojo.commons.service.repository.Repository;
 import io.kodokojo.commons.service.repository.UserRepository;
 import io.kodokojo.database.config.DatabaseConfig;
 import io.kodokojo.database.config.module.*;
+import io.kodokojo.database.service.actor.BoundedEndpointMailbox;
 import io.kodokojo.database.service.actor.EndpointActor;
+import io.kodokojo.database.service.actor.EndpointLoadSheddingActor;
+import io.kodokojo.database.service.actor.EndpointShards;
+import io.kodokojo.database.service.actor.EventDeduplicationCache;
+import io.kodokojo.database.service.actor.InstrumentedThreadPoolConfigurator;
+import io.kodokojo.database.service.actor.SagaAbandonedListenerActor;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.metrics.MetricsHttpEndpoint;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
 import io.kodokojo.commons.service.lifecycle.ApplicationLifeCycleManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,6 +53,7 @@ import org.slf4j.LoggerFactory;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 public class Launcher {
 
@@ -64,12 +76,18 @@ public class Launcher {
                 new DatabaseModule(),
                 new SecurityModule(),
                 new EmailModule(),
+                new DatabaseServiceModule(),
                 configurationStoreModule,
                 new CommonsHealthCheckModule()
         );
-        Injector akkaInjector = servicesInjector.createChildInjector(new AkkaModule());
+        InstrumentedThreadPoolConfigurator.bindMetricsRegistry(servicesInjector.getInstance(MetricsRegistry.class));
+        BoundedEndpointMailbox.bindMetricsRegistry(servicesInjector.getInstance(MetricsRegistry.class));
+        Injector akkaInjector = servicesInjector.createChildInjector(new AkkaModule(Boolean.parseBoolean(databaseConfig.clusterEnabled()), databaseConfig.clusterSeedNodes()));
         ActorSystem actorSystem = akkaInjector.getInstance(ActorSystem.class);
-        ActorRef endpointActor = actorSystem.actorOf(EndpointActor.PROPS(akkaInjector), "endpoint");
+        long retryAfterMillis = actorSystem.settings().config().getDuration(BoundedEndpointMailbox.CONFIG_PATH + ".retry-after", TimeUnit.MILLISECONDS);
+        actorSystem.actorOf(EndpointLoadSheddingActor.PROPS(servicesInjector.getInstance(EventBus.class), servicesInjector.getInstance(EventBuilderFactory.class), retryAfterMillis, servicesInjector.getInstance(EventDeduplicationCache.class)), EndpointLoadSheddingActor.NAME);
+        actorSystem.actorOf(SagaAbandonedListenerActor.PROPS(servicesInjector.getInstance(MetricsRegistry.class)), SagaAbandonedListenerActor.NAME);
+        ActorRef endpointActor = actorSystem.actorOf(EndpointShards.PROPS(akkaInjector, databaseConfig.endpointShards()), "endpoint");
         akkaInjector = akkaInjector.createChildInjector(new AbstractModule() {
             @Override
             protected void configure() {
@@ -84,12 +102,16 @@ public class Launcher {
         eventBus.addEventListener(eventToActorGateway);
 
         ApplicationLifeCycleManager applicationLifeCycleManager = servicesInjector.getInstance(ApplicationLifeCycleManager.class);
+        RsaKeyPairPool rsaKeyPairPool = servicesInjector.getInstance(RsaKeyPairPool.class);
+        EmailBatchSender emailBatchSender = servicesInjector.getInstance(EmailBatchSender.class);
         Runtime.getRuntime().addShutdownHook(new Thread() {
             @Override
             public void run() {
                 super.run();
                 LOGGER.info("Stopping services.");
                 applicationLifeCycleManager.stop();
+                rsaKeyPairPool.stop();
+                emailBatchSender.stop();
                 LOGGER.info("All services stopped.");
             }
         });
@@ -111,6 +133,7 @@ public class Launcher {
 
         HttpHealthCheckEndpoint httpHealthCheckEndpoint = injector.getInstance(HttpHealthCheckEndpoint.class);
         httpHealthCheckEndpoint.start();
+        injector.getInstance(MetricsHttpEndpoint.class).start();
 
         LOGGER.info("Kodo Kojo {} started.", microServiceConfig.name());
 
@@ -17,4 +17,64 @@ public interface DatabaseConfig extends PropertyConfig {
     @Key(value = "root.username", defaultValue = "root1234")
     String rootPassword();
 
+    @Key(value = "actor.worker.routing", defaultValue = "perMessage")
+    String workerRoutingMode();
+
+    @Key(value = "actor.worker.poolSize", defaultValue = "8")
+    int workerPoolSize();
+
+    @Key(value = "actor.endpoint.shards", defaultValue = "1")
+    int endpointShards();
+
+    @Key(value = "actor.cluster.enabled", defaultValue = "false")
+    String clusterEnabled();
+
+    @Key(value = "actor.cluster.seedNodes", defaultValue = "")
+    String clusterSeedNodes();
+
+    @Key(value = "security.rsaKeyPairPool.size", defaultValue = "32")
+    int rsaKeyPairPoolSize();
+
+    @Key(value = "security.rsaKeyPairPool.lowWatermark", defaultValue = "8")
+    int rsaKeyPairPoolLowWatermark();
+
+    @Key(value = "cache.user.maxSize", defaultValue = "1024")
+    int userCacheMaxSize();
+
+    @Key(value = "cache.user.ttlSeconds", defaultValue = "60")
+    int userCacheTtlSeconds();
+
+    @Key(value = "event.deduplication.maxSize", defaultValue = "10000")
+    int eventDeduplicationMaxSize();
+
+    @Key(value = "event.deduplication.windowSeconds", defaultValue = "300")
+    int eventDeduplicationWindowSeconds();
+
+    @Key(value = "event.deduplication.header", defaultValue = "")
+    String eventDeduplicationHeader();
+
+    @Key(value = "brickState.coalescing.windowMillis", defaultValue = "0")
+    int brickStateCoalescingWindowMillis();
+
+    @Key(value = "brickState.coalescing.maxEvents", defaultValue = "64")
+    int brickStateCoalescingMaxEvents();
+
+    @Key(value = "zookeeper.tcpPort.leaseSize", defaultValue = "16")
+    int tcpPortLeaseSize();
+
+    @Key(value = "email.delivery.queueSize", defaultValue = "1024")
+    int emailDeliveryQueueSize();
+
+    @Key(value = "email.delivery.concurrency", defaultValue = "4")
+    int emailDeliveryConcurrency();
+
+    @Key(value = "email.delivery.batchSize", defaultValue = "16")
+    int emailDeliveryBatchSize();
+
+    @Key(value = "email.smtp.starttls", defaultValue = "false")
+    String emailSmtpStartTls();
+
+    @Key(value = "email.template.directory", defaultValue = "")
+    String emailTemplateDirectory();
+
 }
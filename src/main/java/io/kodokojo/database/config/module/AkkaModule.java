@@ -19,50 +19,68 @@ package io.kodokojo.database.config.module;
 
 import akka.actor.ActorRef;
 import akka.actor.ActorSystem;
+import akka.actor.Address;
+import akka.actor.AddressFromURIString;
 import akka.actor.DeadLetter;
-import akka.actor.Props;
+import akka.cluster.Cluster;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
-import com.google.inject.name.Named;
-import io.kodokojo.commons.config.ApplicationConfig;
-import io.kodokojo.database.service.BootstrapConfigurationProvider;
-import io.kodokojo.database.service.ConfigurationStore;
-import io.kodokojo.database.service.actor.organisation.OrganisationEndpointActor;
-import io.kodokojo.database.service.actor.project.ProjectEndpointActor;
-import io.kodokojo.database.service.actor.user.UserEndpointActor;
-import io.kodokojo.commons.service.BrickFactory;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.cluster.EntityRouting;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityRouting;
 import io.kodokojo.commons.service.actor.DeadLetterActor;
-import io.kodokojo.commons.service.repository.OrganisationRepository;
-import io.kodokojo.commons.service.repository.ProjectRepository;
-import io.kodokojo.commons.service.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
 
 
 public class AkkaModule extends AbstractModule {
 
+    private final boolean clustered;
+
+    private final String seedNodes;
+
+    public AkkaModule() {
+        this(false, null);
+    }
+
+    /**
+     * @param clustered Start the actor system as a member of a cluster, configured by <code>cluster.conf</code>.
+     * @param seedNodes Comma separated addresses of the seed nodes to join, the node join itself when empty.
+     */
+    public AkkaModule(boolean clustered, String seedNodes) {
+        this.clustered = clustered;
+        this.seedNodes = seedNodes;
+    }
+
     @Override
     protected void configure() {
-        ActorSystem actorSystem = ActorSystem.apply("kodokojo");
+        ActorSystem actorSystem = clustered ? ActorSystem.apply("kodokojo", ConfigFactory.load("cluster")) : ActorSystem.apply("kodokojo");
         ActorRef deadletterlistener = actorSystem.actorOf(DeadLetterActor.PROPS(), "deadletterlistener");
         actorSystem.eventStream().subscribe(deadletterlistener, DeadLetter.class);
         bind(ActorSystem.class).toInstance(actorSystem);
+        install(new EndpointModule());
+        if (clustered) {
+            Cluster cluster = Cluster.get(actorSystem);
+            List<Address> seeds = new ArrayList<>();
+            if (isBlank(seedNodes)) {
+                seeds.add(cluster.selfAddress());
+            } else {
+                Arrays.stream(seedNodes.split(",")).map(String::trim).filter(seed -> !seed.isEmpty()).map(AddressFromURIString::parse).forEach(seeds::add);
+            }
+            cluster.joinSeedNodes(seeds);
+            bind(EntityRouting.class).toInstance(ShardedEntityRouting.start(actorSystem));
+        }
     }
 
     @Provides
-    @Named(UserEndpointActor.NAME)
-    Props provideUserEndpointProps(UserRepository userRepository, ApplicationConfig applicationConfig) {
-        return UserEndpointActor.PROPS(userRepository, applicationConfig);
-    }
-
-    @Provides
-    @Named(ProjectEndpointActor.NAME)
-    Props provideProjectEndpointProps(ProjectRepository projectRepository, OrganisationRepository organisationRepository,  BrickFactory brickFactory, BootstrapConfigurationProvider bootstrapConfigurationProvider, ConfigurationStore configurationStore) {
-        return ProjectEndpointActor.PROPS(projectRepository, organisationRepository, brickFactory, bootstrapConfigurationProvider, configurationStore);
-    }
-
-    @Provides
-    @Named(OrganisationEndpointActor.NAME)
-    Props provideEntityEndpointProps(OrganisationRepository entityRepository) {
-        return OrganisationEndpointActor.PROPS(entityRepository);
+    WorkerRouting provideWorkerRouting(DatabaseConfig databaseConfig) {
+        return WorkerRouting.fromConfig(databaseConfig.workerRoutingMode(), databaseConfig.workerPoolSize());
     }
 
 }
@@ -0,0 +1,65 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.config.module;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.Singleton;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.service.actor.EventDeduplicationCache;
+import io.kodokojo.database.service.metrics.MetricsHttpEndpoint;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+
+import java.util.concurrent.TimeUnit;
+
+public class DatabaseServiceModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        bind(MetricsRegistry.class).in(Singleton.class);
+    }
+
+    @Provides
+    @Singleton
+    RsaKeyPairPool provideRsaKeyPairPool(DatabaseConfig databaseConfig, MetricsRegistry metricsRegistry) {
+        RsaKeyPairPool rsaKeyPairPool = new RsaKeyPairPool(databaseConfig.rsaKeyPairPoolSize(), databaseConfig.rsaKeyPairPoolLowWatermark(), metricsRegistry);
+        rsaKeyPairPool.start();
+        return rsaKeyPairPool;
+    }
+
+    @Provides
+    @Singleton
+    MetricsHttpEndpoint provideMetricsHttpEndpoint(MetricsRegistry metricsRegistry) {
+        return new MetricsHttpEndpoint(metricsRegistry);
+    }
+
+    @Provides
+    @Singleton
+    UserCache provideUserCache(DatabaseConfig databaseConfig, MetricsRegistry metricsRegistry) {
+        return new UserCache(databaseConfig.userCacheMaxSize(), databaseConfig.userCacheTtlSeconds(), TimeUnit.SECONDS, metricsRegistry);
+    }
+
+    @Provides
+    @Singleton
+    EventDeduplicationCache provideEventDeduplicationCache(DatabaseConfig databaseConfig, MetricsRegistry metricsRegistry) {
+        return new EventDeduplicationCache(databaseConfig.eventDeduplicationMaxSize(), databaseConfig.eventDeduplicationWindowSeconds(), TimeUnit.SECONDS, databaseConfig.eventDeduplicationHeader(), metricsRegistry);
+    }
+
+}
@@ -22,6 +22,7 @@ import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
 import com.amazonaws.auth.InstanceProfileCredentialsProvider;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailServiceClient;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
 import com.google.inject.Singleton;
@@ -34,6 +35,12 @@ import io.kodokojo.commons.service.EmailSender;
 import io.kodokojo.commons.service.NoopEmailSender;
 import io.kodokojo.commons.service.SmtpEmailSender;
 import io.kodokojo.commons.service.aws.SesEmailSender;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.email.PooledSmtpEmailSender;
+import io.kodokojo.database.service.email.SesEmailBatchSender;
+import io.kodokojo.database.service.email.SmtpSessionPool;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -74,6 +81,31 @@ public class EmailModule extends AbstractModule {
         }
     }
 
+    @Provides
+    @Singleton
+    EmailBatchSender provideEmailBatchSender(AwsConfig awsConfig, EmailConfig emailConfig, EmailSender emailSender, DatabaseConfig databaseConfig) {
+        if (StringUtils.isBlank(emailConfig.smtpHost())) {
+            AWSCredentials credentials = getAwsCredentials();
+            if (credentials == null) {
+                return EmailBatchSender.of(emailSender);
+            }
+            //  A single SES client, and its connection pool, for every batch.
+            AmazonSimpleEmailServiceClient amazonSimpleEmailService = new AmazonSimpleEmailServiceClient(credentials);
+            amazonSimpleEmailService.setRegion(Region.getRegion(Regions.fromName(awsConfig.region())));
+            return new SesEmailBatchSender(amazonSimpleEmailService, emailConfig.smtpFrom());
+        }
+        //  One SMTP connection for each delivery worker.
+        SmtpSessionPool smtpSessionPool = new SmtpSessionPool(emailConfig.smtpHost(), emailConfig.smtpPort(), emailConfig.smtpUsername(), emailConfig.smtpPassword(), Boolean.parseBoolean(databaseConfig.emailSmtpStartTls()), databaseConfig.emailDeliveryConcurrency());
+        return new PooledSmtpEmailSender(smtpSessionPool, emailConfig.smtpFrom());
+    }
+
+    @Provides
+    @Singleton
+    EmailTemplateEngine provideEmailTemplateEngine(DatabaseConfig databaseConfig) {
+        //  Fail at startup rather than on the first user creation.
+        return new EmailTemplateEngine(databaseConfig.emailTemplateDirectory()).precompile(EmailTemplateEngine.USER_CREATED);
+    }
+
     private AWSCredentials getAwsCredentials() {
         AWSCredentials credentials = null;
         try {
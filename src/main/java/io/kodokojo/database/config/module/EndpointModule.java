@@ -0,0 +1,78 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.config.module;
+
+import akka.actor.Props;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import com.google.inject.name.Named;
+import io.kodokojo.commons.config.ApplicationConfig;
+import io.kodokojo.commons.service.BrickFactory;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.service.BootstrapConfigurationProvider;
+import io.kodokojo.database.service.ConfigurationStore;
+import io.kodokojo.database.service.actor.EmailDeliveryActor;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.organisation.OrganisationEndpointActor;
+import io.kodokojo.database.service.actor.project.ProjectEndpointActor;
+import io.kodokojo.database.service.actor.user.UserEndpointActor;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+
+/**
+ * Props of the actors the EndpointActor starts as children. Installed by the {@link AkkaModule}, it may also be used
+ * alone to start an endpoint on top of other repositories.
+ */
+public class EndpointModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        //  Nothing to do.
+    }
+
+    @Provides
+    @Named(UserEndpointActor.NAME)
+    Props provideUserEndpointProps(UserRepository userRepository, OrganisationRepository organisationRepository, ApplicationConfig applicationConfig, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine, WorkerRouting workerRouting) {
+        return UserEndpointActor.PROPS(userRepository, organisationRepository, applicationConfig, rsaKeyPairPool, userCache, emailTemplateEngine, workerRouting);
+    }
+
+    @Provides
+    @Named(ProjectEndpointActor.NAME)
+    Props provideProjectEndpointProps(ProjectRepository projectRepository, OrganisationRepository organisationRepository,  BrickFactory brickFactory, BootstrapConfigurationProvider bootstrapConfigurationProvider, ConfigurationStore configurationStore, WorkerRouting workerRouting, DatabaseConfig databaseConfig) {
+        return ProjectEndpointActor.PROPS(projectRepository, organisationRepository, brickFactory, bootstrapConfigurationProvider, configurationStore, workerRouting, databaseConfig.brickStateCoalescingWindowMillis(), databaseConfig.brickStateCoalescingMaxEvents());
+    }
+
+    @Provides
+    @Named(EmailDeliveryActor.NAME)
+    Props provideEmailDeliveryProps(EmailBatchSender emailBatchSender, DatabaseConfig databaseConfig, MetricsRegistry metricsRegistry) {
+        return EmailDeliveryActor.PROPS(emailBatchSender, databaseConfig.emailDeliveryQueueSize(), databaseConfig.emailDeliveryConcurrency(), databaseConfig.emailDeliveryBatchSize(), metricsRegistry);
+    }
+
+    @Provides
+    @Named(OrganisationEndpointActor.NAME)
+    Props provideEntityEndpointProps(OrganisationRepository entityRepository, UserCache userCache, WorkerRouting workerRouting) {
+        return OrganisationEndpointActor.PROPS(entityRepository, userCache, workerRouting);
+    }
+
+}
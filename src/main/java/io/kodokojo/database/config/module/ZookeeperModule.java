@@ -28,9 +28,12 @@ import io.kodokojo.commons.config.properties.PropertyConfig;
 import io.kodokojo.commons.config.properties.PropertyResolver;
 import io.kodokojo.commons.config.properties.provider.PropertyValueProvider;
 import io.kodokojo.commons.model.ServiceInfo;
+import io.kodokojo.database.config.DatabaseConfig;
 import io.kodokojo.database.service.BootstrapConfigurationProvider;
 import io.kodokojo.database.service.ConfigurationStore;
+import io.kodokojo.database.service.zookeeper.TcpPortMirror;
 import io.kodokojo.database.service.zookeeper.ZookeeperBootstrapConfigurationProvider;
+import io.kodokojo.database.service.zookeeper.ZookeeperClient;
 import io.kodokojo.database.service.zookeeper.ZookeeperConfigurationStore;
 
 public class ZookeeperModule extends AbstractModule {
@@ -41,14 +44,28 @@ public class ZookeeperModule extends AbstractModule {
 
     @Provides
     @Singleton
-    ConfigurationStore provideConfigurationStore(ZookeeperConfig zookeeperConfig) {
-        return new ZookeeperConfigurationStore(zookeeperConfig);
+    ZookeeperClient provideZookeeperClient(ZookeeperConfig zookeeperConfig) {
+        ZookeeperClient zookeeperClient = new ZookeeperClient(zookeeperConfig);
+        Runtime.getRuntime().addShutdownHook(new Thread(zookeeperClient::stop, "zookeeper-client-shutdown"));
+        return zookeeperClient;
     }
 
     @Provides
     @Singleton
-    BootstrapConfigurationProvider provideBootstrapConfigurationProvider(ZookeeperConfig zookeeperConfig) {
-        return new ZookeeperBootstrapConfigurationProvider(zookeeperConfig);
+    TcpPortMirror provideTcpPortMirror(ZookeeperClient zookeeperClient) {
+        return new TcpPortMirror(zookeeperClient).start();
+    }
+
+    @Provides
+    @Singleton
+    ConfigurationStore provideConfigurationStore(ZookeeperClient zookeeperClient, TcpPortMirror tcpPortMirror) {
+        return new ZookeeperConfigurationStore(zookeeperClient, tcpPortMirror);
+    }
+
+    @Provides
+    @Singleton
+    BootstrapConfigurationProvider provideBootstrapConfigurationProvider(ZookeeperClient zookeeperClient, TcpPortMirror tcpPortMirror, DatabaseConfig databaseConfig) {
+        return new ZookeeperBootstrapConfigurationProvider(zookeeperClient, tcpPortMirror, databaseConfig.tcpPortLeaseSize());
     }
 
 
@@ -0,0 +1,37 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+/**
+ * Names of the dispatchers defined in <code>application.conf</code>.
+ * <ul>
+ *     <li>{@link #ENDPOINT}: small dispatcher for endpoint and routing actors, which must never block.</li>
+ *     <li>{@link #BLOCKING_IO}: sized dispatcher for worker actors which call repositories, ZooKeeper or SMTP.</li>
+ * </ul>
+ */
+public final class ActorDispatchers {
+
+    public static final String ENDPOINT = "kodokojo.endpoint-dispatcher";
+
+    public static final String BLOCKING_IO = "kodokojo.blocking-io-dispatcher";
+
+    private ActorDispatchers() {
+        // Constants class.
+    }
+
+}
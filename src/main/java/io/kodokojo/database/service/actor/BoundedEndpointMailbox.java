@@ -0,0 +1,293 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+import akka.dispatch.ProducesMessageQueue;
+import com.typesafe.config.Config;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.actor.project.BrickStateEventPersistenceActor;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Option;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Akka mailbox of endpoint actors which holds at most <code>mailbox-capacity</code> messages.
+ * <p>
+ * Used from <code>application.conf</code> with <code>mailbox-type = "io.kodokojo.database.service.actor.BoundedEndpointMailbox"</code>.
+ * A message which overflows the mailbox is never enqueued, it is handled according to <code>overflow-policy</code>:
+ * </p>
+ * <ul>
+ *     <li><code>reject</code>: the message is published on the event stream as a {@link MailboxOverflow}, so the
+ *     {@link EndpointLoadSheddingActor} can reply a retryable failure to its requester.</li>
+ *     <li><code>drop-low-priority</code>: low priority messages, brick state updates, are dropped as soon as the mailbox
+ *     holds <code>low-priority-capacity</code> messages to keep room for requests. Other messages are rejected once full.</li>
+ * </ul>
+ * <p>
+ * Results of workers on their way back to the bus are always enqueued, shedding them would waste the work already done.
+ * Mailbox depth is published once a registry is bound with {@link #bindMetricsRegistry(MetricsRegistry)}.
+ * </p>
+ */
+public class BoundedEndpointMailbox implements MailboxType, ProducesMessageQueue<BoundedEndpointMailbox.EndpointMessageQueue> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedEndpointMailbox.class);
+
+    public static final String CONFIG_PATH = "kodokojo.endpoint-mailbox";
+
+    public static final String REJECT_POLICY = "reject";
+
+    public static final String DROP_LOW_PRIORITY_POLICY = "drop-low-priority";
+
+    public static final String DEPTH_GAUGE = "kodokojo_mailbox_depth";
+
+    public static final String CAPACITY_GAUGE = "kodokojo_mailbox_capacity";
+
+    public static final String SHED_COUNTER = "kodokojo_mailbox_shed_total";
+
+    public static final String MAILBOX_LABEL = "mailbox";
+
+    public static final String REASON_LABEL = "reason";
+
+    public static final String REJECTED = "rejected";
+
+    public static final String DROPPED = "dropped";
+
+    private static final Map<String, EndpointMessageQueue> QUEUES = new ConcurrentHashMap<>();
+
+    private static volatile MetricsRegistry metricsRegistry;
+
+    private final int capacity;
+
+    private final int lowPriorityCapacity;
+
+    private final boolean dropLowPriority;
+
+    public BoundedEndpointMailbox(ActorSystem.Settings settings, Config config) {
+        this(config.getInt("mailbox-capacity"), config.getInt("low-priority-capacity"), config.getString("overflow-policy"));
+    }
+
+    public BoundedEndpointMailbox(int capacity, int lowPriorityCapacity, String overflowPolicy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("mailbox-capacity must be greater than 0.");
+        }
+        if (lowPriorityCapacity <= 0 || lowPriorityCapacity > capacity) {
+            throw new IllegalArgumentException("low-priority-capacity must be greater than 0 and lower or equals to mailbox-capacity.");
+        }
+        requireNonNull(overflowPolicy, "overflowPolicy must be defined.");
+        String policy = overflowPolicy.trim().toLowerCase();
+        if (!REJECT_POLICY.equals(policy) && !DROP_LOW_PRIORITY_POLICY.equals(policy)) {
+            throw new IllegalArgumentException("overflow-policy must be '" + REJECT_POLICY + "' or '" + DROP_LOW_PRIORITY_POLICY + "'.");
+        }
+        this.capacity = capacity;
+        this.lowPriorityCapacity = lowPriorityCapacity;
+        this.dropLowPriority = DROP_LOW_PRIORITY_POLICY.equals(policy);
+    }
+
+    @Override
+    public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+        String name = owner.isDefined() ? owner.get().path().toStringWithoutAddress() : "anonymous";
+        ActorSystem actorSystem = system.isDefined() ? system.get() : null;
+        EndpointMessageQueue queue = new EndpointMessageQueue(name, actorSystem, capacity, lowPriorityCapacity, dropLowPriority);
+        register(queue);
+        return queue;
+    }
+
+    /**
+     * Publish depth gauges of the mailboxes already created and of the ones to come.
+     * @param registry The registry which receives the gauges and the shed counters.
+     */
+    public static synchronized void bindMetricsRegistry(MetricsRegistry registry) {
+        metricsRegistry = registry;
+        QUEUES.values().forEach(queue -> publish(registry, queue));
+    }
+
+    static boolean isLowPriority(Object message) {
+        if (message instanceof Event) {
+            return Event.BRICK_STATE_UPDATE.equals(((Event) message).getEventType());
+        }
+        return message instanceof BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg;
+    }
+
+    private static synchronized void register(EndpointMessageQueue queue) {
+        QUEUES.put(queue.name, queue);
+        if (metricsRegistry != null) {
+            publish(metricsRegistry, queue);
+        }
+    }
+
+    private static void publish(MetricsRegistry registry, EndpointMessageQueue queue) {
+        registry.gauge(DEPTH_GAUGE, queue::numberOfMessages, MAILBOX_LABEL, queue.name);
+        registry.gauge(CAPACITY_GAUGE, () -> queue.capacity, MAILBOX_LABEL, queue.name);
+    }
+
+    private static void countShed(String name, String reason) {
+        MetricsRegistry registry = metricsRegistry;
+        if (registry != null) {
+            registry.counter(SHED_COUNTER, MAILBOX_LABEL, name, REASON_LABEL, reason).increment();
+        }
+    }
+
+    public static class EndpointMessageQueue implements MessageQueue {
+
+        private final String name;
+
+        private final ActorSystem actorSystem;
+
+        private final int capacity;
+
+        private final int lowPriorityCapacity;
+
+        private final boolean dropLowPriority;
+
+        private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        EndpointMessageQueue(String name, ActorSystem actorSystem, int capacity, int lowPriorityCapacity, boolean dropLowPriority) {
+            this.name = name;
+            this.actorSystem = actorSystem;
+            this.capacity = capacity;
+            this.lowPriorityCapacity = dropLowPriority ? lowPriorityCapacity : capacity;
+            this.dropLowPriority = dropLowPriority;
+        }
+
+        @Override
+        public void enqueue(ActorRef receiver, Envelope handle) {
+            Object message = handle.message();
+            if (message instanceof EventReplyableMessage) {
+                size.incrementAndGet();
+                queue.offer(handle);
+            } else if (isLowPriority(message) ? tryReserve(lowPriorityCapacity) : tryReserve(capacity)) {
+                queue.offer(handle);
+            } else {
+                overflow(receiver, handle);
+            }
+        }
+
+        private boolean tryReserve(int limit) {
+            int current;
+            do {
+                current = size.get();
+                if (current >= limit) {
+                    return false;
+                }
+            } while (!size.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void overflow(ActorRef receiver, Envelope handle) {
+            Object message = handle.message();
+            //  Overflows of the shedding actor itself and low priority messages are only counted, never republished.
+            if (dropLowPriority && isLowPriority(message) || message instanceof MailboxOverflow || actorSystem == null) {
+                countShed(name, DROPPED);
+                if (LOGGER.isTraceEnabled()) {
+                    LOGGER.trace("Mailbox {} is full, drop message {}.", name, message);
+                }
+            } else {
+                countShed(name, REJECTED);
+                actorSystem.eventStream().publish(new MailboxOverflow(message, handle.sender(), receiver));
+            }
+        }
+
+        @Override
+        public Envelope dequeue() {
+            Envelope envelope = queue.poll();
+            if (envelope != null) {
+                size.decrementAndGet();
+            }
+            return envelope;
+        }
+
+        @Override
+        public int numberOfMessages() {
+            return size.get();
+        }
+
+        @Override
+        public boolean hasMessages() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+            Envelope envelope = dequeue();
+            while (envelope != null) {
+                deadLetters.enqueue(owner, envelope);
+                envelope = dequeue();
+            }
+            QUEUES.remove(name, this);
+        }
+
+        public int capacity() {
+            return capacity;
+        }
+    }
+
+    /**
+     * Published on the event stream for each message rejected by a full mailbox.
+     */
+    public static class MailboxOverflow {
+
+        private final Object message;
+
+        private final ActorRef sender;
+
+        private final ActorRef receiver;
+
+        public MailboxOverflow(Object message, ActorRef sender, ActorRef receiver) {
+            this.message = message;
+            this.sender = sender;
+            this.receiver = receiver;
+        }
+
+        public Object getMessage() {
+            return message;
+        }
+
+        public ActorRef getSender() {
+            return sender;
+        }
+
+        public ActorRef getReceiver() {
+            return receiver;
+        }
+
+        @Override
+        public String toString() {
+            return "MailboxOverflow{" +
+                    "message=" + message +
+                    ", receiver=" + receiver +
+                    '}';
+        }
+    }
+
+}
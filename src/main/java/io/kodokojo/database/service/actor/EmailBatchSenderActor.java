@@ -0,0 +1,92 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.Props;
+import akka.event.LoggingAdapter;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import io.kodokojo.database.service.email.EmailBatchSender;
+
+import java.util.Collections;
+import java.util.List;
+
+import static akka.event.Logging.getLogger;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Long-lived worker of the {@link EmailDeliveryActor}, send a batch of emails then report to its parent.
+ */
+public class EmailBatchSenderActor extends AbstractActor {
+
+    private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
+
+    public static Props PROPS(EmailBatchSender emailBatchSender) {
+        requireNonNull(emailBatchSender, "emailBatchSender must be defined.");
+        return Props.create(EmailBatchSenderActor.class, emailBatchSender).withDispatcher(ActorDispatchers.BLOCKING_IO);
+    }
+
+    public EmailBatchSenderActor(EmailBatchSender emailBatchSender) {
+        receive(ReceiveBuilder.match(EmailBatchMsg.class, msg -> {
+            int sent = 0;
+            try {
+                sent = emailBatchSender.send(msg.emails);
+            } catch (RuntimeException e) {
+                LOGGER.error(e, "Unable to send a batch of {} emails.", msg.emails.size());
+            }
+            //  Always report, the parent only hands a new batch to workers which reported.
+            sender().tell(new EmailBatchSentMsg(sent, msg.emails.size() - sent), self());
+        }).matchAny(this::unhandled).build());
+    }
+
+    public static class EmailBatchMsg {
+
+        private final List<EmailSenderActor.EmailSenderMsg> emails;
+
+        public EmailBatchMsg(List<EmailSenderActor.EmailSenderMsg> emails) {
+            requireNonNull(emails, "emails must be defined.");
+            this.emails = Collections.unmodifiableList(emails);
+        }
+
+        public List<EmailSenderActor.EmailSenderMsg> getEmails() {
+            return emails;
+        }
+    }
+
+    public static class EmailBatchSentMsg {
+
+        private final int sent;
+
+        private final int failed;
+
+        public EmailBatchSentMsg(int sent, int failed) {
+            this.sent = sent;
+            this.failed = failed;
+        }
+
+        public int getSent() {
+            return sent;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+    }
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.event.LoggingAdapter;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import static akka.event.Logging.getLogger;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Long-lived email delivery, replacing the creation of an {@link EmailSenderActor} for each email.
+ * <p>
+ * Emails are queued in a bounded queue, emails received while the queue is full are dropped.
+ * A fixed number of {@link EmailBatchSenderActor} workers each send up to <code>batchSize</code> queued emails at once,
+ * a worker is handed a new batch only once it reported the previous one.
+ * </p>
+ */
+public class EmailDeliveryActor extends AbstractActor {
+
+    public static final String NAME = "emailDeliveryProps";
+
+    public static final String QUEUE_SIZE_GAUGE = "kodokojo_email_queue_size";
+
+    public static final String SENT_COUNTER = "kodokojo_email_sent_total";
+
+    public static final String FAILED_COUNTER = "kodokojo_email_failed_total";
+
+    public static final String REJECTED_COUNTER = "kodokojo_email_rejected_total";
+
+    private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
+
+    private final BlockingQueue<EmailSenderActor.EmailSenderMsg> queue;
+
+    private final Deque<ActorRef> idleWorkers;
+
+    private final int batchSize;
+
+    private final LongAdder sent;
+
+    private final LongAdder failed;
+
+    private final LongAdder rejected;
+
+    public static Props PROPS(EmailBatchSender emailBatchSender, int queueSize, int concurrency, int batchSize, MetricsRegistry metricsRegistry) {
+        requireNonNull(emailBatchSender, "emailBatchSender must be defined.");
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("queueSize must be greater than 0.");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be greater than 0.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be greater than 0.");
+        }
+        return Props.create(EmailDeliveryActor.class, emailBatchSender, queueSize, concurrency, batchSize, metricsRegistry).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    public EmailDeliveryActor(EmailBatchSender emailBatchSender, int queueSize, int concurrency, int batchSize, MetricsRegistry metricsRegistry) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.batchSize = batchSize;
+        this.idleWorkers = new ArrayDeque<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            idleWorkers.add(getContext().actorOf(EmailBatchSenderActor.PROPS(emailBatchSender), "emailBatchSender-" + i));
+        }
+        sent = metricsRegistry.counter(SENT_COUNTER);
+        failed = metricsRegistry.counter(FAILED_COUNTER);
+        rejected = metricsRegistry.counter(REJECTED_COUNTER);
+        metricsRegistry.gauge(QUEUE_SIZE_GAUGE, queue::size);
+
+        receive(ReceiveBuilder
+                .match(EmailSenderActor.EmailSenderMsg.class, this::onEmail)
+                .match(EmailBatchSenderActor.EmailBatchSentMsg.class, this::onBatchSent)
+                .matchAny(this::unhandled)
+                .build());
+    }
+
+    private void onEmail(EmailSenderActor.EmailSenderMsg msg) {
+        if (queue.offer(msg)) {
+            dispatchBatches();
+        } else {
+            rejected.increment();
+            LOGGER.warning("Email delivery queue is full, drop email '{}'.", msg.getSubject());
+        }
+    }
+
+    private void onBatchSent(EmailBatchSenderActor.EmailBatchSentMsg msg) {
+        sent.add(msg.getSent());
+        failed.add(msg.getFailed());
+        idleWorkers.add(sender());
+        dispatchBatches();
+    }
+
+    private void dispatchBatches() {
+        while (!idleWorkers.isEmpty() && !queue.isEmpty()) {
+            List<EmailSenderActor.EmailSenderMsg> batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            idleWorkers.poll().tell(new EmailBatchSenderActor.EmailBatchMsg(batch), self());
+        }
+    }
+
+}
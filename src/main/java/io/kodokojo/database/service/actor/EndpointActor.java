@@ -21,6 +21,7 @@ import akka.actor.ActorRef;
 import akka.actor.Props;
 import akka.japi.pf.ReceiveBuilder;
 import akka.japi.pf.UnitPFBuilder;
+import com.google.inject.Binding;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.name.Names;
@@ -32,16 +33,20 @@ import io.kodokojo.commons.event.EventBuilderFactory;
 import io.kodokojo.commons.event.payload.*;
 import io.kodokojo.commons.model.*;
 import io.kodokojo.commons.model.TypeChange;
-import io.kodokojo.commons.service.EmailSender;
 import io.kodokojo.commons.service.actor.AbstractEventEndpointActor;
 import io.kodokojo.commons.service.actor.EmailSenderActor;
 import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
 import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.actor.cluster.EntityRouting;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityActor;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
 import io.kodokojo.database.service.actor.organisation.OrganisationCreatorActor;
 import io.kodokojo.database.service.actor.organisation.OrganisationEndpointActor;
 import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
 import io.kodokojo.database.service.actor.project.*;
 import io.kodokojo.database.service.actor.user.*;
+import io.kodokojo.database.service.metrics.EventMetrics;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
 import javaslang.control.Try;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -58,147 +63,191 @@ public class EndpointActor extends AbstractEventEndpointActor {
 
     private final ActorRef projectEndpoint;
 
+    private final ActorRef emailDelivery;
+
+    static final int MAX_EVENTS_IN_FLIGHT = 10000;
+
+    private final EventMetrics eventMetrics;
+
+    private final EndpointRoutingTable routingTable;
+
+    private final EntityRouting entityRouting;
+
+    private final EventDeduplicationCache deduplicationCache;
+
+    private final ActorRef eventReplay;
+
     public static Props PROPS(Injector injector) {
         requireNonNull(injector, "injector must be defined.");
-        return Props.create(EndpointActor.class, injector);
+        return Props.create(EndpointActor.class, injector).withDispatcher(ActorDispatchers.ENDPOINT).withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
+    }
+
+    /**
+     * Props of an endpoint shard, which shares its event metrics with the other shards.
+     */
+    public static Props PROPS(Injector injector, EventMetrics eventMetrics) {
+        requireNonNull(injector, "injector must be defined.");
+        requireNonNull(eventMetrics, "eventMetrics must be defined.");
+        return Props.create(EndpointActor.class, injector, eventMetrics).withDispatcher(ActorDispatchers.ENDPOINT).withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
     }
 
     public EndpointActor(Injector injector) {
+        this(injector, new EventMetrics(injector.getInstance(MetricsRegistry.class), MAX_EVENTS_IN_FLIGHT));
+    }
+
+    public EndpointActor(Injector injector, EventMetrics eventMetrics) {
         super(injector);
+        this.eventMetrics = eventMetrics;
 
         userEndpoint = getContext().actorOf(injector.getInstance(Key.get(Props.class, Names.named(UserEndpointActor.NAME))), "userEndpoint");
         organisationEndpoint = getContext().actorOf(injector.getInstance(Key.get(Props.class, Names.named(OrganisationEndpointActor.NAME))), "organisationEndpoint");
         projectEndpoint = getContext().actorOf(injector.getInstance(Key.get(Props.class, Names.named(ProjectEndpointActor.NAME))), "projectEndpoint");
+        emailDelivery = getContext().actorOf(injector.getInstance(Key.get(Props.class, Names.named(EmailDeliveryActor.NAME))), "emailDelivery");
+        routingTable = createRoutingTable();
+        //  Only bound in clustered mode, messages are otherwise always handled locally.
+        Binding<EntityRouting> entityRoutingBinding = injector.getExistingBinding(Key.get(EntityRouting.class));
+        entityRouting = entityRoutingBinding == null ? null : entityRoutingBinding.getProvider().get();
+        Binding<EventDeduplicationCache> deduplicationCacheBinding = injector.getExistingBinding(Key.get(EventDeduplicationCache.class));
+        EventDeduplicationCache bound = deduplicationCacheBinding == null ? null : deduplicationCacheBinding.getProvider().get();
+        deduplicationCache = bound != null && bound.isEnabled() ? bound : null;
+        eventReplay = getContext().actorOf(EventReplayActor.PROPS(), "eventReplay");
     }
 
     @Override
     protected Try<ActorRefWithMessage> convertToActorRefWithMessage(Event event, User requester) {
+        EndpointRoutingTable.EventRoute eventRoute = routingTable.eventRoute(event.getEventType());
+        boolean replyExpected = eventRoute != null && eventRoute.isReplyExpected();
+        //  Only events answered with a reply event can be replayed, unhandled and fire and forget events are not recorded.
+        boolean deduplicated = deduplicationCache != null && replyExpected;
+        EventDeduplicationCache.Entry firstDelivery = deduplicated ? deduplicationCache.admit(event) : null;
+        if (firstDelivery != null) {
+            //  Redelivered event: wait for the first delivery to reply, or replay its reply.
+            EventReplyableMessage reply = firstDelivery.getReply();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Event of type '{}' already received, {}.", event.getEventType(), reply == null ? "drop it" : "replay its reply");
+            }
+            return Try.of(() -> reply == null ? new ActorRefWithMessage(null, null) : new ActorRefWithMessage(eventReplay, new EventReplayActor.EventReplayMsg(event, reply)));
+        }
+        eventMetrics.received(event, replyExpected);
+        try {
+            return convertEvent(event, eventRoute, requester, deduplicated);
+        } catch (RuntimeException e) {
+            eventMetrics.failed(event, EventMetrics.CONVERSION_FAILED);
+            if (deduplicated) {
+                deduplicationCache.release(event);
+            }
+            throw e;
+        }
+    }
+
+    private Try<ActorRefWithMessage> convertEvent(Event event, EndpointRoutingTable.EventRoute eventRoute, User requester, boolean deduplicated) {
         EventBusOriginMessage msg = null;
         ActorRef actorRef = null;
 
-        switch (event.getEventType()) {
-            case Event.USER_IDENTIFIER_CREATION_REQUEST:
-                msg = new UserGenerateIdentifierActor.UserGenerateIdentifierMsg(event, true);
-                actorRef = userEndpoint;
-                break;
-            case Event.USER_CREATION_REQUEST:
-                UserCreationRequest creationRequest = event.getPayload(UserCreationRequest.class);
-                msg = new UserCreatorActor.EventUserCreateMsg(requester, event, creationRequest.getId(), creationRequest.getEmail(), creationRequest.getUsername(), creationRequest.getOrganisationId(), creationRequest.isRoot());
-                actorRef = userEndpoint;
-                break;
-            case Event.USER_UPDATE_REQUEST:
-                UserUpdateDto userDto = event.getPayload(UserUpdateDto.class);
-                User userToUpdate = userFetcher.getUserByIdentifier(userDto.getIdentifier());
-                msg = new UserMessage.UserUpdateMessageUser(requester, event, userToUpdate, userDto.getPassword(), userDto.getSshPublicKey(), userDto.getFirstName(), userDto.getLastName(), userDto.getEmail(), true);
-                actorRef = userEndpoint;
-                break;
-            case Event.PROJECTCONFIG_CREATION_REQUEST:
-                ProjectConfigurationCreationDto projectConfigurationCreationDto = event.getPayload(ProjectConfigurationCreationDto.class);
-                msg = new ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg(requester, event, projectConfigurationCreationDto, true);
-                actorRef = projectEndpoint;
-                break;
-            case Event.PROJECT_CREATION_REQUEST:
-                Project project = event.getPayload(Project.class);
-                msg = new ProjectCreatorActor.ProjectCreateMsg(requester, event, project, project.getProjectConfigurationIdentifier(), true);
-                actorRef = projectEndpoint;
-                break;
-            case Event.ORGANISATION_CREATE_REQUEST:
-                String name = event.getPayload(String.class);
-                Organisation organisation = new Organisation(name);
-                msg = new OrganisationCreatorActor.OrganisationCreateMsg(requester, event, organisation);
-                actorRef = organisationEndpoint;
-                break;
-            case Event.ORGANISATION_CHANGE_ADMIN_REQUEST:
-                OrganisationChangeUserRequest payload = event.getPayload(OrganisationChangeUserRequest.class);
-                OrganisationMessage.TypeChange typeChange = payload.getTypeChange() == OrganisationChangeUserRequest.TypeChange.ADD ?
-                        OrganisationMessage.TypeChange.ADD :
-                        OrganisationMessage.TypeChange.REMOVE;
-                msg = new OrganisationMessage.ChangeUserToOrganisationMsg(requester, typeChange, event, payload.getUserId(), payload.getOrganisationId(), true);
-                actorRef = organisationEndpoint;
-                break;
-            case Event.BRICK_STATE_UPDATE:
-                msg = new BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg(requester, event);
-                actorRef = projectEndpoint;
-                break;
-
-            case Event.PROJECTCONFIG_CHANGE_USER_REQUEST:
-                ProjectConfigurationChangeUserRequest changeUserRequest = event.getPayload(ProjectConfigurationChangeUserRequest.class);
-                msg = new ProjectConfigurationChangeUserActor.ProjectConfigurationChangeEventUserMsg(requester, event, TypeChange.valueOf(changeUserRequest.getTypeChange().toString()), changeUserRequest.getProjectConfigurationId(), changeUserRequest.getUserIdentifiers());
-                actorRef = projectEndpoint;
-                break;
-
-            case Event.BRICK_PROPERTY_UPDATE_REQUEST:
-                BrickConfigurerData brickConfigurerData = event.getPayload(BrickConfigurerData.class);
-                msg = new BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg(
-                        requester,
-                        event,
-                        brickConfigurerData.getProjectConfigurationIdentifier(),
-                        brickConfigurerData.getStackName(),
-                        brickConfigurerData.getBrickName(),
-                        brickConfigurerData.getContext()
-                );
-                break;
-
-            default:
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Not recognize event type '{}' from following event, drop it : {}", event.getEventType(), Event.convertToJson(event));
-                }
-                break;
+        if (eventRoute == null) {
+            eventMetrics.failed(event, EventMetrics.UNHANDLED);
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Not recognize event type '{}' from following event, drop it : {}", event.getEventType(), Event.convertToJson(event));
+            }
+        } else {
+            msg = eventRoute.createMessage(event, requester);
+            //  Entity messages come back to this endpoint which sends them to the owner of their entity.
+            actorRef = entityRouting != null && msg instanceof ShardedEntityMessage ? self() : eventRoute.getTarget();
+            if (eventRoute.isReplyExpected() && msg != null) {
+                //  Time the request on its first reply, whichever it is, and release a deduplicated event if its request
+                //  ends without a reply event, so a redelivery is handled again.
+                actorRef = getContext().actorOf(EventReplyWatcherActor.PROPS(eventMetrics, deduplicated ? deduplicationCache : null, event, actorRef));
+            }
         }
         final EventBusOriginMessage finalMsg = msg;
         final ActorRef finalActorRef = actorRef;
         return Try.of(() -> new ActorRefWithMessage(finalActorRef, finalMsg));
     }
 
+    private EndpointRoutingTable createRoutingTable() {
+        EndpointRoutingTable.Builder builder = EndpointRoutingTable.builder();
+        UserEndpointActor.registerRoutes(builder, userEndpoint);
+        OrganisationEndpointActor.registerRoutes(builder, organisationEndpoint);
+        ProjectEndpointActor.registerRoutes(builder, projectEndpoint);
+        builder.route(EmailSenderActor.EmailSenderMsg.class, emailDelivery);
+
+        return builder
+                .routeEvent(Event.USER_IDENTIFIER_CREATION_REQUEST, userEndpoint, (event, requester) ->
+                        new UserGenerateIdentifierActor.UserGenerateIdentifierMsg(event, true))
+                .routeEvent(Event.USER_CREATION_REQUEST, userEndpoint, (event, requester) -> {
+                    UserCreationRequest creationRequest = event.getPayload(UserCreationRequest.class);
+                    return new UserCreatorActor.EventUserCreateMsg(requester, event, creationRequest.getId(), creationRequest.getEmail(), creationRequest.getUsername(), creationRequest.getOrganisationId(), creationRequest.isRoot());
+                })
+                .routeEvent(UserBulkCreatorActor.USER_BULK_CREATION_REQUEST, userEndpoint, (event, requester) -> {
+                    UserBulkCreatorActor.UserBulkCreationRequest bulkCreationRequest = event.getPayload(UserBulkCreatorActor.UserBulkCreationRequest.class);
+                    return new UserBulkCreatorActor.EventUserBulkCreateMsg(requester, event, bulkCreationRequest.getOrganisationId(), bulkCreationRequest.getUsers(), true);
+                })
+                .routeEvent(Event.USER_UPDATE_REQUEST, userEndpoint, EndpointActor::userUpdateMessage)
+                .routeEvent(Event.PROJECTCONFIG_CREATION_REQUEST, projectEndpoint, (event, requester) -> {
+                    ProjectConfigurationCreationDto projectConfigurationCreationDto = event.getPayload(ProjectConfigurationCreationDto.class);
+                    return new ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg(requester, event, projectConfigurationCreationDto, true);
+                })
+                .routeEvent(Event.PROJECT_CREATION_REQUEST, projectEndpoint, (event, requester) -> {
+                    Project project = event.getPayload(Project.class);
+                    return new ProjectCreatorActor.ProjectCreateMsg(requester, event, project, project.getProjectConfigurationIdentifier(), true);
+                })
+                .routeEvent(Event.ORGANISATION_CREATE_REQUEST, organisationEndpoint, (event, requester) -> {
+                    String name = event.getPayload(String.class);
+                    return new OrganisationCreatorActor.OrganisationCreateMsg(requester, event, new Organisation(name));
+                })
+                .routeEvent(Event.ORGANISATION_CHANGE_ADMIN_REQUEST, organisationEndpoint, (event, requester) -> {
+                    OrganisationChangeUserRequest payload = event.getPayload(OrganisationChangeUserRequest.class);
+                    OrganisationMessage.TypeChange typeChange = payload.getTypeChange() == OrganisationChangeUserRequest.TypeChange.ADD ?
+                            OrganisationMessage.TypeChange.ADD :
+                            OrganisationMessage.TypeChange.REMOVE;
+                    return new OrganisationMessage.ChangeUserToOrganisationMsg(requester, typeChange, event, payload.getUserId(), payload.getOrganisationId(), true);
+                })
+                //  Brick state updates are only acknowledged, no reply event is sent to the bus.
+                .routeEventWithoutReply(Event.BRICK_STATE_UPDATE, projectEndpoint, BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg::new)
+                .routeEvent(Event.PROJECTCONFIG_CHANGE_USER_REQUEST, projectEndpoint, (event, requester) -> {
+                    ProjectConfigurationChangeUserRequest changeUserRequest = event.getPayload(ProjectConfigurationChangeUserRequest.class);
+                    return new ProjectConfigurationChangeUserActor.ProjectConfigurationChangeEventUserMsg(requester, event, TypeChange.valueOf(changeUserRequest.getTypeChange().toString()), changeUserRequest.getProjectConfigurationId(), changeUserRequest.getUserIdentifiers());
+                })
+                .routeEvent(Event.BRICK_PROPERTY_UPDATE_REQUEST, projectEndpoint, (event, requester) -> {
+                    BrickConfigurerData brickConfigurerData = event.getPayload(BrickConfigurerData.class);
+                    return new BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg(
+                            requester,
+                            event,
+                            brickConfigurerData.getProjectConfigurationIdentifier(),
+                            brickConfigurerData.getStackName(),
+                            brickConfigurerData.getBrickName(),
+                            brickConfigurerData.getContext()
+                    );
+                })
+                .build();
+    }
+
+    static UserMessage.UserUpdateMessageUser userUpdateMessage(Event event, User requester) {
+        //  Only the identifier is given, the user is loaded by the UserUpdaterActor to keep store reads off the endpoint.
+        UserUpdateDto userDto = event.getPayload(UserUpdateDto.class);
+        return new UserMessage.UserUpdateMessageUser(requester, event, userDto.getIdentifier(), userDto.getPassword(), userDto.getSshPublicKey(), userDto.getFirstName(), userDto.getLastName(), userDto.getEmail(), true);
+    }
 
     @Override
     protected UnitPFBuilder<Object> messageMatcherBuilder() {
-        return ReceiveBuilder.match(UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class, msg -> {
-            dispatch(msg, sender(), userEndpoint);
-        }).match(UserCreatorActor.EventUserCreateMsg.class, msg -> {
-            dispatch(msg, sender(), userEndpoint);
-        }).match(UserFetcherActor.UserFetchMsg.class, msg -> {
-            dispatch(msg, sender(), userEndpoint);
-        }).match(UserServiceCreatorActor.UserServiceCreateMsg.class, msg -> {
-            dispatch(msg, sender(), userEndpoint);
-        }).match(OrganisationCreatorActor.OrganisationCreateMsg.class, msg -> {
-            dispatch(msg, sender(), organisationEndpoint);
-        }).match(OrganisationMessage.ChangeUserToOrganisationMsg.class, msg -> {
-            dispatch(msg, sender(), organisationEndpoint);
-        }).match(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectCreatorActor.ProjectCreateMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectUpdaterMessages.ProjectUpdateMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(EmailSenderActor.EmailSenderMsg.class, msg -> {
-            ActorRef emailSenderActor = getContext().actorOf(EmailSenderActor.PROPS(injector.getInstance(EmailSender.class)));
-            dispatch(msg, sender(), emailSenderActor);
-        }).match(UserMessage.UserUpdateMessageUser.class, msg -> {
-            dispatch(msg, sender(), userEndpoint);
-        }).match(ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(BootstrapStackActor.BootstrapStackMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
-        }).match(ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class, msg -> {
-            dispatch(msg, sender(), projectEndpoint);
+        //  Single lookup in the routing table, messages without route fall through to the parent matchers.
+        //  The routing table is read lazily as this builder may be requested by the parent constructor.
+        return ReceiveBuilder.match(ShardedEntityActor.OwnedEntityMsg.class, owned -> {
+            dispatch(owned.getMessage(), sender(), routingTable.targetOf(owned.getMessage()));
+        }).match(Object.class, msg -> routingTable.routes(msg), msg -> {
+            if (entityRouting == null || !entityRouting.route(msg, sender())) {
+                dispatch(msg, sender(), routingTable.targetOf(msg));
+            }
         });
-
     }
 
     @Override
     protected void onEventReplyableMessagePostReply(EventReplyableMessage msg, EventBuilderFactory eventBuilderFactory) {
         if (msg.originalEvent() != null) {
+            if (deduplicationCache != null && !deduplicationCache.replied(msg.originalEvent(), msg)) {
+                //  Replay of a reply, the events which follow the first reply have already been sent.
+                return;
+            }
             if (msg instanceof UserCreatorActor.UserCreateResultMsg) {
                 UserCreatorActor.UserCreateResultMsg createResultMsg = (UserCreatorActor.UserCreateResultMsg) msg;
                 User user = createResultMsg.getUser();
@@ -0,0 +1,171 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Status;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilder;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Answer messages rejected by a full {@link BoundedEndpointMailbox} so their requesters can retry later.
+ * <ul>
+ *     <li>Messages from the event bus are answered with an {@link #ENDPOINT_OVERLOADED_REPLY} event.</li>
+ *     <li>Messages from other actors are answered with a {@link Status.Failure} of {@link EndpointOverloadedException}.</li>
+ * </ul>
+ * Deduplicated events are released, and their {@link EventReplyWatcherActor} stopped, so their retries are handled.
+ */
+public class EndpointLoadSheddingActor extends AbstractActor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EndpointLoadSheddingActor.class);
+
+    public static final String NAME = "endpointLoadShedding";
+
+    public static final String ENDPOINT_OVERLOADED_REPLY = "endpoint_overloaded_reply";
+
+    private final EventBus eventBus;
+
+    private final EventBuilderFactory eventBuilderFactory;
+
+    private final long retryAfterMillis;
+
+    private final EventDeduplicationCache deduplicationCache;
+
+    public static Props PROPS(EventBus eventBus, EventBuilderFactory eventBuilderFactory, long retryAfterMillis) {
+        return PROPS(eventBus, eventBuilderFactory, retryAfterMillis, null);
+    }
+
+    /**
+     * @param deduplicationCache Cache which releases the events rejected by a full mailbox, may be <code>null</code>.
+     */
+    public static Props PROPS(EventBus eventBus, EventBuilderFactory eventBuilderFactory, long retryAfterMillis, EventDeduplicationCache deduplicationCache) {
+        requireNonNull(eventBus, "eventBus must be defined.");
+        requireNonNull(eventBuilderFactory, "eventBuilderFactory must be defined.");
+        if (retryAfterMillis < 0) {
+            throw new IllegalArgumentException("retryAfterMillis must be positive.");
+        }
+        return Props.create(EndpointLoadSheddingActor.class, eventBus, eventBuilderFactory, retryAfterMillis, deduplicationCache)
+                .withDispatcher(ActorDispatchers.ENDPOINT)
+                .withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
+    }
+
+    public EndpointLoadSheddingActor(EventBus eventBus, EventBuilderFactory eventBuilderFactory, long retryAfterMillis, EventDeduplicationCache deduplicationCache) {
+        this.eventBus = eventBus;
+        this.eventBuilderFactory = eventBuilderFactory;
+        this.retryAfterMillis = retryAfterMillis;
+        this.deduplicationCache = deduplicationCache;
+        receive(ReceiveBuilder.match(BoundedEndpointMailbox.MailboxOverflow.class, this::onOverflow)
+                .matchAny(this::unhandled).build());
+    }
+
+    @Override
+    public void preStart() throws Exception {
+        super.preStart();
+        getContext().system().eventStream().subscribe(self(), BoundedEndpointMailbox.MailboxOverflow.class);
+    }
+
+    @Override
+    public void postStop() throws Exception {
+        getContext().system().eventStream().unsubscribe(self());
+        super.postStop();
+    }
+
+    private void onOverflow(BoundedEndpointMailbox.MailboxOverflow overflow) {
+        Object message = overflow.getMessage();
+        Event event = null;
+        if (message instanceof Event) {
+            event = (Event) message;
+        } else if (message instanceof EventBusOriginMessage && ((EventBusOriginMessage) message).initialSenderIsEventBus()) {
+            event = ((EventBusOriginMessage) message).originalEvent();
+        }
+        if (event != null) {
+            replyOverloaded(event);
+            //  The requester is told to retry later, its retry must not be dropped as a redelivery.
+            if (deduplicationCache != null && deduplicationCache.release(event) && overflow.getSender() != null) {
+                overflow.getSender().tell(EventReplyWatcherActor.Shed.INSTANCE, ActorRef.noSender());
+            }
+        } else if (overflow.getSender() != null && !overflow.getSender().equals(getContext().system().deadLetters())) {
+            overflow.getSender().tell(new Status.Failure(new EndpointOverloadedException(overflow.getReceiver(), retryAfterMillis)), ActorRef.noSender());
+        } else if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Drop message rejected by {} which has no one to reply to: {}", overflow.getReceiver(), message);
+        }
+    }
+
+    private void replyOverloaded(Event event) {
+        EventBuilder eventBuilder = eventBuilderFactory.create()
+                .setEventType(ENDPOINT_OVERLOADED_REPLY)
+                .setPayload(new EndpointOverloaded(event.getEventType(), retryAfterMillis));
+        if (event.getCustom() != null) {
+            if (event.getCustom().containsKey(Event.REQUESTER_ID_CUSTOM_HEADER)) {
+                eventBuilder.copyCustomHeader(event, Event.REQUESTER_ID_CUSTOM_HEADER);
+            }
+            if (event.getCustom().containsKey(Event.ORGANISATION_ID_CUSTOM_HEADER)) {
+                eventBuilder.copyCustomHeader(event, Event.ORGANISATION_ID_CUSTOM_HEADER);
+            }
+        }
+        eventBus.send(eventBuilder.build());
+    }
+
+    /**
+     * Payload of {@link #ENDPOINT_OVERLOADED_REPLY} events.
+     */
+    public static class EndpointOverloaded {
+
+        private final String rejectedEventType;
+
+        private final long retryAfterMillis;
+
+        public EndpointOverloaded(String rejectedEventType, long retryAfterMillis) {
+            this.rejectedEventType = rejectedEventType;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public String getRejectedEventType() {
+            return rejectedEventType;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    public static class EndpointOverloadedException extends RuntimeException {
+
+        private final long retryAfterMillis;
+
+        public EndpointOverloadedException(ActorRef endpoint, long retryAfterMillis) {
+            super("Endpoint " + endpoint + " is overloaded, retry after " + retryAfterMillis + " ms.");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+}
@@ -0,0 +1,196 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Routing registry of the {@link EndpointActor}, built once when the endpoint starts.
+ * <p>
+ * Messages are routed by their class with a single hash lookup instead of walking a chain of <code>isInstance</code>
+ * matchers. A subclass of a routed class is resolved once by walking its super classes, then cached.
+ * Events are routed by their type to a target and a {@link EventMessageFactory} which builds the message to dispatch.
+ * </p>
+ */
+public class EndpointRoutingTable {
+
+    private static final Supplier<ActorRef> NO_ROUTE = () -> null;
+
+    private final Map<Class<?>, Supplier<ActorRef>> messageRoutes;
+
+    private final Map<Class<?>, Supplier<ActorRef>> resolvedMessageRoutes;
+
+    private final Map<String, EventRoute> eventRoutes;
+
+    private EndpointRoutingTable(Map<Class<?>, Supplier<ActorRef>> messageRoutes, Map<String, EventRoute> eventRoutes) {
+        this.messageRoutes = Collections.unmodifiableMap(new HashMap<>(messageRoutes));
+        this.resolvedMessageRoutes = new ConcurrentHashMap<>(this.messageRoutes);
+        this.eventRoutes = Collections.unmodifiableMap(new HashMap<>(eventRoutes));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Lookup the target of a message.
+     * @param msg The message to route.
+     * @return <code>true</code> if the message class, or one of its super classes, is routed.
+     */
+    public boolean routes(Object msg) {
+        return msg != null && resolve(msg.getClass()) != NO_ROUTE;
+    }
+
+    /**
+     * Resolve the target of a message.
+     * @param msg The message to route.
+     * @return The target actor, or <code>null</code> if the message is not routed.
+     */
+    public ActorRef targetOf(Object msg) {
+        requireNonNull(msg, "msg must be defined.");
+        return resolve(msg.getClass()).get();
+    }
+
+    /**
+     * Lookup the route of an event type.
+     * @param eventType The type of the event.
+     * @return The route, or <code>null</code> if this event type is not handled.
+     */
+    public EventRoute eventRoute(String eventType) {
+        return eventType == null ? null : eventRoutes.get(eventType);
+    }
+
+    private Supplier<ActorRef> resolve(Class<?> msgClass) {
+        Supplier<ActorRef> target = resolvedMessageRoutes.get(msgClass);
+        if (target == null) {
+            target = NO_ROUTE;
+            Class<?> current = msgClass.getSuperclass();
+            while (current != null && target == NO_ROUTE) {
+                target = messageRoutes.getOrDefault(current, NO_ROUTE);
+                current = current.getSuperclass();
+            }
+            resolvedMessageRoutes.put(msgClass, target);
+        }
+        return target;
+    }
+
+    @FunctionalInterface
+    public interface EventMessageFactory {
+
+        EventBusOriginMessage create(Event event, User requester);
+
+    }
+
+    public static class EventRoute {
+
+        private final ActorRef target;
+
+        private final EventMessageFactory messageFactory;
+
+        private final boolean replyExpected;
+
+        EventRoute(ActorRef target, EventMessageFactory messageFactory, boolean replyExpected) {
+            this.target = target;
+            this.messageFactory = messageFactory;
+            this.replyExpected = replyExpected;
+        }
+
+        public ActorRef getTarget() {
+            return target;
+        }
+
+        /**
+         * @return <code>false</code> if events of this route are never answered with a reply event.
+         */
+        public boolean isReplyExpected() {
+            return replyExpected;
+        }
+
+        public EventBusOriginMessage createMessage(Event event, User requester) {
+            return messageFactory.create(event, requester);
+        }
+    }
+
+    public static class Builder {
+
+        private final Map<Class<?>, Supplier<ActorRef>> messageRoutes = new HashMap<>();
+
+        private final Map<String, EventRoute> eventRoutes = new HashMap<>();
+
+        private Builder() {
+            // Use EndpointRoutingTable.builder().
+        }
+
+        public Builder route(Class<?> msgClass, ActorRef target) {
+            requireNonNull(target, "target must be defined.");
+            return route(msgClass, () -> target);
+        }
+
+        /**
+         * Route a message class to a target resolved for each message, e.g. a worker created per message.
+         */
+        public Builder route(Class<?> msgClass, Supplier<ActorRef> target) {
+            requireNonNull(msgClass, "msgClass must be defined.");
+            requireNonNull(target, "target must be defined.");
+            if (messageRoutes.putIfAbsent(msgClass, target) != null) {
+                throw new IllegalArgumentException("A route is already defined for message " + msgClass.getName() + ".");
+            }
+            return this;
+        }
+
+        public Builder routeEvent(String eventType, ActorRef target, EventMessageFactory messageFactory) {
+            return routeEvent(eventType, target, messageFactory, true);
+        }
+
+        /**
+         * Route a fire and forget event type, which handler answers without a reply event.
+         */
+        public Builder routeEventWithoutReply(String eventType, ActorRef target, EventMessageFactory messageFactory) {
+            return routeEvent(eventType, target, messageFactory, false);
+        }
+
+        private Builder routeEvent(String eventType, ActorRef target, EventMessageFactory messageFactory, boolean replyExpected) {
+            if (isBlank(eventType)) {
+                throw new IllegalArgumentException("eventType must be defined.");
+            }
+            requireNonNull(target, "target must be defined.");
+            requireNonNull(messageFactory, "messageFactory must be defined.");
+            if (eventRoutes.putIfAbsent(eventType, new EventRoute(target, messageFactory, replyExpected)) != null) {
+                throw new IllegalArgumentException("A route is already defined for event type " + eventType + ".");
+            }
+            return this;
+        }
+
+        public EndpointRoutingTable build() {
+            return new EndpointRoutingTable(messageRoutes, eventRoutes);
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.Props;
+import akka.routing.ConsistentHashingPool;
+import akka.routing.ConsistentHashingRouter;
+import com.google.inject.Injector;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.payload.*;
+import io.kodokojo.commons.model.*;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityActor;
+import io.kodokojo.database.service.actor.project.BrickStateEventPersistenceActor;
+import io.kodokojo.database.service.metrics.EventMetrics;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spread endpoint routing over several {@link EndpointActor} shards with a consistent hash router.
+ * <p>
+ * Messages are hashed by organisation, or by project configuration for brick events, so messages of a same
+ * organisation keep their order while different organisations are routed in parallel. Each shard owns its own
+ * sub-endpoints. Messages without organisation fall back to the requester, then to the identity of their original
+ * event, so a reply always reaches the shard which received the request.
+ * </p>
+ */
+public final class EndpointShards {
+
+    public static final ConsistentHashingRouter.ConsistentHashMapper HASH_MAPPER = EndpointShards::shardKey;
+
+    private static final String PROJECT_CONFIGURATION_KEY = "projectConfiguration:";
+
+    private static final String ORGANISATION_KEY = "organisation:";
+
+    private static final String REQUESTER_KEY = "requester:";
+
+    private static final String IDENTITY_KEY = "identity:";
+
+    private EndpointShards() {
+        // Utility class.
+    }
+
+    /**
+     * Props of the endpoint, a single {@link EndpointActor} when <code>shards</code> is 1, else a consistent hash
+     * router of <code>shards</code> endpoint actors which share their event metrics.
+     * @param injector Injector given to each EndpointActor.
+     * @param shards Number of endpoint actors.
+     * @return Props to create the endpoint at {@link EndpointActor#ACTOR_PATH}.
+     */
+    public static Props PROPS(Injector injector, int shards) {
+        requireNonNull(injector, "injector must be defined.");
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be greater than 0.");
+        }
+        if (shards == 1) {
+            return EndpointActor.PROPS(injector);
+        }
+        EventMetrics eventMetrics = new EventMetrics(injector.getInstance(MetricsRegistry.class), EndpointActor.MAX_EVENTS_IN_FLIGHT);
+        return PROPS(EndpointActor.PROPS(injector, eventMetrics), shards);
+    }
+
+    public static Props PROPS(Props shardProps, int shards) {
+        requireNonNull(shardProps, "shardProps must be defined.");
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be greater than 0.");
+        }
+        return new ConsistentHashingPool(shards)
+                .withHashMapper(HASH_MAPPER)
+                .withDispatcher(ActorDispatchers.ENDPOINT)
+                .props(shardProps);
+    }
+
+    static String shardKey(Object msg) {
+        if (msg instanceof ShardedEntityActor.OwnedEntityMsg) {
+            return shardKey(((ShardedEntityActor.OwnedEntityMsg) msg).getMessage());
+        }
+        if (msg instanceof BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg) {
+            //  Flushed brick states are persisted by the shard which receives the other events of their project.
+            return PROJECT_CONFIGURATION_KEY + ((BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg) msg).getProjectConfigurationIdentifier();
+        }
+        Event event = null;
+        if (msg instanceof Event) {
+            event = (Event) msg;
+        } else if (msg instanceof EventBusOriginMessage) {
+            event = ((EventBusOriginMessage) msg).originalEvent();
+        } else if (msg instanceof EventReplyableMessage) {
+            event = ((EventReplyableMessage) msg).originalEvent();
+        }
+        if (event == null) {
+            return IDENTITY_KEY + System.identityHashCode(msg);
+        }
+        return eventKey(event);
+    }
+
+    private static String eventKey(Event event) {
+        String projectConfigurationId = null;
+        if (Event.BRICK_STATE_UPDATE.equals(event.getEventType())) {
+            BrickStateEvent brickStateEvent = event.getPayload(BrickStateEvent.class);
+            projectConfigurationId = brickStateEvent == null ? null : brickStateEvent.getProjectConfigurationIdentifier();
+        } else if (Event.BRICK_PROPERTY_UPDATE_REQUEST.equals(event.getEventType())) {
+            BrickConfigurerData brickConfigurerData = event.getPayload(BrickConfigurerData.class);
+            projectConfigurationId = brickConfigurerData == null ? null : brickConfigurerData.getProjectConfigurationIdentifier();
+        }
+        if (projectConfigurationId != null) {
+            return PROJECT_CONFIGURATION_KEY + projectConfigurationId;
+        }
+        Map<String, ?> custom = event.getCustom();
+        if (custom != null) {
+            Object organisationId = custom.get(Event.ORGANISATION_ID_CUSTOM_HEADER);
+            if (organisationId != null) {
+                return ORGANISATION_KEY + organisationId;
+            }
+            Object requesterId = custom.get(Event.REQUESTER_ID_CUSTOM_HEADER);
+            if (requesterId != null) {
+                return REQUESTER_KEY + requesterId;
+            }
+        }
+        return IDENTITY_KEY + System.identityHashCode(event);
+    }
+
+}
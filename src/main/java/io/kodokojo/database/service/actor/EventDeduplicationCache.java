@@ -0,0 +1,246 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Bounded and time-windowed record of the events received by the endpoint, used to absorb redeliveries of the bus.
+ * <p>
+ * An event is identified by the value of a configurable custom header, or by a digest of the whole event when the
+ * header is not set. A redelivered event is either dropped, when the first delivery is still in progress, or
+ * answered with the reply of the first delivery. Entries expire after the window and the least recently used ones are
+ * evicted when the cache is full. A max size of 0 disable the deduplication.
+ * </p>
+ * <p>
+ * An event whose request ends without a reply event, failed, shed by a full mailbox or never answered, is released
+ * by its {@link EventReplyWatcherActor} so its redeliveries are handled again.
+ * </p>
+ */
+public class EventDeduplicationCache {
+
+    public static final String HIT_COUNTER = "event_deduplication_hit_total";
+
+    public static final String MISS_COUNTER = "event_deduplication_miss_total";
+
+    public static final String EVICTION_COUNTER = "event_deduplication_eviction_total";
+
+    public static final String SIZE_GAUGE = "event_deduplication_size";
+
+    public static final String STATE_LABEL = "state";
+
+    public static final String IN_PROGRESS = "in_progress";
+
+    public static final String REPLAYED = "replayed";
+
+    private final int maxSize;
+
+    private final long windowNanos;
+
+    private final String header;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries;
+
+    private final LongAdder inProgressHits;
+
+    private final LongAdder replayedHits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    public EventDeduplicationCache(int maxSize, long window, TimeUnit windowUnit, String header, MetricsRegistry metricsRegistry) {
+        this(maxSize, window, windowUnit, header, metricsRegistry, System::nanoTime);
+    }
+
+    EventDeduplicationCache(int maxSize, long window, TimeUnit windowUnit, String header, MetricsRegistry metricsRegistry, LongSupplier clock) {
+        requireNonNull(windowUnit, "windowUnit must be defined.");
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must be positive.");
+        }
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be greater than 0.");
+        }
+        this.maxSize = maxSize;
+        this.windowNanos = windowUnit.toNanos(window);
+        this.header = isBlank(header) ? null : header.trim();
+        this.clock = clock;
+        this.inProgressHits = metricsRegistry.counter(HIT_COUNTER, STATE_LABEL, IN_PROGRESS);
+        this.replayedHits = metricsRegistry.counter(HIT_COUNTER, STATE_LABEL, REPLAYED);
+        this.misses = metricsRegistry.counter(MISS_COUNTER);
+        this.evictions = metricsRegistry.counter(EVICTION_COUNTER);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean remove = size() > EventDeduplicationCache.this.maxSize;
+                if (remove) {
+                    evictions.increment();
+                }
+                return remove;
+            }
+        };
+        metricsRegistry.gauge(SIZE_GAUGE, this::size);
+    }
+
+    /**
+     * Record the delivery of an event.
+     * @param event The received event.
+     * @return <code>null</code> if the event had not been received within the window, else the entry of its first delivery.
+     */
+    public Entry admit(Event event) {
+        requireNonNull(event, "event must be defined.");
+        if (maxSize == 0) {
+            return null;
+        }
+        String key = keyOf(event);
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expireAt - now > 0) {
+                if (entry.reply == null) {
+                    inProgressHits.increment();
+                } else {
+                    replayedHits.increment();
+                }
+                return entry;
+            }
+            if (entry != null) {
+                evictions.increment();
+            }
+            entries.put(key, new Entry(now + windowNanos));
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Record the reply to an event, to be replayed on its redeliveries.
+     * @param event The event the reply answers.
+     * @param reply The reply.
+     * @return <code>false</code> if the given reply is a replay of the one already recorded, <code>true</code> otherwise.
+     */
+    public boolean replied(Event event, EventReplyableMessage reply) {
+        requireNonNull(event, "event must be defined.");
+        requireNonNull(reply, "reply must be defined.");
+        if (maxSize == 0) {
+            return true;
+        }
+        String key = keyOf(event);
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return true;
+            }
+            if (entry.reply == reply) {
+                return false;
+            }
+            entry.reply = reply;
+        }
+        return true;
+    }
+
+    /**
+     * Forget an event which could not be handled, so its redeliveries are handled again.
+     * @param event The event to forget.
+     * @return <code>true</code> if the event was recorded.
+     */
+    public boolean release(Event event) {
+        requireNonNull(event, "event must be defined.");
+        if (maxSize > 0) {
+            String key = keyOf(event);
+            synchronized (entries) {
+                return entries.remove(key) != null;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    public long windowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    String keyOf(Event event) {
+        if (header != null && event.getCustom() != null) {
+            Object value = event.getCustom().get(header);
+            if (value != null) {
+                return header + ":" + value;
+            }
+        }
+        return digest(Event.convertToJson(event));
+    }
+
+    private static String digest(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            StringBuilder res = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                res.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return res.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 must be supported by the JVM.", e);
+        }
+    }
+
+    public static class Entry {
+
+        private final long expireAt;
+
+        private volatile EventReplyableMessage reply;
+
+        Entry(long expireAt) {
+            this.expireAt = expireAt;
+        }
+
+        /**
+         * @return Reply to the first delivery, or <code>null</code> while it is in progress.
+         */
+        public EventReplyableMessage getReply() {
+            return reply;
+        }
+    }
+
+}
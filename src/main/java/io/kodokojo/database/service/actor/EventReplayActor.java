@@ -0,0 +1,72 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Answer a redelivered event with the reply of its first delivery, instead of running its saga again.
+ * See {@link EventDeduplicationCache}.
+ */
+public class EventReplayActor extends AbstractActor {
+
+    public static Props PROPS() {
+        return Props.create(EventReplayActor.class).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    public EventReplayActor() {
+        receive(ReceiveBuilder.match(EventReplayMsg.class, msg -> sender().tell(msg.reply, self()))
+                .matchAny(this::unhandled).build());
+    }
+
+    public static class EventReplayMsg implements EventBusOriginMessage {
+
+        private final Event request;
+
+        private final EventReplyableMessage reply;
+
+        public EventReplayMsg(Event request, EventReplyableMessage reply) {
+            requireNonNull(request, "request must be defined.");
+            requireNonNull(reply, "reply must be defined.");
+            this.request = request;
+            this.reply = reply;
+        }
+
+        @Override
+        public boolean initialSenderIsEventBus() {
+            return true;
+        }
+
+        @Override
+        public Event originalEvent() {
+            return request;
+        }
+
+        public EventReplyableMessage getReply() {
+            return reply;
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.actor.Status;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.metrics.EventMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stand between the endpoint and the handler of an event which expects a reply.
+ * <p>
+ * The request is sent to its target on behalf of the endpoint and the first reply is forwarded back. Any reply
+ * releases the event from the {@link EventMetrics}: a <code>Status.Failure</code> is counted as an error, as
+ * {@link EventMetrics#TIMED_OUT} when a saga gave up on it, any other reply is timed, whether it is a reply event or a
+ * plain acknowledgement. A request without reply within the {@link #SAGA} receive timeout is counted as timed out.
+ * </p>
+ * <p>
+ * When the event is deduplicated, see {@link EventDeduplicationCache}, and the request ends without a reply event,
+ * e.g. with a <code>Status.Failure</code> or a {@link Shed} from the {@link EndpointLoadSheddingActor}, the event is
+ * also released so its redeliveries are handled again instead of being dropped until the end of the window.
+ * </p>
+ */
+public class EventReplyWatcherActor extends AbstractActor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EventReplyWatcherActor.class);
+
+    public static final String SAGA = "event-reply";
+
+    private final EventMetrics eventMetrics;
+
+    private final EventDeduplicationCache deduplicationCache;
+
+    private final Event event;
+
+    private final ActorRef target;
+
+    private ActorRef requester;
+
+    /**
+     * @param deduplicationCache Cache which recorded the event, <code>null</code> if the event is not deduplicated.
+     */
+    public static Props PROPS(EventMetrics eventMetrics, EventDeduplicationCache deduplicationCache, Event event, ActorRef target) {
+        requireNonNull(eventMetrics, "eventMetrics must be defined.");
+        requireNonNull(event, "event must be defined.");
+        requireNonNull(target, "target must be defined.");
+        return Props.create(EventReplyWatcherActor.class, eventMetrics, deduplicationCache, event, target).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    public EventReplyWatcherActor(EventMetrics eventMetrics, EventDeduplicationCache deduplicationCache, Event event, ActorRef target) {
+        this.eventMetrics = eventMetrics;
+        this.deduplicationCache = deduplicationCache;
+        this.event = event;
+        this.target = target;
+        receive(ReceiveBuilder.matchAny(this::onRequest).build());
+    }
+
+    private void onRequest(Object msg) {
+        requester = sender();
+        target.tell(msg, self());
+        getContext().setReceiveTimeout(receiveTimeout());
+        getContext().become(ReceiveBuilder
+                .match(Shed.class, shed -> {
+                    //  The shedding actor has already answered the bus and released the event.
+                    eventMetrics.failed(event, EventMetrics.SHED);
+                    getContext().stop(self());
+                })
+                .match(ReceiveTimeout.class, timeout -> {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("No reply received for event of type '{}' within {}.", event.getEventType(), receiveTimeout());
+                    }
+                    eventMetrics.failed(event, EventMetrics.TIMED_OUT);
+                    getContext().stop(self());
+                })
+                .match(Status.Failure.class, this::onFailure)
+                .matchAny(this::onReply)
+                .build());
+    }
+
+    /**
+     * Past the deduplication window the event is no more recorded, a late reply has no one left to release.
+     */
+    private FiniteDuration receiveTimeout() {
+        FiniteDuration timeout = SagaTimeout.receiveTimeout(getContext().system(), SAGA);
+        if (deduplicationCache != null) {
+            FiniteDuration window = Duration.create(deduplicationCache.windowMillis(), TimeUnit.MILLISECONDS);
+            return window.gt(timeout) ? window : timeout;
+        }
+        return timeout;
+    }
+
+    private void onFailure(Status.Failure failure) {
+        eventMetrics.failed(event, failure.cause() instanceof TimeoutException ? EventMetrics.TIMED_OUT : EventMetrics.REPLY_FAILED);
+        if (deduplicationCache != null) {
+            deduplicationCache.release(event);
+        }
+        requester.forward(failure, getContext());
+        getContext().stop(self());
+    }
+
+    private void onReply(Object reply) {
+        eventMetrics.replied(event);
+        if (deduplicationCache != null && !(reply instanceof EventReplyableMessage)) {
+            deduplicationCache.release(event);
+        }
+        requester.forward(reply, getContext());
+        getContext().stop(self());
+    }
+
+    /**
+     * Sent by the {@link EndpointLoadSheddingActor} when the request has been rejected by a full mailbox.
+     */
+    public static final class Shed {
+
+        public static final Shed INSTANCE = new Shed();
+
+        private Shed() {
+            //  Use Shed.INSTANCE.
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.dispatch.DispatcherPrerequisites;
+import akka.dispatch.ExecutorServiceConfigurator;
+import akka.dispatch.ExecutorServiceFactory;
+import com.typesafe.config.Config;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Akka executor of a fixed size thread pool which publishes its saturation in the {@link MetricsRegistry}.
+ * <p>
+ * Used from <code>application.conf</code> with <code>executor = "io.kodokojo.database.service.actor.InstrumentedThreadPoolConfigurator"</code>
+ * and the pool size defined by <code>instrumented-thread-pool.pool-size</code>. Akka creates executors by reflection,
+ * so they are published once a registry is bound with {@link #bindMetricsRegistry(MetricsRegistry)}.
+ * </p>
+ */
+public class InstrumentedThreadPoolConfigurator extends ExecutorServiceConfigurator {
+
+    public static final String ACTIVE_THREADS_GAUGE = "kodokojo_dispatcher_active_threads";
+
+    public static final String POOL_SIZE_GAUGE = "kodokojo_dispatcher_pool_size";
+
+    public static final String QUEUE_SIZE_GAUGE = "kodokojo_dispatcher_queue_size";
+
+    public static final String SATURATION_GAUGE = "kodokojo_dispatcher_saturation";
+
+    public static final String DISPATCHER_LABEL = "dispatcher";
+
+    private static final Map<String, ThreadPoolExecutor> EXECUTORS = new ConcurrentHashMap<>();
+
+    private static volatile MetricsRegistry metricsRegistry;
+
+    private final int poolSize;
+
+    public InstrumentedThreadPoolConfigurator(Config config, DispatcherPrerequisites prerequisites) {
+        super(config, prerequisites);
+        poolSize = config.getInt("instrumented-thread-pool.pool-size");
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("instrumented-thread-pool.pool-size must be greater than 0.");
+        }
+    }
+
+    @Override
+    public ExecutorServiceFactory createExecutorServiceFactory(String id, ThreadFactory threadFactory) {
+        return () -> {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            register(id, executor);
+            return executor;
+        };
+    }
+
+    /**
+     * Publish saturation gauges of the executors already created and of the ones to come.
+     * @param registry The registry which receives the gauges.
+     */
+    public static synchronized void bindMetricsRegistry(MetricsRegistry registry) {
+        metricsRegistry = registry;
+        EXECUTORS.forEach((id, executor) -> publish(registry, id, executor));
+    }
+
+    private static synchronized void register(String id, ThreadPoolExecutor executor) {
+        EXECUTORS.put(id, executor);
+        if (metricsRegistry != null) {
+            publish(metricsRegistry, id, executor);
+        }
+    }
+
+    private static void publish(MetricsRegistry registry, String id, ThreadPoolExecutor executor) {
+        registry.gauge(ACTIVE_THREADS_GAUGE, executor::getActiveCount, DISPATCHER_LABEL, id);
+        registry.gauge(POOL_SIZE_GAUGE, executor::getMaximumPoolSize, DISPATCHER_LABEL, id);
+        registry.gauge(QUEUE_SIZE_GAUGE, () -> executor.getQueue().size(), DISPATCHER_LABEL, id);
+        registry.gauge(SATURATION_GAUGE, () -> (double) executor.getActiveCount() / executor.getMaximumPoolSize(), DISPATCHER_LABEL, id);
+    }
+
+}
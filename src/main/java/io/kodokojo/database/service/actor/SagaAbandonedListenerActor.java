@@ -0,0 +1,72 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Count saga actors stopped by their {@link SagaTimeout}, per saga.
+ */
+public class SagaAbandonedListenerActor extends AbstractActor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SagaAbandonedListenerActor.class);
+
+    public static final String NAME = "sagaAbandonedListener";
+
+    public static final String ABANDONED_COUNTER = "kodokojo_saga_abandoned_total";
+
+    public static final String SAGA_LABEL = "saga";
+
+    private final MetricsRegistry metricsRegistry;
+
+    public static Props PROPS(MetricsRegistry metricsRegistry) {
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        return Props.create(SagaAbandonedListenerActor.class, metricsRegistry).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    public SagaAbandonedListenerActor(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        receive(ReceiveBuilder.match(SagaTimeout.SagaAbandoned.class, this::onAbandoned)
+                .matchAny(this::unhandled).build());
+    }
+
+    @Override
+    public void preStart() throws Exception {
+        super.preStart();
+        getContext().system().eventStream().subscribe(self(), SagaTimeout.SagaAbandoned.class);
+    }
+
+    @Override
+    public void postStop() throws Exception {
+        getContext().system().eventStream().unsubscribe(self());
+        super.postStop();
+    }
+
+    private void onAbandoned(SagaTimeout.SagaAbandoned abandoned) {
+        LOGGER.warn("Saga {} abandoned by {} after {} without message.", abandoned.getSaga(), abandoned.getActorPath(), abandoned.getTimeout());
+        metricsRegistry.counter(ABANDONED_COUNTER, SAGA_LABEL, abandoned.getSaga()).increment();
+    }
+
+}
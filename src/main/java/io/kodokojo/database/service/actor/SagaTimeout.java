@@ -0,0 +1,130 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorContext;
+import akka.actor.ActorSystem;
+import com.typesafe.config.Config;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Receive timeout of saga actors, which gather several replies before answering their request.
+ * <p>
+ * A saga arms its timeout once its request is received. When no message reaches it during this delay it fails the
+ * request, stops and publishes a {@link SagaAbandoned} on the event stream, so a lost reply can not keep it and its
+ * buffered state alive.
+ * </p>
+ * <p>
+ * The delay is read from <code>kodokojo.saga.&lt;saga&gt;.receive-timeout</code>, then from
+ * <code>kodokojo.saga.receive-timeout</code>, in the configuration of the actor system.
+ * </p>
+ */
+public final class SagaTimeout {
+
+    public static final String CONFIG_PATH = "kodokojo.saga";
+
+    public static final String RECEIVE_TIMEOUT = "receive-timeout";
+
+    public static final FiniteDuration DEFAULT_RECEIVE_TIMEOUT = Duration.create(30, TimeUnit.SECONDS);
+
+    private SagaTimeout() {
+        //  Utility class.
+    }
+
+    public static FiniteDuration receiveTimeout(ActorSystem actorSystem, String saga) {
+        requireNonNull(actorSystem, "actorSystem must be defined.");
+        if (isBlank(saga)) {
+            throw new IllegalArgumentException("saga must be defined.");
+        }
+        Config config = actorSystem.settings().config();
+        String sagaPath = CONFIG_PATH + "." + saga + "." + RECEIVE_TIMEOUT;
+        String defaultPath = CONFIG_PATH + "." + RECEIVE_TIMEOUT;
+        if (config.hasPath(sagaPath)) {
+            return Duration.create(config.getDuration(sagaPath, TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        } else if (config.hasPath(defaultPath)) {
+            return Duration.create(config.getDuration(defaultPath, TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        }
+        return DEFAULT_RECEIVE_TIMEOUT;
+    }
+
+    /**
+     * Arm the receive timeout of the saga running in the given context.
+     * @return The armed timeout.
+     */
+    public static FiniteDuration arm(ActorContext context, String saga) {
+        requireNonNull(context, "context must be defined.");
+        FiniteDuration timeout = receiveTimeout(context.system(), saga);
+        context.setReceiveTimeout(timeout);
+        return timeout;
+    }
+
+    /**
+     * Publish the abandon of the saga running in the given context.
+     * @return The cause to reply to the requester of the saga.
+     */
+    public static TimeoutException abandon(ActorContext context, String saga) {
+        requireNonNull(context, "context must be defined.");
+        FiniteDuration timeout = receiveTimeout(context.system(), saga);
+        context.system().eventStream().publish(new SagaAbandoned(saga, context.self().path().toString(), timeout));
+        return new TimeoutException("Saga " + saga + " received no message during " + timeout + ".");
+    }
+
+    public static class SagaAbandoned {
+
+        private final String saga;
+
+        private final String actorPath;
+
+        private final FiniteDuration timeout;
+
+        public SagaAbandoned(String saga, String actorPath, FiniteDuration timeout) {
+            this.saga = saga;
+            this.actorPath = actorPath;
+            this.timeout = timeout;
+        }
+
+        public String getSaga() {
+            return saga;
+        }
+
+        public String getActorPath() {
+            return actorPath;
+        }
+
+        public FiniteDuration getTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public String toString() {
+            return "SagaAbandoned{" +
+                    "saga='" + saga + '\'' +
+                    ", actorPath='" + actorPath + '\'' +
+                    ", timeout=" + timeout +
+                    '}';
+        }
+    }
+
+}
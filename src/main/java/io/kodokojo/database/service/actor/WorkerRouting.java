@@ -0,0 +1,113 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorContext;
+import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
+import akka.actor.Props;
+import akka.routing.SmallestMailboxPool;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Define how an endpoint actor provides stateless worker actors.
+ * <ul>
+ *     <li>{@link Mode#PER_MESSAGE}: a new worker is created for each message, then stopped once the message is handled.</li>
+ *     <li>{@link Mode#POOLED}: workers are long-lived routees of a sized router pool created once by the endpoint.</li>
+ * </ul>
+ * Workers served this way must not stop themselves.
+ */
+public class WorkerRouting {
+
+    public enum Mode {
+        PER_MESSAGE,
+        POOLED
+    }
+
+    public static final String POOLED_MODE = "pooled";
+
+    private final Mode mode;
+
+    private final int poolSize;
+
+    public WorkerRouting(Mode mode, int poolSize) {
+        requireNonNull(mode, "mode must be defined.");
+        if (mode == Mode.POOLED && poolSize <= 0) {
+            throw new IllegalArgumentException("poolSize must be greater than 0.");
+        }
+        this.mode = mode;
+        this.poolSize = poolSize;
+    }
+
+    public static WorkerRouting perMessage() {
+        return new WorkerRouting(Mode.PER_MESSAGE, 0);
+    }
+
+    public static WorkerRouting fromConfig(String mode, int poolSize) {
+        if (!isBlank(mode) && POOLED_MODE.equalsIgnoreCase(mode.trim())) {
+            return new WorkerRouting(Mode.POOLED, poolSize);
+        }
+        return perMessage();
+    }
+
+    /**
+     * Create a worker provider for the given worker Props as child of the given context.
+     * @param context The endpoint actor context which own the workers.
+     * @param props Props of the stateless worker.
+     * @param name Name of the router actor when running in pooled mode.
+     * @return A Worker which forward messages to a worker actor.
+     */
+    public Worker create(ActorContext context, Props props, String name) {
+        requireNonNull(context, "context must be defined.");
+        requireNonNull(props, "props must be defined.");
+        if (mode == Mode.POOLED) {
+            ActorRef router = context.actorOf(new SmallestMailboxPool(poolSize).props(props), name);
+            return (msg, ctx) -> router.forward(msg, ctx);
+        }
+        return (msg, ctx) -> {
+            ActorRef worker = ctx.actorOf(props);
+            worker.forward(msg, ctx);
+            worker.tell(PoisonPill.getInstance(), ActorRef.noSender());
+        };
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    @FunctionalInterface
+    public interface Worker {
+
+        void forward(Object msg, ActorContext context);
+
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerRouting{" +
+                "mode=" + mode +
+                ", poolSize=" + poolSize +
+                '}';
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.cluster;
+
+import akka.actor.ActorRef;
+
+/**
+ * Decide if a message must be handled by the owner of its entity rather than by the local endpoint.
+ */
+@FunctionalInterface
+public interface EntityRouting {
+
+    /**
+     * @param msg Message received by the endpoint.
+     * @param sender Sender to which the handler of the message replies.
+     * @return <code>true</code> if the message has been sent to the owner of its entity.
+     */
+    boolean route(Object msg, ActorRef sender);
+
+    /**
+     * @return Routing of a single node deployment, every message is handled locally.
+     */
+    static EntityRouting local() {
+        return (msg, sender) -> false;
+    }
+
+}
@@ -0,0 +1,124 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.cluster;
+
+import akka.actor.AbstractActorWithStash;
+import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
+import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.cluster.sharding.ShardRegion;
+import akka.event.LoggingAdapter;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.EndpointActor;
+import scala.PartialFunction;
+import scala.concurrent.duration.FiniteDuration;
+import scala.runtime.BoxedUnit;
+
+import static akka.event.Logging.getLogger;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Sharded entity, live on the node which owns the entity and hands its messages to the local endpoint one at a time.
+ * <p>
+ * A message is wrapped in an {@link OwnedEntityMsg} so the endpoint dispatches it locally, the first reply is forwarded
+ * to the original sender. Messages received meanwhile are stashed. If no reply comes within the reply timeout, the
+ * entity moves on to the next message. An idle entity is passivated.
+ * </p>
+ */
+public class ShardedEntityActor extends AbstractActorWithStash {
+
+    private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
+
+    private final FiniteDuration replyTimeout;
+
+    private final FiniteDuration passivateAfter;
+
+    private final PartialFunction<Object, BoxedUnit> idle;
+
+    private final PartialFunction<Object, BoxedUnit> busy;
+
+    private ActorRef originalSender;
+
+    private Object pending;
+
+    public static Props PROPS(FiniteDuration replyTimeout, FiniteDuration passivateAfter) {
+        requireNonNull(replyTimeout, "replyTimeout must be defined.");
+        requireNonNull(passivateAfter, "passivateAfter must be defined.");
+        return Props.create(ShardedEntityActor.class, replyTimeout, passivateAfter).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    public ShardedEntityActor(FiniteDuration replyTimeout, FiniteDuration passivateAfter) {
+        this.replyTimeout = replyTimeout;
+        this.passivateAfter = passivateAfter;
+        idle = ReceiveBuilder.match(ShardedEntityRouting.EntityEnvelope.class, this::handle)
+                .match(ReceiveTimeout.class, timeout -> getContext().parent().tell(new ShardRegion.Passivate(PoisonPill.getInstance()), self()))
+                .matchAny(this::unhandled).build();
+        busy = ReceiveBuilder.match(ShardedEntityRouting.EntityEnvelope.class, envelope -> stash())
+                .match(ReceiveTimeout.class, timeout -> {
+                    LOGGER.warning("Entity {} got no reply within {} to message {}, handle next message.", self().path().name(), this.replyTimeout, pending);
+                    next();
+                })
+                .matchAny(reply -> {
+                    originalSender.tell(reply, self());
+                    next();
+                }).build();
+        receive(idle);
+    }
+
+    @Override
+    public void preStart() throws Exception {
+        super.preStart();
+        getContext().setReceiveTimeout(passivateAfter);
+    }
+
+    private void handle(ShardedEntityRouting.EntityEnvelope envelope) {
+        originalSender = sender();
+        pending = envelope.getMessage();
+        getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(new OwnedEntityMsg(pending), self());
+        getContext().setReceiveTimeout(replyTimeout);
+        getContext().become(busy);
+    }
+
+    private void next() {
+        originalSender = null;
+        pending = null;
+        getContext().setReceiveTimeout(passivateAfter);
+        getContext().become(idle);
+        unstashAll();
+    }
+
+    /**
+     * Message handed by an entity to the endpoint of its node, to be dispatched locally.
+     */
+    public static class OwnedEntityMsg {
+
+        private final Object message;
+
+        public OwnedEntityMsg(Object message) {
+            requireNonNull(message, "message must be defined.");
+            this.message = message;
+        }
+
+        public Object getMessage() {
+            return message;
+        }
+    }
+
+}
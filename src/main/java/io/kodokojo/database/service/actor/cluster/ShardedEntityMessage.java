@@ -0,0 +1,42 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.cluster;
+
+/**
+ * Message which writes a single entity. In clustered mode, such messages are handled one at a time by the node which
+ * owns the entity, see {@link ShardedEntityRouting}.
+ */
+public interface ShardedEntityMessage {
+
+    String PROJECT_CONFIGURATION = "projectConfiguration";
+
+    String PROJECT = "project";
+
+    String ORGANISATION = "organisation";
+
+    /**
+     * @return One of {@link #PROJECT_CONFIGURATION}, {@link #PROJECT} or {@link #ORGANISATION}.
+     */
+    String entityType();
+
+    /**
+     * @return Identifier of the written entity, or <code>null</code> when unknown, the message is then handled locally.
+     */
+    String entityId();
+
+}
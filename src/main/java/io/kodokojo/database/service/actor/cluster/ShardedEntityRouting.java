@@ -0,0 +1,157 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.cluster;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.cluster.sharding.ClusterSharding;
+import akka.cluster.sharding.ClusterShardingSettings;
+import akka.cluster.sharding.ShardRegion;
+import com.typesafe.config.Config;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Route {@link ShardedEntityMessage} to the cluster shard region of their entity type.
+ * <p>
+ * Project configurations, projects and organisations are sharded entities: each one is owned by a single node of the
+ * cluster, where a {@link ShardedEntityActor} hands its messages one at a time to the local endpoint. Writes of a same
+ * entity can no more race between nodes, whatever the node which received the event.
+ * </p>
+ * <p>
+ * Settings are read from <code>kodokojo.cluster</code> in the configuration of the actor system.
+ * </p>
+ */
+public class ShardedEntityRouting implements EntityRouting {
+
+    public static final String CONFIG_PATH = "kodokojo.cluster";
+
+    public static final List<String> ENTITY_TYPES = Collections.unmodifiableList(Arrays.asList(
+            ShardedEntityMessage.PROJECT_CONFIGURATION,
+            ShardedEntityMessage.PROJECT,
+            ShardedEntityMessage.ORGANISATION
+    ));
+
+    private final Map<String, ActorRef> regions;
+
+    private ShardedEntityRouting(Map<String, ActorRef> regions) {
+        this.regions = regions;
+    }
+
+    /**
+     * Start the shard regions of all entity types on the given actor system, which must be a cluster member.
+     * @param actorSystem Actor system configured with the cluster actor ref provider.
+     * @return A routing to the started regions.
+     */
+    public static ShardedEntityRouting start(ActorSystem actorSystem) {
+        requireNonNull(actorSystem, "actorSystem must be defined.");
+        Config config = actorSystem.settings().config().getConfig(CONFIG_PATH);
+        int shardCount = config.getInt("shard-count");
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shard-count must be greater than 0.");
+        }
+        FiniteDuration replyTimeout = Duration.create(config.getDuration("entity-reply-timeout", TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        FiniteDuration passivateAfter = Duration.create(config.getDuration("entity-passivate-after", TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+
+        ClusterSharding clusterSharding = ClusterSharding.get(actorSystem);
+        ClusterShardingSettings settings = ClusterShardingSettings.create(actorSystem);
+        ShardRegion.MessageExtractor messageExtractor = new ShardRegion.HashCodeMessageExtractor(shardCount) {
+            @Override
+            public String entityId(Object message) {
+                return message instanceof EntityEnvelope ? ((EntityEnvelope) message).entityId : null;
+            }
+        };
+        Map<String, ActorRef> regions = new HashMap<>();
+        for (String entityType : ENTITY_TYPES) {
+            regions.put(entityType, clusterSharding.start(entityType, ShardedEntityActor.PROPS(replyTimeout, passivateAfter), settings, messageExtractor));
+        }
+        return new ShardedEntityRouting(regions);
+    }
+
+    @Override
+    public boolean route(Object msg, ActorRef sender) {
+        if (!(msg instanceof ShardedEntityMessage)) {
+            return false;
+        }
+        ShardedEntityMessage entityMessage = (ShardedEntityMessage) msg;
+        ActorRef region = regions.get(entityMessage.entityType());
+        String entityId = entityMessage.entityId();
+        if (region == null || isBlank(entityId)) {
+            return false;
+        }
+        region.tell(new EntityEnvelope(entityMessage.entityType(), entityId, msg), sender);
+        return true;
+    }
+
+    /**
+     * Message sent to a shard region, carry the identifier of the entity which handles it.
+     */
+    public static class EntityEnvelope implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String entityType;
+
+        private final String entityId;
+
+        private final Object message;
+
+        public EntityEnvelope(String entityType, String entityId, Object message) {
+            requireNonNull(message, "message must be defined.");
+            if (isBlank(entityId)) {
+                throw new IllegalArgumentException("entityId must be defined.");
+            }
+            this.entityType = entityType;
+            this.entityId = entityId;
+            this.message = message;
+        }
+
+        public String getEntityType() {
+            return entityType;
+        }
+
+        public String getEntityId() {
+            return entityId;
+        }
+
+        public Object getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "EntityEnvelope{" +
+                    "entityType='" + entityType + '\'' +
+                    ", entityId='" + entityId + '\'' +
+                    ", message=" + message +
+                    '}';
+        }
+    }
+
+}
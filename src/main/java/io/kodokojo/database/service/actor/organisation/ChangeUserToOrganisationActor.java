@@ -22,6 +22,8 @@ import akka.actor.Props;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -32,16 +34,21 @@ public class ChangeUserToOrganisationActor extends AbstractActor {
 
     private final OrganisationRepository organisationRepository;
 
-    public static Props PROPS(OrganisationRepository organisationRepository) {
+    private final UserCache userCache;
+
+    public static Props PROPS(OrganisationRepository organisationRepository, UserCache userCache) {
         requireNonNull(organisationRepository, "organisationRepository must be defined.");
-        return Props.create(ChangeUserToOrganisationActor.class, organisationRepository);
+        requireNonNull(userCache, "userCache must be defined.");
+        return Props.create(ChangeUserToOrganisationActor.class, organisationRepository, userCache).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
-    public ChangeUserToOrganisationActor(OrganisationRepository organisationRepository) {
+    public ChangeUserToOrganisationActor(OrganisationRepository organisationRepository, UserCache userCache) {
         this.organisationRepository = organisationRepository;
+        this.userCache = userCache;
 
         receive(ReceiveBuilder
                 .match(OrganisationMessage.ChangeUserToOrganisationMsg.class, this::onAddUserToOrganisationMsg)
+                .match(OrganisationMessage.AddUsersToOrganisationMsg.class, this::onAddUsersToOrganisationMsg)
                 .matchAny(this::unhandled)
                 .build());
     }
@@ -66,9 +73,18 @@ public class ChangeUserToOrganisationActor extends AbstractActor {
                 }
                 break;
         }
+        //  Organisation membership is part of the User.
+        userCache.invalidate(msg.userId);
         sender().tell(Boolean.TRUE, self());
-        getContext().stop(self());
     }
 
+    private void onAddUsersToOrganisationMsg(OrganisationMessage.AddUsersToOrganisationMsg msg) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Add {} users to organisation {}", msg.userIds.size(), msg.organisationId);
+        }
+        msg.userIds.forEach(userId -> organisationRepository.addUserToOrganisation(userId, msg.organisationId));
+        msg.userIds.forEach(userCache::invalidate);
+        sender().tell(Boolean.TRUE, self());
+    }
 
 }
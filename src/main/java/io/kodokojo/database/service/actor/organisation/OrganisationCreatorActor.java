@@ -18,10 +18,12 @@
 package io.kodokojo.database.service.actor.organisation;
 
 import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.actor.Status;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
-import akka.pattern.Patterns;
 import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.event.payload.OrganisationCreationReply;
 import io.kodokojo.commons.model.Organisation;
@@ -30,11 +32,8 @@ import io.kodokojo.commons.service.actor.message.EventUserReplyMessage;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.OrganisationRepository;
 import io.kodokojo.database.service.actor.EndpointActor;
-import scala.concurrent.Await;
-import scala.concurrent.Future;
-import scala.concurrent.duration.Duration;
-
-import java.util.concurrent.TimeUnit;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.SagaTimeout;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -43,8 +42,16 @@ public class OrganisationCreatorActor extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
 
+    public static final String SAGA = "organisation-creator";
+
     private final OrganisationRepository organisationRepository;
 
+    private ActorRef originalSender;
+
+    private OrganisationCreateMsg originalMsg;
+
+    private OrganisationCreatedResultMsg resultMsg;
+
     public OrganisationCreatorActor(OrganisationRepository organisationRepository) {
         this.organisationRepository = organisationRepository;
         receive(ReceiveBuilder
@@ -55,10 +62,12 @@ public class OrganisationCreatorActor extends AbstractActor {
 
     public static Props PROPS(OrganisationRepository entityRepository) {
         requireNonNull(entityRepository, "organisationRepository must be defined.");
-        return Props.create(OrganisationCreatorActor.class, entityRepository);
+        return Props.create(OrganisationCreatorActor.class, entityRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private void onOrganisationCreateMsg(OrganisationCreateMsg msg) {
+        originalSender = sender();
+        originalMsg = msg;
         User requester = msg.getRequester();
         if (requester == null) {
             LOGGER.error("Trying to create organisation {} from unknown requester.", msg.organisation.getName());
@@ -68,31 +77,44 @@ public class OrganisationCreatorActor extends AbstractActor {
 
             String organisationId = organisationRepository.addOrganisation(msg.organisation);
             LOGGER.debug("Organisation {} added with id {}.", msg.organisation.getName(), organisationId);
-            OrganisationCreatedResultMsg resultMsg = new OrganisationCreatedResultMsg(requester, msg.originalEvent(), organisationId, false);
+            resultMsg = new OrganisationCreatedResultMsg(requester, msg.originalEvent(), organisationId, false);
             if (requester == null) {
                 LOGGER.warning("Organisation {} will not contain users.", msg.organisation.getName());
-                sender().tell(resultMsg, self());
+                originalSender.tell(resultMsg, self());
             } else {
                 OrganisationMessage.ChangeUserToOrganisationMsg changeUserToOrganisationMsg = new OrganisationMessage.ChangeUserToOrganisationMsg(requester, OrganisationMessage.TypeChange.ADD, msg.originalEvent(), requester.getIdentifier(), organisationId, true);
-                //getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(changeUserToOrganisationMsg, self());
-                Future<Object> future = Patterns.ask(getContext().actorSelection(EndpointActor.ACTOR_PATH), changeUserToOrganisationMsg, 1000);
-                try {
-                    Await.result(future, Duration.apply(10, TimeUnit.SECONDS));
-                    sender().tell(resultMsg, self());
-                } catch (Exception e) {
-                    LOGGER.error("Unable to add user {} to organisation {}.", requester.getUsername(), msg.organisation.getName());
-                }
+                getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(changeUserToOrganisationMsg, self());
+                //  Wait for the reply of ChangeUserToOrganisationActor without blocking the dispatcher thread.
+                SagaTimeout.arm(getContext(), SAGA);
+                getContext().become(ReceiveBuilder
+                        .match(Boolean.class, added -> onRequesterAdded())
+                        .match(Status.Failure.class, failure -> onRequesterNotAdded(failure.cause()))
+                        .match(ReceiveTimeout.class, timeout -> onRequesterNotAdded(SagaTimeout.abandon(getContext(), SAGA)))
+                        .matchAny(this::unhandled)
+                        .build());
+                return;
             }
         } else {
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Organisation '{}' already exist.", msg.organisation.getName());
             }
-            sender().tell(new OrganisationCreatedResultMsg(requester, msg.originalEvent(), organisation.getIdentifier(), true), self());
+            originalSender.tell(new OrganisationCreatedResultMsg(requester, msg.originalEvent(), organisation.getIdentifier(), true), self());
         }
 
         getContext().stop(self());
     }
 
+    private void onRequesterAdded() {
+        originalSender.tell(resultMsg, self());
+        getContext().stop(self());
+    }
+
+    private void onRequesterNotAdded(Throwable cause) {
+        LOGGER.error("Unable to add user {} to organisation {}: {}", originalMsg.getRequester().getUsername(), originalMsg.organisation.getName(), cause.getMessage());
+        originalSender.tell(new Status.Failure(cause), self());
+        getContext().stop(self());
+    }
+
     public static class OrganisationCreateMsg extends EventUserRequestMessage {
 
         protected final Organisation organisation;
@@ -18,10 +18,16 @@
 package io.kodokojo.database.service.actor.organisation;
 
 import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
 import akka.actor.Props;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.BoundedEndpointMailbox;
+import io.kodokojo.database.service.actor.EndpointRoutingTable;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -30,18 +36,25 @@ public class OrganisationEndpointActor extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
 
-    public static Props PROPS(OrganisationRepository organisationRepository) {
+    public static Props PROPS(OrganisationRepository organisationRepository, UserCache userCache, WorkerRouting workerRouting) {
         requireNonNull(organisationRepository, "entityRepository must be defined.");
-        return Props.create(OrganisationEndpointActor.class, organisationRepository);
+        requireNonNull(userCache, "userCache must be defined.");
+        requireNonNull(workerRouting, "workerRouting must be defined.");
+        return Props.create(OrganisationEndpointActor.class, organisationRepository, userCache, workerRouting).withDispatcher(ActorDispatchers.ENDPOINT).withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
     }
 
     public static final String NAME = "organisationEndpointProps";
 
-    public OrganisationEndpointActor(OrganisationRepository organisationRepository) {
+    public OrganisationEndpointActor(OrganisationRepository organisationRepository, UserCache userCache, WorkerRouting workerRouting) {
+
+        WorkerRouting.Worker changeUserToOrganisation = workerRouting.create(getContext(), ChangeUserToOrganisationActor.PROPS(organisationRepository, userCache), "changeUserToOrganisation");
 
         receive(ReceiveBuilder.match(
                 OrganisationMessage.ChangeUserToOrganisationMsg.class,
-                msg -> getContext().actorOf(ChangeUserToOrganisationActor.PROPS(organisationRepository)).forward(msg, getContext())
+                msg -> changeUserToOrganisation.forward(msg, getContext())
+        ).match(
+                OrganisationMessage.AddUsersToOrganisationMsg.class,
+                msg -> changeUserToOrganisation.forward(msg, getContext())
         ).match(
                 OrganisationCreatorActor.OrganisationCreateMsg.class,
                 msg -> getContext().actorOf(OrganisationCreatorActor.PROPS(organisationRepository)).forward(msg, getContext())
@@ -49,5 +62,14 @@ public class OrganisationEndpointActor extends AbstractActor {
 
     }
 
+    /**
+     * Register messages handled by this endpoint in the routing table of the {@link io.kodokojo.database.service.actor.EndpointActor}.
+     */
+    public static EndpointRoutingTable.Builder registerRoutes(EndpointRoutingTable.Builder builder, ActorRef organisationEndpoint) {
+        return builder.route(OrganisationCreatorActor.OrganisationCreateMsg.class, organisationEndpoint)
+                .route(OrganisationMessage.ChangeUserToOrganisationMsg.class, organisationEndpoint)
+                .route(OrganisationMessage.AddUsersToOrganisationMsg.class, organisationEndpoint);
+    }
+
 
 }
@@ -21,6 +21,12 @@ import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.event.payload.OrganisationChangeUserRequest;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 import static org.apache.commons.lang.StringUtils.isBlank;
@@ -32,7 +38,7 @@ public interface OrganisationMessage {
         REMOVE
     }
 
-    class ChangeUserToOrganisationMsg extends EventUserRequestMessage {
+    class ChangeUserToOrganisationMsg extends EventUserRequestMessage implements ShardedEntityMessage {
 
         protected final TypeChange typeChange;
 
@@ -56,5 +62,57 @@ public interface OrganisationMessage {
             this.organisationId = organisationId;
             this.admin = admin;
         }
+
+        public String getOrganisationId() {
+            return organisationId;
+        }
+
+        @Override
+        public String entityType() {
+            return ORGANISATION;
+        }
+
+        @Override
+        public String entityId() {
+            return organisationId;
+        }
+    }
+
+    /**
+     * Add a set of users as members of an organisation with a single membership update.
+     */
+    class AddUsersToOrganisationMsg extends EventUserRequestMessage implements ShardedEntityMessage {
+
+        protected final List<String> userIds;
+
+        protected final String organisationId;
+
+        public AddUsersToOrganisationMsg(User requester, Event request, Collection<String> userIds, String organisationId) {
+            super(requester, request);
+            requireNonNull(userIds, "userIds must be defined.");
+            if (isBlank(organisationId)) {
+                throw new IllegalArgumentException("organisationId must be defined.");
+            }
+            this.userIds = Collections.unmodifiableList(new ArrayList<>(userIds));
+            this.organisationId = organisationId;
+        }
+
+        public List<String> getUserIds() {
+            return userIds;
+        }
+
+        public String getOrganisationId() {
+            return organisationId;
+        }
+
+        @Override
+        public String entityType() {
+            return ORGANISATION;
+        }
+
+        @Override
+        public String entityId() {
+            return organisationId;
+        }
     }
 }
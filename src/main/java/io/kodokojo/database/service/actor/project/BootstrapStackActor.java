@@ -24,6 +24,7 @@ import io.kodokojo.commons.model.BootstrapStackData;
 import io.kodokojo.commons.model.StackType;
 import io.kodokojo.database.service.BootstrapConfigurationProvider;
 import io.kodokojo.database.service.ConfigurationStore;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 import javaslang.control.Try;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import scala.concurrent.duration.Duration;
@@ -46,7 +47,7 @@ public class BootstrapStackActor extends AbstractActor {
     public static Props PROPS(BootstrapConfigurationProvider bootstrapConfigurationProvider, ConfigurationStore configurationStore) {
         requireNonNull(bootstrapConfigurationProvider, "bootstrapConfigurationProvider must be defined.");
         requireNonNull(configurationStore, "configurationStoreSelector must be defined.");
-        return Props.create(BootstrapStackActor.class, bootstrapConfigurationProvider, configurationStore);
+        return Props.create(BootstrapStackActor.class, bootstrapConfigurationProvider, configurationStore).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public BootstrapStackActor(BootstrapConfigurationProvider bootstrapConfigurationProvider, ConfigurationStore configurationStore) {
@@ -22,10 +22,13 @@ import akka.actor.Props;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.event.Event;
-import io.kodokojo.commons.model.ProjectConfiguration;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatch;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatcher;
 
 import java.io.Serializable;
 import java.util.Map;
@@ -42,26 +45,26 @@ public class BrickPropertyToBrickConfigurationActor extends AbstractActor {
         if (projectRepository == null) {
             throw new IllegalArgumentException("projectRepository must be defined.");
         }
-        return Props.create(BrickPropertyToBrickConfigurationActor.class, projectRepository);
+        return Props.create(BrickPropertyToBrickConfigurationActor.class, projectRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public BrickPropertyToBrickConfigurationActor(ProjectRepository projectRepository) {
+        ProjectConfigurationPatcher projectConfigurationPatcher = ProjectConfigurationPatcher.of(projectRepository);
         receive(ReceiveBuilder
                 .match(BrickPropertyToBrickConfigurationMsg.class, msg -> {
-                    ProjectConfiguration projectConfiguration = projectRepository.getProjectConfigurationById(msg.projectConfigurationIdentifier);
-                    if (projectConfiguration != null) {
-                        projectConfiguration.getStackConfigurations().stream().filter(s -> s.getName().equals(msg.stackName)).findFirst()
-                                .ifPresent(s -> s.getBrickConfigurations().stream().filter(b -> b.getName().equals(msg.brickName)).findFirst()
-                                        .ifPresent(b -> b.getProperties().putAll(msg.properties)));
+                    ProjectConfigurationPatch patch = ProjectConfigurationPatch.builder(msg.projectConfigurationIdentifier)
+                            .setBrickProperties(msg.stackName, msg.brickName, msg.properties)
+                            .build();
+                    boolean applied = projectConfigurationPatcher.applyPatch(patch);
+                    if (!applied) {
+                        LOGGER.warning("Unable to found ProjectConfiguration {} to update properties of brick {}.", msg.projectConfigurationIdentifier, msg.brickName);
                     }
-                    projectRepository.updateProjectConfiguration(projectConfiguration);
-                    sender().tell(new BrickPropertyToBrickConfigurationResultMsg(true), self());
-                    getContext().stop(self());
+                    sender().tell(new BrickPropertyToBrickConfigurationResultMsg(applied), self());
                 })
                 .matchAny(this::unhandled).build());
     }
 
-    public static class BrickPropertyToBrickConfigurationMsg extends EventUserRequestMessage {
+    public static class BrickPropertyToBrickConfigurationMsg extends EventUserRequestMessage implements ShardedEntityMessage {
 
         private final String projectConfigurationIdentifier;
 
@@ -86,10 +89,29 @@ public class BrickPropertyToBrickConfigurationActor extends AbstractActor {
             this.projectConfigurationIdentifier = projectConfigurationIdentifier;
             this.properties = properties;
         }
+
+        public String getProjectConfigurationIdentifier() {
+            return projectConfigurationIdentifier;
+        }
+
+        @Override
+        public String entityType() {
+            return PROJECT_CONFIGURATION;
+        }
+
+        @Override
+        public String entityId() {
+            return projectConfigurationIdentifier;
+        }
     }
 
 
-    public static class BrickPropertyToBrickConfigurationResultMsg {
+    /**
+     * Reply of a {@link BrickPropertyToBrickConfigurationMsg}, it crosses the network when the project configuration is owned by another node.
+     */
+    public static class BrickPropertyToBrickConfigurationResultMsg implements Serializable {
+
+        private static final long serialVersionUID = 1L;
 
         private final boolean success;
 
@@ -0,0 +1,249 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.project;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.EndpointActor;
+import io.kodokojo.database.service.actor.SagaTimeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffer brick state events per project configuration and persist them with a single project update.
+ * <p>
+ * A buffer is flushed when its window elapsed or when it contains the maximum number of events, a window of 0 flush
+ * each event on its own. Only the latest state of each brick is kept within a window. Flushed batches are sent to the
+ * {@link EndpointActor} which routes them, in clustered mode, to the owner of their project configuration.
+ * </p>
+ * <p>
+ * A single batch per project is persisted at a time, a buffer due meanwhile waits for the result of the previous one,
+ * so batches of a same project are written in order. Requesters receive the result once their buffer is persisted, or
+ * <code>false</code> when no result is received within the receive timeout of the {@link #SAGA}.
+ * </p>
+ */
+public class BrickStateEventCoalescerActor extends AbstractActor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrickStateEventCoalescerActor.class);
+
+    public static final String SAGA = "brick-state-persistence";
+
+    public static Props PROPS(long windowMillis, int maxEvents) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("windowMillis must be positive.");
+        }
+        if (maxEvents <= 0) {
+            throw new IllegalArgumentException("maxEvents must be greater than 0.");
+        }
+        return Props.create(BrickStateEventCoalescerActor.class, windowMillis, maxEvents).withDispatcher(ActorDispatchers.ENDPOINT);
+    }
+
+    private final FiniteDuration window;
+
+    private final int maxEvents;
+
+    private final FiniteDuration flushTimeout;
+
+    private final Map<String, Buffer> buffers = new HashMap<>();
+
+    private final Map<String, PendingFlush> pendingFlushes = new HashMap<>();
+
+    private long nextGeneration = 0;
+
+    public BrickStateEventCoalescerActor(long windowMillis, int maxEvents) {
+        this.window = Duration.create(windowMillis, TimeUnit.MILLISECONDS);
+        //  Without window, each event is flushed as soon as received.
+        this.maxEvents = windowMillis == 0 ? 1 : maxEvents;
+        this.flushTimeout = SagaTimeout.receiveTimeout(getContext().system(), SAGA);
+        receive(ReceiveBuilder
+                .match(BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg.class, this::onBrickStateChange)
+                .match(FlushMsg.class, this::onFlush)
+                .match(BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg.class, this::onFlushed)
+                .match(FlushTimeoutMsg.class, this::onFlushTimeout)
+                .matchAny(this::unhandled)
+                .build());
+    }
+
+    private void onBrickStateChange(BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg msg) {
+        BrickStateEvent brickStateEvent = msg.originalEvent().getPayload(BrickStateEvent.class);
+        String projectConfigurationIdentifier = brickStateEvent.getProjectConfigurationIdentifier();
+        Buffer buffer = buffers.get(projectConfigurationIdentifier);
+        if (buffer == null) {
+            long generation = nextGeneration++;
+            Cancellable timer = maxEvents == 1 ? null : schedule(window, new FlushMsg(projectConfigurationIdentifier, generation));
+            buffer = new Buffer(generation, timer);
+            buffers.put(projectConfigurationIdentifier, buffer);
+        }
+        buffer.add(brickStateEvent, sender());
+        if (buffer.nbEvents >= maxEvents) {
+            buffer.markDue();
+            flushIfDue(projectConfigurationIdentifier);
+        }
+    }
+
+    private void onFlush(FlushMsg msg) {
+        Buffer buffer = buffers.get(msg.projectConfigurationIdentifier);
+        //  Ignore the window of a buffer already flushed because full.
+        if (buffer != null && buffer.generation == msg.generation) {
+            buffer.markDue();
+            flushIfDue(msg.projectConfigurationIdentifier);
+        }
+    }
+
+    private void flushIfDue(String projectConfigurationIdentifier) {
+        Buffer buffer = buffers.get(projectConfigurationIdentifier);
+        if (buffer == null || !buffer.due || pendingFlushes.containsKey(projectConfigurationIdentifier)) {
+            return;
+        }
+        buffers.remove(projectConfigurationIdentifier);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Persist {} brick states from {} events for project configuration {}.", buffer.latestStates.size(), buffer.nbEvents, projectConfigurationIdentifier);
+        }
+        long flushId = buffer.generation;
+        Cancellable timeout = schedule(flushTimeout, new FlushTimeoutMsg(projectConfigurationIdentifier, flushId));
+        pendingFlushes.put(projectConfigurationIdentifier, new PendingFlush(flushId, timeout, buffer.requesters));
+        BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg msg = new BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg(projectConfigurationIdentifier, new ArrayList<>(buffer.latestStates.values()), flushId);
+        getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(msg, self());
+    }
+
+    private void onFlushed(BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg msg) {
+        PendingFlush pendingFlush = pendingFlushes.get(msg.getProjectConfigurationIdentifier());
+        //  Ignore the result of a flush which already timed out.
+        if (pendingFlush != null && pendingFlush.flushId == msg.getFlushId()) {
+            pendingFlush.timeout.cancel();
+            complete(msg.getProjectConfigurationIdentifier(), msg.isSuccess());
+        }
+    }
+
+    private void onFlushTimeout(FlushTimeoutMsg msg) {
+        PendingFlush pendingFlush = pendingFlushes.get(msg.projectConfigurationIdentifier);
+        if (pendingFlush != null && pendingFlush.flushId == msg.flushId) {
+            LOGGER.error("No result received for brick states of project configuration {}.", msg.projectConfigurationIdentifier, SagaTimeout.abandon(getContext(), SAGA));
+            complete(msg.projectConfigurationIdentifier, false);
+        }
+    }
+
+    private void complete(String projectConfigurationIdentifier, boolean success) {
+        PendingFlush pendingFlush = pendingFlushes.remove(projectConfigurationIdentifier);
+        pendingFlush.requesters.forEach(requester -> requester.tell(success, self()));
+        flushIfDue(projectConfigurationIdentifier);
+    }
+
+    private Cancellable schedule(FiniteDuration delay, Object msg) {
+        return getContext().system().scheduler().scheduleOnce(delay, self(), msg, getContext().dispatcher(), self());
+    }
+
+    @Override
+    public void postStop() throws Exception {
+        buffers.values().stream().filter(buffer -> buffer.timer != null).forEach(buffer -> buffer.timer.cancel());
+        pendingFlushes.values().forEach(pendingFlush -> pendingFlush.timeout.cancel());
+        super.postStop();
+    }
+
+    private static class Buffer {
+
+        private final long generation;
+
+        private final Cancellable timer;
+
+        private final Map<String, BrickStateEvent> latestStates = new LinkedHashMap<>();
+
+        private final List<ActorRef> requesters = new ArrayList<>();
+
+        private int nbEvents = 0;
+
+        private boolean due = false;
+
+        Buffer(long generation, Cancellable timer) {
+            this.generation = generation;
+            this.timer = timer;
+        }
+
+        void add(BrickStateEvent brickStateEvent, ActorRef requester) {
+            String key = brickStateEvent.getStackName() + "/" + brickStateEvent.getBrickType() + "/" + brickStateEvent.getBrickName();
+            //  Remove first to keep states in their arrival order.
+            latestStates.remove(key);
+            latestStates.put(key, brickStateEvent);
+            requesters.add(requester);
+            nbEvents++;
+        }
+
+        void markDue() {
+            due = true;
+            if (timer != null) {
+                timer.cancel();
+            }
+        }
+    }
+
+    private static class PendingFlush {
+
+        private final long flushId;
+
+        private final Cancellable timeout;
+
+        private final List<ActorRef> requesters;
+
+        PendingFlush(long flushId, Cancellable timeout, List<ActorRef> requesters) {
+            this.flushId = flushId;
+            this.timeout = timeout;
+            this.requesters = requesters;
+        }
+    }
+
+    private static class FlushMsg {
+
+        private final String projectConfigurationIdentifier;
+
+        private final long generation;
+
+        FlushMsg(String projectConfigurationIdentifier, long generation) {
+            this.projectConfigurationIdentifier = projectConfigurationIdentifier;
+            this.generation = generation;
+        }
+    }
+
+    private static class FlushTimeoutMsg {
+
+        private final String projectConfigurationIdentifier;
+
+        private final long flushId;
+
+        FlushTimeoutMsg(String projectConfigurationIdentifier, long flushId) {
+            this.projectConfigurationIdentifier = projectConfigurationIdentifier;
+            this.flushId = flushId;
+        }
+    }
+
+}
@@ -18,103 +18,108 @@
 package io.kodokojo.database.service.actor.project;
 
 import akka.actor.AbstractActor;
-import akka.actor.ActorRef;
 import akka.actor.Props;
-import akka.dispatch.Futures;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.model.*;
-import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
-import io.kodokojo.database.service.actor.EndpointActor;
 import io.kodokojo.commons.service.actor.message.BrickStateEvent;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * Persist a batch of brick state events, flushed by the {@link BrickStateEventCoalescerActor}, with a single project
+ * update. The project is read, updated and written before the reply, so in clustered mode the whole update is done
+ * within the turn of the project configuration entity.
+ */
 public class BrickStateEventPersistenceActor extends AbstractActor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BrickStateEventPersistenceActor.class);
 
     public static Props PROPS(ProjectRepository projectRepository) {
         requireNonNull(projectRepository, "projectRepository must be defined.");
-        return Props.create(BrickStateEventPersistenceActor.class, projectRepository);
+        return Props.create(BrickStateEventPersistenceActor.class, projectRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private final ProjectRepository projectRepository;
 
-    private ActorRef originalSender;
-
     public BrickStateEventPersistenceActor(ProjectRepository projectRepository) {
         this.projectRepository = projectRepository;
         LOGGER.debug("Create a new BrickStateEventPersistenceActor.");
-        receive(ReceiveBuilder.match(BrickStateEventPersistenceMsg.class, this::onBrickStateChange)
-                .match(ProjectUpdaterMessages.ProjectUpdateResultMsg.class, msg -> onProjectUdapted())
-                .match(ProjectUpdaterMessages.ProjectUpdateNotAuthoriseMsg.class, msg -> onNotAuthorizedToUpdateProject())
+        receive(ReceiveBuilder.match(BrickStateEventsPersistenceMsg.class, this::onBrickStateChanges)
                 .matchAny(this::unhandled).build());
     }
 
-    private void onBrickStateChange(BrickStateEventPersistenceMsg msg) {
-        BrickStateEvent brickStateEvent = msg.originalEvent().getPayload(BrickStateEvent.class);
-        LOGGER.debug("Receive BrickStateEventPersistenceMsg with following payload : {}", msg.originalEvent().getPayloadAsJsonString() );
-        LOGGER.debug("Receive BrickStateEvent for project configuration identifier {}.", brickStateEvent.getProjectConfigurationIdentifier());
-        originalSender = sender();
-        Project project = projectRepository.getProjectByProjectConfigurationId(brickStateEvent.getProjectConfigurationIdentifier());
+    private void onBrickStateChanges(BrickStateEventsPersistenceMsg msg) {
+        LOGGER.debug("Receive {} BrickStateEvent for project configuration identifier {}.", msg.brickStateEvents.size(), msg.projectConfigurationIdentifier);
+        boolean persisted = persist(msg.projectConfigurationIdentifier, msg.brickStateEvents);
+        sender().tell(new BrickStateEventsPersistenceResultMsg(msg.projectConfigurationIdentifier, msg.flushId, persisted), self());
+        getContext().stop(self());
+    }
+
+    private boolean persist(String projectConfigurationIdentifier, Collection<BrickStateEvent> brickStateEvents) {
+        Project project = projectRepository.getProjectByProjectConfigurationId(projectConfigurationIdentifier);
         if (project == null) {
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Unable to find project configuration id '{}'.", brickStateEvent.getProjectConfigurationIdentifier());
-            }
-            originalSender.tell(Boolean.FALSE, self());
-            getContext().stop(self());
-        } else {
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Following project may be updated: {}", project);
+                LOGGER.debug("Unable to find project configuration id '{}'.", projectConfigurationIdentifier);
             }
+            return false;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Following project may be updated: {}", project);
+        }
+        try {
+            //  Written here, not through the ProjectUpdaterActor, so the next batch reads this write.
+            projectRepository.updateProject(applyBrickStateEvents(project, brickStateEvents));
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.error("Unable to persist brick states of project configuration id '{}'.", projectConfigurationIdentifier, e);
+            return false;
+        }
+    }
 
-            ProjectBuilder builder = new ProjectBuilder(project).setSnapshotDate(new Date());
-            Stack stack = findOrCreateStack(project, brickStateEvent.getStackName());
-            Set<Stack> stacks = new HashSet<>(project.getStacks());
-            Set<BrickStateEvent> brickStateEvents = stack.getBrickStateEvents();
-            Optional<BrickStateEvent> initialBrickStateEvent = brickStateEvents.stream()
-                    .filter(b -> b.getBrickName().equals(brickStateEvent.getBrickName()) &&
-                            b.getBrickType().equals(brickStateEvent.getBrickType()))
-                    .findFirst();
-            String actionLog = "Adding";
-            if (initialBrickStateEvent.isPresent()) {
-                actionLog = "Updating";
-                brickStateEvents.remove(initialBrickStateEvent.get());
-            }
+    /**
+     * Apply brick state events, in order, to a project. The state of a brick replaces its previous state in the stack.
+     * @param project The project to update.
+     * @param brickStateEvents States to apply.
+     * @return A new snapshot of the project containing the given brick states.
+     */
+    protected static Project applyBrickStateEvents(Project project, Collection<BrickStateEvent> brickStateEvents) {
+        assert project != null : "project must be defined.";
+        assert brickStateEvents != null : "brickStateEvents must be defined.";
+        Map<String, Stack> stacks = new HashMap<>();
+        project.getStacks().forEach(stack -> stacks.put(stack.getName(), stack));
+        for (BrickStateEvent brickStateEvent : brickStateEvents) {
+            Stack stack = stacks.computeIfAbsent(brickStateEvent.getStackName(), stackName -> findOrCreateStack(project, stackName));
+            Set<BrickStateEvent> states = stack.getBrickStateEvents();
+            boolean updating = states.removeIf(b -> b.getBrickName().equals(brickStateEvent.getBrickName()) &&
+                    b.getBrickType().equals(brickStateEvent.getBrickType()));
             if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("{} following state to project {} : {}", actionLog, project.getName(), msg);
+                LOGGER.debug("{} following state to project {} : {}", updating ? "Updating" : "Adding", project.getName(), brickStateEvent);
             }
-            brickStateEvents.add(brickStateEvent);
-            stacks.add(stack);
-
-            builder.setStacks(stacks);
-            getContext().actorFor(EndpointActor.ACTOR_PATH).tell(new ProjectUpdaterMessages.ProjectUpdateMsg(null, null, builder.build()), self());
-
-            originalSender.tell(Boolean.TRUE, self());
-            getContext().stop(self());
+            states.add(brickStateEvent);
         }
-    }
-
-    private void onNotAuthorizedToUpdateProject() {
-        LOGGER.error("Unexpected behavior happened when trying to update a project state from an brick state change notification.");
-        originalSender.tell(Boolean.FALSE, self());
-        getContext().stop(self());
-    }
-
-    private void onProjectUdapted() {
-        originalSender.tell(Futures.successful(Boolean.TRUE), self());
-        getContext().stop(self());
+        return new ProjectBuilder(project)
+                .setSnapshotDate(new Date())
+                .setStacks(new HashSet<>(stacks.values()))
+                .build();
     }
 
     protected static Stack findOrCreateStack(Project project, String stackName) {
@@ -127,6 +132,9 @@ public class BrickStateEventPersistenceActor extends AbstractActor {
         return new Stack(stackName, StackType.BUILD, new HashSet<>());
     }
 
+    /**
+     * Brick state event received from the bus, buffered by the {@link BrickStateEventCoalescerActor}.
+     */
     public static class BrickStateEventPersistenceMsg extends EventUserRequestMessage {
 
         public BrickStateEventPersistenceMsg(User requester, Event request) {
@@ -134,4 +142,77 @@ public class BrickStateEventPersistenceActor extends AbstractActor {
         }
     }
 
+    /**
+     * Persist brick state events of a same project with a single project update.
+     */
+    public static class BrickStateEventsPersistenceMsg implements ShardedEntityMessage, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String projectConfigurationIdentifier;
+
+        private final List<BrickStateEvent> brickStateEvents;
+
+        private final long flushId;
+
+        public BrickStateEventsPersistenceMsg(String projectConfigurationIdentifier, List<BrickStateEvent> brickStateEvents, long flushId) {
+            requireNonNull(projectConfigurationIdentifier, "projectConfigurationIdentifier must be defined.");
+            requireNonNull(brickStateEvents, "brickStateEvents must be defined.");
+            this.projectConfigurationIdentifier = projectConfigurationIdentifier;
+            this.brickStateEvents = new ArrayList<>(brickStateEvents);
+            this.flushId = flushId;
+        }
+
+        @Override
+        public String entityType() {
+            return PROJECT_CONFIGURATION;
+        }
+
+        @Override
+        public String entityId() {
+            return projectConfigurationIdentifier;
+        }
+
+        public String getProjectConfigurationIdentifier() {
+            return projectConfigurationIdentifier;
+        }
+
+        public List<BrickStateEvent> getBrickStateEvents() {
+            return brickStateEvents;
+        }
+
+        public long getFlushId() {
+            return flushId;
+        }
+    }
+
+    public static class BrickStateEventsPersistenceResultMsg implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String projectConfigurationIdentifier;
+
+        private final long flushId;
+
+        private final boolean success;
+
+        public BrickStateEventsPersistenceResultMsg(String projectConfigurationIdentifier, long flushId, boolean success) {
+            this.projectConfigurationIdentifier = projectConfigurationIdentifier;
+            this.flushId = flushId;
+            this.success = success;
+        }
+
+        public String getProjectConfigurationIdentifier() {
+            return projectConfigurationIdentifier;
+        }
+
+        public long getFlushId() {
+            return flushId;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
 }
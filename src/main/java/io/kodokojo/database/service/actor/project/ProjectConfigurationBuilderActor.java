@@ -29,6 +29,7 @@ import io.kodokojo.commons.service.BrickFactory;
 import io.kodokojo.commons.service.DefaultBrickFactory;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.database.service.actor.EndpointActor;
+import io.kodokojo.database.service.actor.SagaTimeout;
 import io.kodokojo.database.service.actor.user.UserEligibleActor;
 import io.kodokojo.database.service.actor.user.UserFetcherActor;
 import io.kodokojo.database.service.actor.user.UserServiceCreatorActor;
@@ -48,6 +49,9 @@ import static org.apache.commons.lang.StringUtils.isBlank;
 public class ProjectConfigurationBuilderActor extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
+
+    public static final String SAGA = "project-configuration-builder";
+
     private String serviceUsername;
 
     public static Props PROPS(BrickFactory brickFactory) {
@@ -79,6 +83,7 @@ public class ProjectConfigurationBuilderActor extends AbstractActor {
                 .match(UserEligibleActor.UserEligibleResultMsg.class, this::onUserServiceAlreadyExist)
                 .match(UserServiceFetcherActor.UserServiceFetchResultMsg.class, this::onReceiveUserService)
                 .match(BootstrapStackActor.BootstrapStackResultMsg.class, this::stackBootstrapped)
+                .match(ReceiveTimeout.class, timeout -> replyFailureAndStop(SagaTimeout.abandon(getContext(), SAGA)))
                 .matchAny(this::unhandled)
                 .build()
         );
@@ -93,9 +98,17 @@ public class ProjectConfigurationBuilderActor extends AbstractActor {
         if (msg.isAlreadyExist()) {
             ActorSelection akkaEndpoint = getContext().actorSelection(EndpointActor.ACTOR_PATH);
             akkaEndpoint.tell(new UserServiceFetcherActor.UserServiceFetchMsg(initialMsg.getRequester(), initialMsg.originalEvent(), serviceUsername), self());
+        } else {
+            LOGGER.error("Unable to create service user {} for project {}.", serviceUsername, initialMsg.getProjectConfigurationCreationDto().getName());
+            replyFailureAndStop(new IllegalStateException("Service user " + serviceUsername + " is not eligible."));
         }
     }
 
+    private void replyFailureAndStop(Throwable cause) {
+        originalSender.tell(new ProjectConfigurationBuildResultMsg(initialMsg.getRequester(), initialMsg.originalEvent(), cause), self());
+        getContext().stop(self());
+    }
+
     private void stackBootstrapped(BootstrapStackActor.BootstrapStackResultMsg msg) {
         Try<BootstrapStackData> bootstrapStackData = msg.getBootstrapStackData();
         if (bootstrapStackData.isSuccess()) {
@@ -103,8 +116,7 @@ public class ProjectConfigurationBuilderActor extends AbstractActor {
             tryToBuild();
         } else {
             LOGGER.error("Unable to bootstrap stack for project {}: {}", initialMsg.getProjectConfigurationCreationDto().getName(), bootstrapStackData.getCause().getMessage());
-            originalSender.tell(new ProjectConfigurationBuildResultMsg(initialMsg.getRequester(), initialMsg.originalEvent(), bootstrapStackData.getCause()), self());
-            getContext().stop(self());
+            replyFailureAndStop(bootstrapStackData.getCause());
         }
     }
 
@@ -127,6 +139,7 @@ public class ProjectConfigurationBuilderActor extends AbstractActor {
     private void buildProjectConfiguration(ProjectConfigurationBuildMsg msg) {
         originalSender = sender();
         initialMsg = msg;
+        SagaTimeout.arm(getContext(), SAGA);
 
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Receive a ProjectBuild request from Actor {}.", originalSender);
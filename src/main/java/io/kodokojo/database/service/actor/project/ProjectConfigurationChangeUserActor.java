@@ -20,11 +20,11 @@ package io.kodokojo.database.service.actor.project;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.model.ProjectConfiguration;
-import io.kodokojo.commons.model.ProjectConfigurationBuilder;
 import io.kodokojo.commons.model.TypeChange;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
@@ -32,14 +32,17 @@ import io.kodokojo.commons.service.repository.ProjectFetcher;
 import io.kodokojo.database.service.actor.EndpointActor;
 import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
 import io.kodokojo.database.service.actor.user.UserFetcherActor;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.SagaTimeout;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatch;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.lang.StringUtils;
 
-import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static akka.event.Logging.getLogger;
@@ -51,6 +54,8 @@ public class ProjectConfigurationChangeUserActor extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
 
+    public static final String SAGA = "project-configuration-change-user";
+
     private ProjectConfiguration projectConfiguration;
 
     private Set<User> users;
@@ -61,14 +66,14 @@ public class ProjectConfigurationChangeUserActor extends AbstractActor {
 
     public static Props PROPS(ProjectFetcher projectFetcher) {
         requireNonNull(projectFetcher, "projectFetcher must be defined.");
-        return Props.create(ProjectConfigurationChangeUserActor.class, projectFetcher);
+        return Props.create(ProjectConfigurationChangeUserActor.class, projectFetcher).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public ProjectConfigurationChangeUserActor(ProjectFetcher projectFetcher) {
         users = new HashSet<>();
         receive(ReceiveBuilder.match(ProjectConfigurationChangeEventUserMsg.class, msg -> receiveRequest(projectFetcher, msg))
                 .match(UserFetcherActor.UserFetchResultMsg.class, this::receiveUser)
-                .match(ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterResultMsg.class, msg -> {
+                .match(ProjectConfigurationUpdaterActor.ProjectConfigurationPatchResultMsg.class, msg -> {
                     //  Following jobs must be done in brick manager.
                     /*
                     projectConfiguration = msg.getProjectConfiguration();
@@ -99,38 +104,46 @@ public class ProjectConfigurationChangeUserActor extends AbstractActor {
                         LOGGER.debug("Request add user {} on project {} for {} bricks.", StringUtils.join(users.stream().map(User::getUsername).collect(Collectors.toList()), ", "), projectConfiguration.getName(), projectConfiguration.getDefaultBrickConfigurations());
                     }
                     */
-                    originalSender.tell(new ProjectConfigurationChangeUserResultMsg(msg.getRequester(), msg.originalEvent(), true), self());
+                    originalSender.tell(new ProjectConfigurationChangeUserResultMsg(msg.getRequester(), msg.originalEvent(), msg.isSuccess()), self());
                     getContext().stop(self());
                 })
+                .match(ReceiveTimeout.class, timeout -> {
+                    TimeoutException cause = SagaTimeout.abandon(getContext(), SAGA);
+                    LOGGER.error(cause.getMessage());
+                    replyFailureAndStop();
+                })
                 .matchAny(this::unhandled).build());
     }
 
     private void receiveUser(UserFetcherActor.UserFetchResultMsg msg) {
+        //  All requested users are fetched at once, this reply is the complete set.
         users = msg.getUsers();
         if (CollectionUtils.isEmpty(users)) {
             LOGGER.error("Unable to found a valid user with IDs '{}'.", StringUtils.join(msg.getUserIdRequeted(), ", "));
+            replyFailureAndStop();
         } else {
-            ProjectConfigurationBuilder builder = new ProjectConfigurationBuilder(projectConfiguration);
-            Set<User> existingUsers = new HashSet<>(IteratorUtils.toList(projectConfiguration.getUsers()));
+            if (users.size() < msg.getUserIdRequeted().size()) {
+                Set<String> found = users.stream().map(User::getIdentifier).collect(Collectors.toSet());
+                LOGGER.warning("Ignore unknown users with IDs '{}'.", StringUtils.join(msg.getUserIdRequeted().stream().filter(id -> !found.contains(id)).collect(Collectors.toList()), ", "));
+            }
+            //  Only the changed users are sent to the store, not the whole ProjectConfiguration.
+            ProjectConfigurationPatch.Builder patch = ProjectConfigurationPatch.builder(projectConfiguration.getIdentifier());
             List<String> userNames = users.stream().map(User::getUsername).collect(Collectors.toList());
             switch (originalMsg.typeChange) {
                 case ADD:
-                    existingUsers.forEach(user -> {
-                        builder.addUser(user);
-                        OrganisationMessage.ChangeUserToOrganisationMsg changeUserToOrganisationMsg = new OrganisationMessage.ChangeUserToOrganisationMsg(msg.getRequester(), OrganisationMessage.TypeChange.ADD, msg.originalEvent(), user.getIdentifier(), projectConfiguration.getEntityIdentifier(), false );
-                        getContext().actorFor(EndpointActor.ACTOR_PATH).tell(changeUserToOrganisationMsg, self());
-                    });
+                    patch.addUsers(users);
+                    List<String> userIds = users.stream().map(User::getIdentifier).collect(Collectors.toList());
+                    getContext().actorFor(EndpointActor.ACTOR_PATH).tell(new OrganisationMessage.AddUsersToOrganisationMsg(msg.getRequester(), msg.originalEvent(), userIds, projectConfiguration.getEntityIdentifier()), self());
 
                     LOGGER.debug("Adding {} to projectConfiguration '{}'.", StringUtils.join(userNames, ","), projectConfiguration.getName());
                     break;
                 case REMOVE:
-                    existingUsers.removeAll(users);
+                    patch.removeUsers(users.stream().map(User::getIdentifier).collect(Collectors.toList()));
                     LOGGER.debug("Remove {} to projectConfiguration '{}'.", StringUtils.join(userNames, ","), projectConfiguration.getName());
                     break;
             }
-            builder.setUsers(new ArrayList<>(existingUsers));
-            ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg projectConfigurationUpdaterMsg = new ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg(originalMsg.getRequester(), originalMsg.originalEvent(), builder.build());
-            getContext().actorFor(EndpointActor.ACTOR_PATH).tell(projectConfigurationUpdaterMsg, self());
+            ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg projectConfigurationPatchMsg = new ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg(originalMsg.getRequester(), originalMsg.originalEvent(), patch.build());
+            getContext().actorFor(EndpointActor.ACTOR_PATH).tell(projectConfigurationPatchMsg, self());
 
         }
     }
@@ -141,13 +154,18 @@ public class ProjectConfigurationChangeUserActor extends AbstractActor {
         projectConfiguration = projectFetcher.getProjectConfigurationById(originalMsg.projectConfigurationId);
         if (projectConfiguration == null) {
             LOGGER.error("Unable to found an existing ProjectConfiguration with Identifiant = '{}'.", msg.projectConfigurationId);
+            replyFailureAndStop();
         } else {
-            msg.userIdentifiers.forEach(userId -> {
-                getContext().actorFor(EndpointActor.ACTOR_PATH).tell(new UserFetcherActor.UserFetchMsg(msg.getRequester(), msg.originalEvent(), userId), self());
-            });
+            SagaTimeout.arm(getContext(), SAGA);
+            getContext().actorFor(EndpointActor.ACTOR_PATH).tell(new UserFetcherActor.UserFetchMsg(msg.getRequester(), msg.originalEvent(), new LinkedHashSet<>(msg.userIdentifiers)), self());
         }
     }
 
+    private void replyFailureAndStop() {
+        originalSender.tell(new ProjectConfigurationChangeUserResultMsg(originalMsg.getRequester(), originalMsg.originalEvent(), false), self());
+        getContext().stop(self());
+    }
+
 
     public static class ProjectConfigurationChangeEventUserMsg implements EventBusOriginMessage {
 
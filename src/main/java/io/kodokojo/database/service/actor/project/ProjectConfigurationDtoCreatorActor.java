@@ -33,6 +33,7 @@ import io.kodokojo.commons.service.repository.OrganisationRepository;
 import io.kodokojo.database.service.actor.EndpointActor;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 import javaslang.control.Try;
 
 import static akka.event.Logging.getLogger;
@@ -45,7 +46,7 @@ public class ProjectConfigurationDtoCreatorActor extends AbstractActor {
     public static Props PROPS(ProjectRepository projectRepository, OrganisationRepository organisationRepository) {
         requireNonNull(projectRepository, "projectRepository must be defined.");
         requireNonNull(organisationRepository, "organisationRepository must be defined.");
-        return Props.create(ProjectConfigurationDtoCreatorActor.class, projectRepository, organisationRepository);
+        return Props.create(ProjectConfigurationDtoCreatorActor.class, projectRepository, organisationRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private ActorRef originalSender;
@@ -26,6 +26,10 @@ import io.kodokojo.commons.model.ProjectConfiguration;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatch;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatcher;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -36,10 +40,11 @@ public class ProjectConfigurationUpdaterActor extends AbstractActor {
 
     public static final Props PROPS(ProjectRepository projectRepository) {
         requireNonNull(projectRepository, "projectRepository must be defined.");
-        return Props.create(ProjectConfigurationUpdaterActor.class, projectRepository);
+        return Props.create(ProjectConfigurationUpdaterActor.class, projectRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public ProjectConfigurationUpdaterActor(ProjectRepository projectRepository) {
+        ProjectConfigurationPatcher projectConfigurationPatcher = ProjectConfigurationPatcher.of(projectRepository);
         receive(ReceiveBuilder
                 .match(ProjectConfigurationUpdaterMsg.class, msg -> {
                     // Ask for right if UserRequester is defined.
@@ -48,12 +53,21 @@ public class ProjectConfigurationUpdaterActor extends AbstractActor {
                     }
                     projectRepository.updateProjectConfiguration(msg.projectConfiguration);
                     sender().tell(new ProjectConfigurationUpdaterResultMsg(msg.getRequester(),msg.originalEvent(), msg.projectConfiguration), self());
-                    getContext().stop(self());
+                })
+                .match(ProjectConfigurationPatchMsg.class, msg -> {
+                    if (LOGGER.isDebugEnabled()) {
+                        LOGGER.debug("Patch ProjectConfiguration {}", msg.patch.getProjectConfigurationId());
+                    }
+                    boolean applied = projectConfigurationPatcher.applyPatch(msg.patch);
+                    if (!applied) {
+                        LOGGER.warning("Unable to patch unknown ProjectConfiguration {}.", msg.patch.getProjectConfigurationId());
+                    }
+                    sender().tell(new ProjectConfigurationPatchResultMsg(msg.getRequester(), msg.originalEvent(), applied), self());
                 })
                 .matchAny(this::unhandled).build());
     }
 
-    public static class ProjectConfigurationUpdaterMsg extends EventUserRequestMessage {
+    public static class ProjectConfigurationUpdaterMsg extends EventUserRequestMessage implements ShardedEntityMessage {
 
         private final ProjectConfiguration projectConfiguration;
 
@@ -64,7 +78,64 @@ public class ProjectConfigurationUpdaterActor extends AbstractActor {
             }
             this.projectConfiguration = projectConfiguration;
         }
+
+        public ProjectConfiguration getProjectConfiguration() {
+            return projectConfiguration;
+        }
+
+        @Override
+        public String entityType() {
+            return PROJECT_CONFIGURATION;
+        }
+
+        @Override
+        public String entityId() {
+            return projectConfiguration.getIdentifier();
+        }
     }
+
+    /**
+     * Apply a change on a ProjectConfiguration without rewriting it, see {@link ProjectConfigurationPatch}.
+     */
+    public static class ProjectConfigurationPatchMsg extends EventUserRequestMessage implements ShardedEntityMessage {
+
+        private final ProjectConfigurationPatch patch;
+
+        public ProjectConfigurationPatchMsg(User requester, Event request, ProjectConfigurationPatch patch) {
+            super(requester, request);
+            requireNonNull(patch, "patch must be defined.");
+            this.patch = patch;
+        }
+
+        public ProjectConfigurationPatch getPatch() {
+            return patch;
+        }
+
+        @Override
+        public String entityType() {
+            return PROJECT_CONFIGURATION;
+        }
+
+        @Override
+        public String entityId() {
+            return patch.getProjectConfigurationId();
+        }
+    }
+
+    public static class ProjectConfigurationPatchResultMsg extends EventUserRequestMessage {
+
+        private final boolean success;
+
+        public ProjectConfigurationPatchResultMsg(User requester, Event request, boolean success) {
+            super(requester, request);
+            this.success = success;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
     public static class ProjectConfigurationUpdaterResultMsg extends EventUserRequestMessage {
 
         private final ProjectConfiguration projectConfiguration;
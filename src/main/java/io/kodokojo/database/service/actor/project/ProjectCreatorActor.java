@@ -31,6 +31,7 @@ import io.kodokojo.commons.service.actor.message.EventUserReplyMessage;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.actor.right.RightEndpointActor;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import static akka.event.Logging.getLogger;
 import static org.apache.commons.lang.StringUtils.isBlank;
@@ -57,7 +58,7 @@ public class ProjectCreatorActor extends AbstractActor {
         if (projectRepository == null) {
             throw new IllegalArgumentException("projectRepository must be defined.");
         }
-        return Props.create(ProjectCreatorActor.class, projectRepository);
+        return Props.create(ProjectCreatorActor.class, projectRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private void onRightResult(RightEndpointActor.RightRequestResultMsg msg) {
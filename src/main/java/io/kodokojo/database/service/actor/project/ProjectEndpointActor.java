@@ -18,6 +18,7 @@
 package io.kodokojo.database.service.actor.project;
 
 import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
 import akka.actor.OneForOneStrategy;
 import akka.actor.Props;
 import akka.actor.SupervisorStrategy;
@@ -28,7 +29,10 @@ import io.kodokojo.commons.service.repository.OrganisationRepository;
 import io.kodokojo.commons.service.repository.ProjectRepository;
 import io.kodokojo.database.service.BootstrapConfigurationProvider;
 import io.kodokojo.database.service.ConfigurationStore;
-import io.kodokojo.database.service.actor.organisation.OrganisationCreatorActor;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.BoundedEndpointMailbox;
+import io.kodokojo.database.service.actor.EndpointRoutingTable;
 import scala.concurrent.duration.Duration;
 
 import java.util.concurrent.TimeUnit;
@@ -44,13 +48,17 @@ public class ProjectEndpointActor extends AbstractActor {
                               OrganisationRepository organisationRepository,
                               BrickFactory brickFactory,
                               BootstrapConfigurationProvider bootstrapConfigurationProvider,
-                              ConfigurationStore configurationStore) {
+                              ConfigurationStore configurationStore,
+                              WorkerRouting workerRouting,
+                              long brickStateCoalescingWindowMillis,
+                              int brickStateCoalescingMaxEvents) {
         requireNonNull(projectRepository, "projectRepository must be defined.");
         requireNonNull(brickFactory, "brickFactory must be defined.");
         requireNonNull(configurationStore, "configurationStoreSelector must be defined.");
         requireNonNull(bootstrapConfigurationProvider, "bootstrapConfigurationProvider must be defined.");
+        requireNonNull(workerRouting, "workerRouting must be defined.");
 
-        return Props.create(ProjectEndpointActor.class, projectRepository, organisationRepository, brickFactory, bootstrapConfigurationProvider, configurationStore);
+        return Props.create(ProjectEndpointActor.class, projectRepository, organisationRepository, brickFactory, bootstrapConfigurationProvider, configurationStore, workerRouting, brickStateCoalescingWindowMillis, brickStateCoalescingMaxEvents).withDispatcher(ActorDispatchers.ENDPOINT).withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
     }
 
     public static final String NAME = "projectEndpointProps";
@@ -59,7 +67,15 @@ public class ProjectEndpointActor extends AbstractActor {
                                 OrganisationRepository organisationRepository,
                                 BrickFactory brickFactory,
                                 BootstrapConfigurationProvider bootstrapConfigurationProvider,
-                                ConfigurationStore configurationStore) {
+                                ConfigurationStore configurationStore,
+                                WorkerRouting workerRouting,
+                                long brickStateCoalescingWindowMillis,
+                                int brickStateCoalescingMaxEvents) {
+
+        WorkerRouting.Worker projectConfigurationUpdater = workerRouting.create(getContext(), ProjectConfigurationUpdaterActor.PROPS(projectRepository), "projectConfigurationUpdater");
+        WorkerRouting.Worker brickPropertyToBrickConfiguration = workerRouting.create(getContext(), BrickPropertyToBrickConfigurationActor.PROPS(projectRepository), "brickPropertyToBrickConfiguration");
+        //  A window of 0 disable the coalescing, each brick state is then persisted on its own.
+        ActorRef brickStateEventCoalescer = getContext().actorOf(BrickStateEventCoalescerActor.PROPS(brickStateCoalescingWindowMillis, brickStateCoalescingMaxEvents), "brickStateEventCoalescer");
 
         receive(ReceiveBuilder
                 .match(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, msg -> {
@@ -75,19 +91,40 @@ public class ProjectEndpointActor extends AbstractActor {
                 })
                 .match(ProjectCreatorActor.ProjectCreateMsg.class, msg -> {
                     getContext().actorOf(ProjectCreatorActor.PROPS(projectRepository)).forward(msg, getContext());
-                }).match(ProjectCreatorActor.ProjectCreateMsg.class, msg -> {
-                    getContext().actorOf(ProjectCreatorActor.PROPS(projectRepository)).forward(msg, getContext());
                 }).match(ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg.class, msg -> {
-                    getContext().actorOf(ProjectConfigurationUpdaterActor.PROPS(projectRepository)).forward(msg, getContext());
+                    projectConfigurationUpdater.forward(msg, getContext());
+                }).match(ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg.class, msg -> {
+                    projectConfigurationUpdater.forward(msg, getContext());
+                }).match(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, msg -> {
+                    brickPropertyToBrickConfiguration.forward(msg, getContext());
                 }).match(BootstrapStackActor.BootstrapStackMsg.class, msg -> {
                     getContext().actorOf(BootstrapStackActor.PROPS(bootstrapConfigurationProvider, configurationStore)).forward(msg, getContext());
                 }).match(ProjectConfigurationChangeUserActor.ProjectConfigurationChangeEventUserMsg.class, msg -> {
                     getContext().actorOf(ProjectConfigurationChangeUserActor.PROPS(projectRepository)).forward(msg, getContext());
                 }).match(BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg.class, msg -> {
+                    brickStateEventCoalescer.forward(msg, getContext());
+                }).match(BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class, msg -> {
                     getContext().actorOf(BrickStateEventPersistenceActor.PROPS(projectRepository)).forward(msg, getContext());
                 })
                 .matchAny(this::unhandled).build());
     }
 
+    /**
+     * Register messages handled by this endpoint in the routing table of the {@link io.kodokojo.database.service.actor.EndpointActor}.
+     */
+    public static EndpointRoutingTable.Builder registerRoutes(EndpointRoutingTable.Builder builder, ActorRef projectEndpoint) {
+        return builder.route(ProjectConfigurationBuilderActor.ProjectConfigurationBuildMsg.class, projectEndpoint)
+                .route(ProjectConfigurationDtoCreatorActor.ProjectConfigurationDtoCreateMsg.class, projectEndpoint)
+                .route(ProjectCreatorActor.ProjectCreateMsg.class, projectEndpoint)
+                .route(ProjectUpdaterMessages.ProjectUpdateMsg.class, projectEndpoint)
+                .route(ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg.class, projectEndpoint)
+                .route(ProjectConfigurationUpdaterActor.ProjectConfigurationUpdaterMsg.class, projectEndpoint)
+                .route(ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg.class, projectEndpoint)
+                .route(BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg.class, projectEndpoint)
+                .route(BootstrapStackActor.BootstrapStackMsg.class, projectEndpoint)
+                .route(BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg.class, projectEndpoint)
+                .route(BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class, projectEndpoint);
+    }
+
 
 }
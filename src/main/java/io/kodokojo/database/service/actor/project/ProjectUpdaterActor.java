@@ -26,6 +26,7 @@ import io.kodokojo.commons.model.ProjectConfiguration;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.actor.right.RightEndpointActor;
 import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import java.util.Objects;
 import java.util.Optional;
@@ -53,7 +54,7 @@ public class ProjectUpdaterActor extends AbstractActor {
 
     public static final Props props(ProjectRepository projectRepository) {
         Objects.requireNonNull(projectRepository, "projectRepository must be defined.");
-        return Props.create(ProjectUpdaterActor.class, projectRepository);
+        return Props.create(ProjectUpdaterActor.class, projectRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private void onRightRequestResult(RightEndpointActor.RightRequestResultMsg msg) {
@@ -22,12 +22,13 @@ import io.kodokojo.commons.model.Project;
 import io.kodokojo.commons.model.UpdateData;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
+import io.kodokojo.database.service.actor.cluster.ShardedEntityMessage;
 
 import static java.util.Objects.requireNonNull;
 
 public interface ProjectUpdaterMessages {
 
-    class ProjectUpdateMsg extends EventUserRequestMessage {
+    class ProjectUpdateMsg extends EventUserRequestMessage implements ShardedEntityMessage {
 
         final Project project;
 
@@ -38,6 +39,23 @@ public interface ProjectUpdaterMessages {
             }
             this.project = project;
         }
+
+        public Project getProject() {
+            return project;
+        }
+
+        /**
+         * A project is identified by its project configuration, there is one project per project configuration.
+         */
+        @Override
+        public String entityType() {
+            return PROJECT;
+        }
+
+        @Override
+        public String entityId() {
+            return project.getProjectConfigurationIdentifier();
+        }
     }
 
     class ProjectUpdateResultMsg extends EventUserRequestMessage {
@@ -0,0 +1,398 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.user;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.actor.Status;
+import akka.event.LoggingAdapter;
+import akka.japi.pf.ReceiveBuilder;
+import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.payload.UserCreated;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.actor.message.EventUserReplyMessage;
+import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.EndpointActor;
+import io.kodokojo.database.service.actor.SagaTimeout;
+import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static akka.event.Logging.getLogger;
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Create a set of users in an existing organisation within a single saga:
+ * <ol>
+ *     <li>the organisation is checked before any user is stored,</li>
+ *     <li>eligibility of all usernames is checked,</li>
+ *     <li>users are stored by chunks, security data of the next chunk being generated meanwhile,</li>
+ *     <li>all created users are attached to the organisation with one membership message,</li>
+ *     <li>a single summary reply is sent.</li>
+ * </ol>
+ * The saga saves the creator, eligibility and membership actors and messages of each user. The store is still
+ * accessed user by user, the repositories of kodokojo commons have no bulk write.
+ */
+public class UserBulkCreatorActor extends AbstractActor {
+
+    public static final String USER_BULK_CREATION_REQUEST = "user_bulk_creation_request";
+
+    public static final String USER_BULK_CREATION_REPLY = "user_bulk_creation_reply";
+
+    public static final int DEFAULT_CHUNK_SIZE = 100;
+
+    public static final String SAGA = "user-bulk-creator";
+
+    private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
+
+    public static Props PROPS(UserRepository userRepository, OrganisationRepository organisationRepository, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine) {
+        return PROPS(userRepository, organisationRepository, rsaKeyPairPool, userCache, emailTemplateEngine, DEFAULT_CHUNK_SIZE);
+    }
+
+    public static Props PROPS(UserRepository userRepository, OrganisationRepository organisationRepository, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine, int chunkSize) {
+        requireNonNull(userRepository, "userRepository must be defined.");
+        requireNonNull(organisationRepository, "organisationRepository must be defined.");
+        requireNonNull(rsaKeyPairPool, "rsaKeyPairPool must be defined.");
+        requireNonNull(userCache, "userCache must be defined.");
+        requireNonNull(emailTemplateEngine, "emailTemplateEngine must be defined.");
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be greater than 0.");
+        }
+        return Props.create(UserBulkCreatorActor.class, userRepository, organisationRepository, rsaKeyPairPool, userCache, emailTemplateEngine, chunkSize).withDispatcher(ActorDispatchers.BLOCKING_IO);
+    }
+
+    private final UserRepository userRepository;
+
+    private final OrganisationRepository organisationRepository;
+
+    private final UserCache userCache;
+
+    private final EmailTemplateEngine emailTemplateEngine;
+
+    private final int chunkSize;
+
+    private final ActorRef securityDataGenerator;
+
+    private final List<User> created = new ArrayList<>();
+
+    private final List<String> rejected = new ArrayList<>();
+
+    private List<PendingUser> pendingUsers = Collections.emptyList();
+
+    //  Number of pending users whose security data was requested, and number of pending users already stored.
+    private int requested = 0;
+
+    private int stored = 0;
+
+    private EventUserBulkCreateMsg message;
+
+    private ActorRef originalActor;
+
+    public UserBulkCreatorActor(UserRepository userRepository, OrganisationRepository organisationRepository, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine, int chunkSize) {
+        this.userRepository = userRepository;
+        this.organisationRepository = organisationRepository;
+        this.userCache = userCache;
+        this.emailTemplateEngine = emailTemplateEngine;
+        this.chunkSize = chunkSize;
+        securityDataGenerator = getContext().actorOf(UserGenerateSecurityData.PROPS(rsaKeyPairPool));
+        receive(ReceiveBuilder.match(EventUserBulkCreateMsg.class, this::onBulkCreateRequest)
+                .match(UserGenerateSecurityData.UserSecurityDataBatchMsg.class, this::onSecurityDataGenerated)
+                .match(Boolean.class, added -> onUsersAddedToOrganisation())
+                .match(Status.Failure.class, failure -> onFailure(failure.cause()))
+                .match(ReceiveTimeout.class, timeout -> onFailure(SagaTimeout.abandon(getContext(), SAGA)))
+                .matchAny(this::unhandled)
+                .build()
+        );
+    }
+
+    private void onBulkCreateRequest(EventUserBulkCreateMsg msg) {
+        originalActor = sender();
+        message = msg;
+        SagaTimeout.arm(getContext(), SAGA);
+
+        //  Users are stored before the membership update, they would be left without organisation if it doesn't exist.
+        Organisation organisation = organisationRepository.getOrganisationById(msg.getOrganisationId());
+        if (organisation == null) {
+            onFailure(new IllegalArgumentException("Organisation " + msg.getOrganisationId() + " doesn't exist."));
+            return;
+        }
+
+        //  Duplicated usernames within the request are rejected, then all remaining usernames are checked.
+        Map<String, UserBulkCreationRequest.Entry> candidates = new LinkedHashMap<>();
+        for (UserBulkCreationRequest.Entry entry : msg.getUsers()) {
+            if (candidates.putIfAbsent(entry.getUsername(), entry) != null) {
+                rejected.add(entry.getUsername());
+            }
+        }
+        Set<String> existingUsernames = candidates.keySet().stream()
+                .filter(userRepository::usernameAlreadyExist)
+                .collect(Collectors.toSet());
+        rejected.addAll(existingUsernames);
+        candidates.keySet().removeAll(existingUsernames);
+
+        pendingUsers = candidates.values().stream()
+                .map(entry -> new PendingUser(userRepository.generateId(), entry))
+                .collect(Collectors.toList());
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} users eligible to be created in organisation {}, {} rejected.", pendingUsers.size(), msg.getOrganisationId(), rejected.size());
+        }
+        if (pendingUsers.isEmpty()) {
+            reply();
+        } else {
+            requestNextChunk();
+        }
+    }
+
+    private void requestNextChunk() {
+        if (requested < pendingUsers.size()) {
+            int count = Math.min(chunkSize, pendingUsers.size() - requested);
+            securityDataGenerator.tell(new UserGenerateSecurityData.GenerateSecurityBatchMsg(count), self());
+            requested += count;
+        }
+    }
+
+    private void onSecurityDataGenerated(UserGenerateSecurityData.UserSecurityDataBatchMsg msg) {
+        //  Security data of the next chunk are generated while the current one is written.
+        requestNextChunk();
+
+        List<UserGenerateSecurityData.UserSecurityDataMsg> securityData = msg.getSecurityData();
+        List<User> users = new ArrayList<>(securityData.size());
+        Map<String, KeyPair> keyPairs = new LinkedHashMap<>();
+        for (int i = 0; i < securityData.size(); i++) {
+            PendingUser pendingUser = pendingUsers.get(stored + i);
+            KeyPair keyPair = securityData.get(i).getKeyPair();
+            String email = pendingUser.entry.getEmail();
+            String encodePublicKey = RSAUtils.encodePublicKey((RSAPublicKey) keyPair.getPublic(), email);
+            users.add(new User(pendingUser.id, message.getOrganisationId(), pendingUser.entry.getUsername(), pendingUser.entry.getUsername(), email, securityData.get(i).getPassword(), encodePublicKey, false));
+            keyPairs.put(pendingUser.id, keyPair);
+        }
+        stored += securityData.size();
+
+        for (User user : users) {
+            boolean added = userRepository.addUser(user);
+            userCache.invalidate(user.getIdentifier());
+            if (added) {
+                created.add(user);
+                getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(UserCreatorActor.userCreatedEmail(user, keyPairs.get(user.getIdentifier()), message.getRequester(), emailTemplateEngine), self());
+            } else {
+                rejected.add(user.getUsername());
+            }
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Stored {} of {} users to create in organisation {}.", stored, pendingUsers.size(), message.getOrganisationId());
+        }
+
+        if (stored == pendingUsers.size()) {
+            if (created.isEmpty()) {
+                reply();
+            } else {
+                List<String> userIds = created.stream().map(User::getIdentifier).collect(Collectors.toList());
+                getContext().actorSelection(EndpointActor.ACTOR_PATH).tell(new OrganisationMessage.AddUsersToOrganisationMsg(message.getRequester(), message.originalEvent(), userIds, message.getOrganisationId()), self());
+            }
+        }
+    }
+
+    private void onUsersAddedToOrganisation() {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} users added to organisation {}.", created.size(), message.getOrganisationId());
+        }
+        reply();
+    }
+
+    private void onFailure(Throwable cause) {
+        LOGGER.error("Unable to create {} users in organisation {}: {}", pendingUsers.size(), message.getOrganisationId(), cause.getMessage());
+        originalActor.tell(new Status.Failure(cause), self());
+        getContext().stop(self());
+    }
+
+    private void reply() {
+        originalActor.tell(new UserBulkCreateResultMsg(message.getRequester(), message.originalEvent(), message.getOrganisationId(), created, rejected), self());
+        getContext().stop(self());
+    }
+
+    private static class PendingUser {
+
+        private final String id;
+
+        private final UserBulkCreationRequest.Entry entry;
+
+        private PendingUser(String id, UserBulkCreationRequest.Entry entry) {
+            this.id = id;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Payload of a {@link #USER_BULK_CREATION_REQUEST} event.
+     */
+    public static class UserBulkCreationRequest {
+
+        private final String organisationId;
+
+        private final List<Entry> users;
+
+        public UserBulkCreationRequest(String organisationId, List<Entry> users) {
+            this.organisationId = organisationId;
+            this.users = users;
+        }
+
+        public String getOrganisationId() {
+            return organisationId;
+        }
+
+        public List<Entry> getUsers() {
+            return users;
+        }
+
+        public static class Entry {
+
+            private final String email;
+
+            private final String username;
+
+            public Entry(String email, String username) {
+                if (isBlank(email)) {
+                    throw new IllegalArgumentException("email must be defined.");
+                }
+                if (isBlank(username)) {
+                    throw new IllegalArgumentException("username must be defined.");
+                }
+                this.email = email;
+                this.username = username;
+            }
+
+            public String getEmail() {
+                return email;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+        }
+    }
+
+    /**
+     * Payload of a {@link #USER_BULK_CREATION_REPLY} event.
+     */
+    public static class UserBulkCreationReply {
+
+        private final String organisationId;
+
+        private final List<UserCreated> created;
+
+        private final List<String> rejectedUsernames;
+
+        public UserBulkCreationReply(String organisationId, List<UserCreated> created, List<String> rejectedUsernames) {
+            this.organisationId = organisationId;
+            this.created = created;
+            this.rejectedUsernames = rejectedUsernames;
+        }
+
+        public String getOrganisationId() {
+            return organisationId;
+        }
+
+        public List<UserCreated> getCreated() {
+            return created;
+        }
+
+        public List<String> getRejectedUsernames() {
+            return rejectedUsernames;
+        }
+    }
+
+    public static class EventUserBulkCreateMsg extends EventUserRequestMessage {
+
+        private final String organisationId;
+
+        private final List<UserBulkCreationRequest.Entry> users;
+
+        private final boolean comeFromEventBus;
+
+        public EventUserBulkCreateMsg(User requester, Event request, String organisationId, List<UserBulkCreationRequest.Entry> users) {
+            this(requester, request, organisationId, users, false);
+        }
+
+        public EventUserBulkCreateMsg(User requester, Event request, String organisationId, List<UserBulkCreationRequest.Entry> users, boolean comeFromEventBus) {
+            super(requester, request);
+            if (isBlank(organisationId)) {
+                throw new IllegalArgumentException("organisationId must be defined.");
+            }
+            requireNonNull(users, "users must be defined.");
+            this.organisationId = organisationId;
+            this.users = users;
+            this.comeFromEventBus = comeFromEventBus;
+        }
+
+        @Override
+        public boolean initialSenderIsEventBus() {
+            return comeFromEventBus;
+        }
+
+        public String getOrganisationId() {
+            return organisationId;
+        }
+
+        public List<UserBulkCreationRequest.Entry> getUsers() {
+            return users;
+        }
+    }
+
+    public static class UserBulkCreateResultMsg extends EventUserReplyMessage {
+
+        private final List<User> created;
+
+        private final List<String> rejected;
+
+        public UserBulkCreateResultMsg(User requester, Event request, String organisationId, List<User> created, List<String> rejected) {
+            super(requester, request, USER_BULK_CREATION_REPLY, new UserBulkCreationReply(organisationId,
+                    created.stream().map(user -> new UserCreated(user.getIdentifier(), user.getUsername(), user.getEmail())).collect(Collectors.toList()),
+                    rejected));
+            this.created = created;
+            this.rejected = rejected;
+        }
+
+        public List<User> getCreated() {
+            return created;
+        }
+
+        public List<String> getRejected() {
+            return rejected;
+        }
+    }
+
+}
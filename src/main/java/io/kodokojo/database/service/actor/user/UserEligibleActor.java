@@ -22,6 +22,7 @@ import akka.actor.Props;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -36,7 +37,7 @@ public class UserEligibleActor extends AbstractActor {
 
     public static Props PROPS(UserRepository userRepository) {
         requireNonNull(userRepository, "userRepository must be defined.");
-        return Props.create(UserEligibleActor.class, userRepository);
+        return Props.create(UserEligibleActor.class, userRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public UserEligibleActor(UserRepository userRepository) {
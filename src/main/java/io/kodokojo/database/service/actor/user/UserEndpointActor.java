@@ -18,12 +18,21 @@
 package io.kodokojo.database.service.actor.user;
 
 import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
 import akka.actor.OneForOneStrategy;
 import akka.actor.Props;
 import akka.actor.SupervisorStrategy;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.config.ApplicationConfig;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.WorkerRouting;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.BoundedEndpointMailbox;
+import io.kodokojo.database.service.actor.EndpointRoutingTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.concurrent.duration.Duration;
@@ -36,40 +45,64 @@ public class UserEndpointActor extends AbstractActor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserEndpointActor.class);
 
-    public static Props PROPS(UserRepository userRepository, ApplicationConfig applicationConfig) {
+    public static Props PROPS(UserRepository userRepository, OrganisationRepository organisationRepository, ApplicationConfig applicationConfig, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine, WorkerRouting workerRouting) {
         requireNonNull(userRepository, "userRepository must be defined.");
+        requireNonNull(organisationRepository, "organisationRepository must be defined.");
         requireNonNull(applicationConfig, "applicationConfig must be defined.");
-        return Props.create(UserEndpointActor.class, userRepository, applicationConfig);
+        requireNonNull(rsaKeyPairPool, "rsaKeyPairPool must be defined.");
+        requireNonNull(userCache, "userCache must be defined.");
+        requireNonNull(emailTemplateEngine, "emailTemplateEngine must be defined.");
+        requireNonNull(workerRouting, "workerRouting must be defined.");
+        return Props.create(UserEndpointActor.class, userRepository, organisationRepository, applicationConfig, rsaKeyPairPool, userCache, emailTemplateEngine, workerRouting).withDispatcher(ActorDispatchers.ENDPOINT).withMailbox(BoundedEndpointMailbox.CONFIG_PATH);
     }
 
     public static final String NAME = "userEndpointProps";
 
-    public UserEndpointActor(UserRepository userRepository, ApplicationConfig applicationConfig) {
+    public UserEndpointActor(UserRepository userRepository, OrganisationRepository organisationRepository, ApplicationConfig applicationConfig, RsaKeyPairPool rsaKeyPairPool, UserCache userCache, EmailTemplateEngine emailTemplateEngine, WorkerRouting workerRouting) {
+
+        WorkerRouting.Worker userGenerateIdentifier = workerRouting.create(getContext(), UserGenerateIdentifierActor.PROPS(userRepository), "userGenerateIdentifier");
+        WorkerRouting.Worker userFetcher = workerRouting.create(getContext(), UserFetcherActor.PROPS(userRepository, userCache), "userFetcher");
 
         receive(ReceiveBuilder
                 .match(UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class,
-                        msg -> getContext().actorOf(UserGenerateIdentifierActor.PROPS(userRepository)).forward(msg, getContext()))
+                        msg -> userGenerateIdentifier.forward(msg, getContext()))
                 .match(UserCreatorActor.EventUserCreateMsg.class, msg -> {
 
-                    getContext().actorOf(UserCreatorActor.PROPS(userRepository, applicationConfig)).forward(msg, getContext());
+                    getContext().actorOf(UserCreatorActor.PROPS(userRepository, applicationConfig, rsaKeyPairPool, userCache, emailTemplateEngine)).forward(msg, getContext());
+
+                }).match(UserBulkCreatorActor.EventUserBulkCreateMsg.class, msg -> {
+
+                    getContext().actorOf(UserBulkCreatorActor.PROPS(userRepository, organisationRepository, rsaKeyPairPool, userCache, emailTemplateEngine)).forward(msg, getContext());
 
                 }).match(UserFetcherActor.UserFetchMsg.class, msg -> {
 
-                    getContext().actorOf(UserFetcherActor.PROPS(userRepository)).forward(msg, getContext());
+                    userFetcher.forward(msg, getContext());
 
                 }).match(UserServiceCreatorActor.UserServiceCreateMsg.class, msg -> {
 
-                    getContext().actorOf(UserServiceCreatorActor.PROPS(userRepository)).forward(msg, getContext());
+                    getContext().actorOf(UserServiceCreatorActor.PROPS(userRepository, rsaKeyPairPool)).forward(msg, getContext());
 
                 }).match(UserMessage.UserUpdateMessageUser.class, msg -> {
 
-                    getContext().actorOf(UserUpdaterActor.PROPS(userRepository)).forward(msg, getContext());
+                    getContext().actorOf(UserUpdaterActor.PROPS(userRepository, userCache)).forward(msg, getContext());
 
                 }).matchAny(this::unhandled)
                 .build());
 
     }
 
+    /**
+     * Register messages handled by this endpoint in the routing table of the {@link io.kodokojo.database.service.actor.EndpointActor}.
+     */
+    public static EndpointRoutingTable.Builder registerRoutes(EndpointRoutingTable.Builder builder, ActorRef userEndpoint) {
+        return builder.route(UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class, userEndpoint)
+                .route(UserCreatorActor.EventUserCreateMsg.class, userEndpoint)
+                .route(UserBulkCreatorActor.EventUserBulkCreateMsg.class, userEndpoint)
+                .route(UserFetcherActor.UserFetchMsg.class, userEndpoint)
+                .route(UserServiceCreatorActor.UserServiceCreateMsg.class, userEndpoint)
+                .route(UserMessage.UserUpdateMessageUser.class, userEndpoint);
+    }
+
     @Override
     public SupervisorStrategy supervisorStrategy() {
         return new OneForOneStrategy(3, Duration.create(5, TimeUnit.MINUTES), e -> {
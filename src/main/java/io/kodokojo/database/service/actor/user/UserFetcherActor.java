@@ -24,28 +24,37 @@ import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import java.util.Collections;
 import java.util.Set;
-import java.util.stream.Collectors;
 
+/**
+ * Resolve a set of user identifiers, see {@link UserCache#getUsersByIdentifiers(java.util.Collection, UserFetcher)}.
+ * <p>
+ * This is not a multi-get: the store is read once per identifier missing from the cache, as the user repository
+ * of kodokojo-commons only reads users one by one. Fetching the members of a project costs one round trip per member
+ * which is not cached.
+ * </p>
+ */
 public class UserFetcherActor extends AbstractActor {
 
-    public static Props PROPS(UserFetcher userFetcher) {
+    public static Props PROPS(UserFetcher userFetcher, UserCache userCache) {
         if (userFetcher == null) {
             throw new IllegalArgumentException("userFetcher must be defined.");
         }
-        return Props.create(UserFetcherActor.class, userFetcher);
+        if (userCache == null) {
+            throw new IllegalArgumentException("userCache must be defined.");
+        }
+        return Props.create(UserFetcherActor.class, userFetcher, userCache).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
-    public UserFetcherActor(UserFetcher userFetcher) {
+    public UserFetcherActor(UserFetcher userFetcher, UserCache userCache) {
         receive(ReceiveBuilder
                 .match(UserFetchMsg.class, msg -> {
-                    Set<User> users = msg.userIds.stream()
-                            .map(userFetcher::getUserByIdentifier)
-                            .collect(Collectors.toSet());
+                    Set<User> users = userCache.getUsersByIdentifiers(msg.userIds, userFetcher);
                     sender().tell(new UserFetchResultMsg(msg.getRequester(), msg.originalEvent(), msg.userIds, users), self());
-                    getContext().stop(self());
                 })
                 .matchAny(this::unhandled).build());
     }
@@ -62,6 +71,10 @@ public class UserFetcherActor extends AbstractActor {
         public UserFetchMsg(User requester, Event request, String userId) {
             this(requester, request, Collections.singleton(userId));
         }
+
+        public Set<String> getUserIds() {
+            return userIds;
+        }
     }
 
     public static class UserFetchResultMsg extends EventUserRequestMessage {
@@ -24,6 +24,7 @@ import io.kodokojo.commons.event.Event;
 import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
 import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import java.io.Serializable;
 
@@ -36,7 +37,7 @@ public class UserGenerateIdentifierActor extends AbstractActor {
         if (userRepository == null) {
             throw new IllegalArgumentException("userRepository must be defined.");
         }
-        return Props.create(UserGenerateIdentifierActor.class, userRepository);
+        return Props.create(UserGenerateIdentifierActor.class, userRepository).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public UserGenerateIdentifierActor(UserRepository userRepository) {
@@ -48,7 +49,6 @@ public class UserGenerateIdentifierActor extends AbstractActor {
 
             String generateId = userRepository.generateId();
             sender().tell(new UserGenerateIdentifierResultMsg(generateId, msg.originalEvent()), self());
-            getContext().stop(self());
 
         }).matchAny(this::unhandled).build());
     }
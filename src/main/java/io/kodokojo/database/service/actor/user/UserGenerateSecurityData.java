@@ -21,13 +21,18 @@ import akka.actor.AbstractActor;
 import akka.actor.Props;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
-import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import java.math.BigInteger;
 import java.security.KeyPair;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static akka.event.Logging.getLogger;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Generate SSH keys and Secret password.
@@ -36,19 +41,31 @@ public class UserGenerateSecurityData extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
 
-    public static Props PROPS() {
-        return Props.create(UserGenerateSecurityData.class);
+    public static Props PROPS(RsaKeyPairPool rsaKeyPairPool) {
+        requireNonNull(rsaKeyPairPool, "rsaKeyPairPool must be defined.");
+        return Props.create(UserGenerateSecurityData.class, rsaKeyPairPool).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
-    public UserGenerateSecurityData() {
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public UserGenerateSecurityData(RsaKeyPairPool rsaKeyPairPool) {
         receive(ReceiveBuilder.match(GenerateSecurityMsg.class, msg -> {
             LOGGER.debug("Receive a request to generate security data of user.");
-            String password = new BigInteger(130, new SecureRandom()).toString(msg.nbDecimal).substring(0,10);
-            KeyPair keyPair = RSAUtils.generateRsaKeyPair();
-            sender().tell(new UserSecurityDataMsg(password, keyPair), self());
+            sender().tell(new UserSecurityDataMsg(generatePassword(msg.nbDecimal), rsaKeyPairPool.take()), self());
+        }).match(GenerateSecurityBatchMsg.class, msg -> {
+            LOGGER.debug("Receive a request to generate security data of {} users.", msg.count);
+            List<UserSecurityDataMsg> securityData = new ArrayList<>(msg.count);
+            for (int i = 0; i < msg.count; i++) {
+                securityData.add(new UserSecurityDataMsg(generatePassword(msg.nbDecimal), rsaKeyPairPool.take()));
+            }
+            sender().tell(new UserSecurityDataBatchMsg(securityData), self());
         }).matchAny(this::unhandled).build());
     }
 
+    private String generatePassword(int nbDecimal) {
+        return new BigInteger(130, secureRandom).toString(nbDecimal).substring(0, 10);
+    }
+
     public static class GenerateSecurityMsg {
 
         protected final int nbDecimal;
@@ -63,6 +80,22 @@ public class UserGenerateSecurityData extends AbstractActor {
 
     }
 
+    public static class GenerateSecurityBatchMsg {
+
+        protected final int nbDecimal;
+
+        protected final int count;
+
+        public GenerateSecurityBatchMsg(int count) {
+            if (count <= 0) {
+                throw new IllegalArgumentException("count must be greater than 0.");
+            }
+            this.nbDecimal = 32;
+            this.count = count;
+        }
+
+    }
+
     public static class UserSecurityDataMsg {
 
         private final String password;
@@ -83,4 +116,17 @@ public class UserGenerateSecurityData extends AbstractActor {
         }
     }
 
+    public static class UserSecurityDataBatchMsg {
+
+        private final List<UserSecurityDataMsg> securityData;
+
+        public UserSecurityDataBatchMsg(List<UserSecurityDataMsg> securityData) {
+            this.securityData = Collections.unmodifiableList(securityData);
+        }
+
+        public List<UserSecurityDataMsg> getSecurityData() {
+            return securityData;
+        }
+    }
+
 }
@@ -23,6 +23,7 @@ import io.kodokojo.commons.service.actor.message.EventUserReplyMessage;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 
 import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
 
 public interface UserMessage {
 
@@ -40,8 +41,14 @@ public interface UserMessage {
         }
     }
 
+    /**
+     * Request an update of a user. The user may be given only by its identifier, it is then loaded by the
+     * {@link UserUpdaterActor}, off the endpoint actor.
+     */
     class UserUpdateMessageUser extends EventUserRequestMessage {
 
+        private final String userToUpdateIdentifier;
+
         private final User userToUpdate;
 
         private final String newPassword;
@@ -60,8 +67,19 @@ public interface UserMessage {
             this(requester, request, userToUpdate, newPassword, newSSHPublicKey, firstName, lastName, email, false);
         }
         public UserUpdateMessageUser(User requester, Event request, User userToUpdate, String newPassword, String newSSHPublicKey, String firstName, String lastName, String email, boolean comeFromEventBus) {
+            this(requester, request, requireNonNull(userToUpdate, "userToUpdate must be defined.").getIdentifier(), userToUpdate, newPassword, newSSHPublicKey, firstName, lastName, email, comeFromEventBus);
+        }
+
+        public UserUpdateMessageUser(User requester, Event request, String userToUpdateIdentifier, String newPassword, String newSSHPublicKey, String firstName, String lastName, String email, boolean comeFromEventBus) {
+            this(requester, request, userToUpdateIdentifier, null, newPassword, newSSHPublicKey, firstName, lastName, email, comeFromEventBus);
+        }
+
+        private UserUpdateMessageUser(User requester, Event request, String userToUpdateIdentifier, User userToUpdate, String newPassword, String newSSHPublicKey, String firstName, String lastName, String email, boolean comeFromEventBus) {
             super(requester, request);
-            requireNonNull(userToUpdate, "userToUpdate must be defined.");
+            if (isBlank(userToUpdateIdentifier)) {
+                throw new IllegalArgumentException("userToUpdateIdentifier must be defined.");
+            }
+            this.userToUpdateIdentifier = userToUpdateIdentifier;
             this.userToUpdate = userToUpdate;
             this.newPassword = newPassword;
             this.newSSHPublicKey = newSSHPublicKey;
@@ -76,6 +94,13 @@ public interface UserMessage {
             return comeFromEventBus;
         }
 
+        public String getUserToUpdateIdentifier() {
+            return userToUpdateIdentifier;
+        }
+
+        /**
+         * @return The user to update, <code>null</code> if the message only carries its identifier.
+         */
         public User getUserToUpdate() {
             return userToUpdate;
         }
@@ -20,6 +20,8 @@ package io.kodokojo.database.service.actor.user;
 import akka.actor.AbstractActor;
 import akka.actor.ActorRef;
 import akka.actor.Props;
+import akka.actor.ReceiveTimeout;
+import akka.actor.Status;
 import akka.event.LoggingAdapter;
 import akka.japi.pf.ReceiveBuilder;
 import io.kodokojo.commons.event.Event;
@@ -27,6 +29,9 @@ import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.model.UserService;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import io.kodokojo.database.service.actor.ActorDispatchers;
+import io.kodokojo.database.service.actor.SagaTimeout;
 import org.apache.commons.lang.StringUtils;
 
 import java.security.KeyPair;
@@ -41,9 +46,12 @@ public class UserServiceCreatorActor extends AbstractActor {
 
     private final LoggingAdapter LOGGER = getLogger(getContext().system(), this);
 
-    public static Props PROPS(UserRepository userRepository) {
+    public static final String SAGA = "user-service-creator";
+
+    public static Props PROPS(UserRepository userRepository, RsaKeyPairPool rsaKeyPairPool) {
         requireNonNull(userRepository, "userRepository must be defined.");
-        return Props.create(UserServiceCreatorActor.class, userRepository);
+        requireNonNull(rsaKeyPairPool, "rsaKeyPairPool must be defined.");
+        return Props.create(UserServiceCreatorActor.class, userRepository, rsaKeyPairPool).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private final UserRepository userRepository;
@@ -58,14 +66,16 @@ public class UserServiceCreatorActor extends AbstractActor {
 
     private ActorRef originalActor;
 
-    public UserServiceCreatorActor(UserRepository userRepository) {
+    public UserServiceCreatorActor(UserRepository userRepository, RsaKeyPairPool rsaKeyPairPool) {
         requireNonNull(userRepository, "userRepository must be defined.");
+        requireNonNull(rsaKeyPairPool, "rsaKeyPairPool must be defined.");
 
         this.userRepository = userRepository;
         receive(ReceiveBuilder.match(UserServiceCreateMsg.class, u -> {
             originalActor = sender();
             message = u;
-            getContext().actorOf(UserGenerateSecurityData.PROPS()).tell(new UserGenerateSecurityData.GenerateSecurityMsg(), self());
+            SagaTimeout.arm(getContext(), SAGA);
+            getContext().actorOf(UserGenerateSecurityData.PROPS(rsaKeyPairPool)).tell(new UserGenerateSecurityData.GenerateSecurityMsg(), self());
             getContext().actorOf(UserEligibleActor.PROPS(userRepository)).tell(new UserEligibleActor.UserEligibleMsg(u.username), self());
 
         })
@@ -76,10 +86,11 @@ public class UserServiceCreatorActor extends AbstractActor {
                     } else {
                         if (!r.isIdExpected()) {
                             LOGGER.warning("User {} have not expected Id.", message.getUsername());
-                            originalActor.tell(r, self());
-                            getContext().stop(self());
                         }
                         LOGGER.warning("User service account {} not eligible.", message.getUsername());
+                        //  Requester decides what to do with a not eligible account, no other reply will come.
+                        originalActor.tell(r, self());
+                        getContext().stop(self());
                     }
                 })
                 .match(UserGenerateSecurityData.UserSecurityDataMsg.class, msg -> {
@@ -87,6 +98,10 @@ public class UserServiceCreatorActor extends AbstractActor {
                     keyPair = msg.getKeyPair();
                     isReadyToStore();
                 })
+                .match(ReceiveTimeout.class, timeout -> {
+                    originalActor.tell(new Status.Failure(SagaTimeout.abandon(getContext(), SAGA)), self());
+                    getContext().stop(self());
+                })
                 .build());
     }
 
@@ -102,8 +117,10 @@ public class UserServiceCreatorActor extends AbstractActor {
                 originalActor.tell(new UserServiceCreateResultMsg(message.getRequester(), message.originalEvent(), user, keyPair), self());
                 getContext().stop(self());
 
-            } else if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("Unable to store user service {}", user);
+            } else {
+                LOGGER.error("Unable to store user service {}.", message.getUsername());
+                originalActor.tell(new Status.Failure(new IllegalStateException("Unable to store user service " + message.getUsername() + ".")), self());
+                getContext().stop(self());
             }
         } else if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Not yet ready to store the user service.");
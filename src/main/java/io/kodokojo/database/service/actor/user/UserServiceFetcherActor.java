@@ -25,6 +25,7 @@ import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.model.UserService;
 import io.kodokojo.commons.service.actor.message.EventUserRequestMessage;
 import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import java.util.Collections;
 import java.util.Set;
@@ -36,7 +37,7 @@ public class UserServiceFetcherActor extends AbstractActor {
 
     public static Props PROPS(UserFetcher userFetcher) {
         requireNonNull(userFetcher, "userFetcher must be defined.");
-        return Props.create(UserServiceFetcherActor.class, userFetcher);
+        return Props.create(UserServiceFetcherActor.class, userFetcher).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     public UserServiceFetcherActor(UserFetcher userFetcher) {
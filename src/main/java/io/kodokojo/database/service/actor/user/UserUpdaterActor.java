@@ -27,6 +27,8 @@ import io.kodokojo.commons.model.UserBuilder;
 import io.kodokojo.database.service.actor.EndpointActor;
 import io.kodokojo.database.service.actor.project.ProjectUpdaterMessages;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.actor.ActorDispatchers;
 
 import static akka.event.Logging.getLogger;
 import static java.util.Objects.requireNonNull;
@@ -37,8 +39,11 @@ public class UserUpdaterActor extends AbstractActor {
 
     private final UserRepository userRepository;
 
-    public UserUpdaterActor(UserRepository userRepository) {
+    private final UserCache userCache;
+
+    public UserUpdaterActor(UserRepository userRepository, UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
 
         receive(ReceiveBuilder
                 .match(UserMessage.UserUpdateMessageUser.class, this::onUserUpdate)
@@ -47,14 +52,26 @@ public class UserUpdaterActor extends AbstractActor {
         );
     }
 
-    public static Props PROPS(UserRepository userRepository) {
+    public static Props PROPS(UserRepository userRepository, UserCache userCache) {
         requireNonNull(userRepository, "userRepository must be defined.");
-        return Props.create(UserUpdaterActor.class, userRepository);
+        requireNonNull(userCache, "userCache must be defined.");
+        return Props.create(UserUpdaterActor.class, userRepository, userCache).withDispatcher(ActorDispatchers.BLOCKING_IO);
     }
 
     private void onUserUpdate(UserMessage.UserUpdateMessageUser msg) {
-        User oldUser = userRepository.getUserByIdentifier(msg.getUserToUpdate().getIdentifier());
-        UserBuilder builder = new UserBuilder(msg.getUserToUpdate());
+        if (msg.getUserToUpdate() == null) {
+            //  The user may have been changed by another instance, reload it.
+            userCache.invalidate(msg.getUserToUpdateIdentifier());
+        }
+        User oldUser = userCache.getUserByIdentifier(msg.getUserToUpdateIdentifier(), userRepository);
+        User userToUpdate = msg.getUserToUpdate() == null ? oldUser : msg.getUserToUpdate();
+        if (userToUpdate == null) {
+            LOGGER.warning("Unable to update user {}, user not found.", msg.getUserToUpdateIdentifier());
+            sender().tell(new UserMessage.UserUpdateMessageResultUser(msg.getRequester(), msg.originalEvent(), false), self());
+            getContext().stop(self());
+            return;
+        }
+        UserBuilder builder = new UserBuilder(userToUpdate);
         builder.setPassword(msg.getNewPassword())
                 .setSshPublicKey(msg.getNewSSHPublicKey())
                 .setFirstName(msg.getFirstName())
@@ -62,6 +79,7 @@ public class UserUpdaterActor extends AbstractActor {
                 .setEmail(msg.getEmail());
         User user = builder.build();
         userRepository.updateUser(user);
+        userCache.invalidate(user.getIdentifier());
         sender().tell(new UserMessage.UserUpdateMessageResultUser(msg.getRequester(),msg.originalEvent(), true), self());
         getContext().actorFor(EndpointActor.ACTOR_PATH).tell(new ProjectUpdaterMessages.ListAndUpdateUserToProjectMsg(msg.getRequester(), msg.originalEvent(), new UpdateData<>(oldUser, user)), self());
         getContext().stop(self());
@@ -0,0 +1,58 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Deliver emails by batch, which allow an implementation to reuse a single connection for the whole batch.
+ */
+@FunctionalInterface
+public interface EmailBatchSender {
+
+    /**
+     * Send the given emails.
+     * @param emails Emails to send.
+     * @return The number of emails successfully sent.
+     */
+    int send(List<EmailSenderActor.EmailSenderMsg> emails);
+
+    /**
+     * Release the resources held by this sender.
+     */
+    default void stop() {
+        //  Nothing to release by default.
+    }
+
+    /**
+     * Adapt an {@link EmailSender} which sends emails one by one.
+     * @param emailSender The sender to adapt.
+     * @return An EmailBatchSender which sends each email of the batch with the given sender, emails which fail are
+     * logged and not counted as sent.
+     */
+    static EmailBatchSender of(EmailSender emailSender) {
+        requireNonNull(emailSender, "emailSender must be defined.");
+        return new EmailSenderBatchAdapter(emailSender);
+    }
+
+}
@@ -0,0 +1,57 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Send each email of a batch with an {@link EmailSender}. A failing email doesn't prevent the next ones to be sent.
+ */
+class EmailSenderBatchAdapter implements EmailBatchSender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EmailSenderBatchAdapter.class);
+
+    private final EmailSender emailSender;
+
+    EmailSenderBatchAdapter(EmailSender emailSender) {
+        this.emailSender = emailSender;
+    }
+
+    @Override
+    public int send(List<EmailSenderActor.EmailSenderMsg> emails) {
+        int sent = 0;
+        for (EmailSenderActor.EmailSenderMsg email : emails) {
+            try {
+                emailSender.send(email.getTo(), email.getCc(), email.getCi(), email.getSubject(), email.getContent(), email.isHtmlContent(), email.getAttachments());
+                sent++;
+            } catch (RuntimeException e) {
+                LOGGER.error("Unable to send email '{}'.", email.getSubject(), e);
+            }
+        }
+        if (sent < emails.size()) {
+            LOGGER.warn("{} emails of a batch of {} were not sent.", emails.size() - sent, emails.size());
+        }
+        return sent;
+    }
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeConstants;
+import org.apache.velocity.runtime.log.NullLogChute;
+import org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader;
+import org.apache.velocity.runtime.resource.loader.FileResourceLoader;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Render email contents from Velocity templates.
+ * <p>
+ * Templates are loaded from the classpath, unless a template with the same path exists in the override directory.
+ * Each template is parsed once, then kept compiled. Rendering reuses a buffer per thread, only the resulting String is allocated.
+ * </p>
+ */
+public class EmailTemplateEngine {
+
+    public static final String USER_CREATED = "templates/email/user-created.vm";
+
+    private static final String ENCODING = "UTF-8";
+
+    private static final int INITIAL_BUFFER_CAPACITY = 16 * 1024;
+
+    //  Do not keep a buffer grown by an unusually large email.
+    private static final int MAX_BUFFER_CAPACITY = 256 * 1024;
+
+    private final VelocityEngine velocityEngine;
+
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<StringBuilderWriter> buffers = ThreadLocal.withInitial(() -> new StringBuilderWriter(INITIAL_BUFFER_CAPACITY));
+
+    /**
+     * @param overrideDirectory Directory which may contain templates overriding the ones of the classpath, may be blank.
+     */
+    public EmailTemplateEngine(String overrideDirectory) {
+        Properties properties = new Properties();
+        properties.setProperty(RuntimeConstants.RUNTIME_LOG_LOGSYSTEM_CLASS, NullLogChute.class.getName());
+        properties.setProperty(RuntimeConstants.INPUT_ENCODING, ENCODING);
+        properties.setProperty(RuntimeConstants.OUTPUT_ENCODING, ENCODING);
+        if (isBlank(overrideDirectory)) {
+            properties.setProperty(RuntimeConstants.RESOURCE_LOADER, "class");
+        } else {
+            properties.setProperty(RuntimeConstants.RESOURCE_LOADER, "file,class");
+            properties.setProperty("file.resource.loader.class", FileResourceLoader.class.getName());
+            properties.setProperty("file.resource.loader.path", overrideDirectory);
+            properties.setProperty("file.resource.loader.cache", "true");
+        }
+        properties.setProperty("class.resource.loader.class", ClasspathResourceLoader.class.getName());
+        properties.setProperty("class.resource.loader.cache", "true");
+        velocityEngine = new VelocityEngine(properties);
+        velocityEngine.init();
+    }
+
+    /**
+     * Parse the given templates, to fail fast on a missing or invalid template.
+     */
+    public EmailTemplateEngine precompile(String... templateNames) {
+        for (String templateName : templateNames) {
+            getTemplate(templateName);
+        }
+        return this;
+    }
+
+    public String render(String templateName, Map<String, Object> model) {
+        requireNonNull(model, "model must be defined.");
+        Template template = getTemplate(templateName);
+        StringBuilderWriter writer = buffers.get();
+        StringBuilder buffer = writer.getBuilder();
+        buffer.setLength(0);
+        template.merge(new VelocityContext(model), writer);
+        String res = buffer.toString();
+        if (buffer.capacity() > MAX_BUFFER_CAPACITY) {
+            buffers.remove();
+        }
+        return res;
+    }
+
+    private Template getTemplate(String templateName) {
+        if (isBlank(templateName)) {
+            throw new IllegalArgumentException("templateName must be defined.");
+        }
+        return templates.computeIfAbsent(templateName, name -> velocityEngine.getTemplate(name, ENCODING));
+    }
+
+}
@@ -0,0 +1,80 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Multipart;
+import javax.mail.Session;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeBodyPart;
+import javax.mail.internet.MimeMessage;
+import javax.mail.internet.MimeMultipart;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Build the MIME message of an email, shared by the batch senders which write messages themselves.
+ */
+final class MimeMessages {
+
+    private MimeMessages() {
+        //  Utility class.
+    }
+
+    static MimeMessage create(Session session, String from, EmailSenderActor.EmailSenderMsg email) throws MessagingException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(from));
+        addRecipients(message, Message.RecipientType.TO, email.getTo());
+        addRecipients(message, Message.RecipientType.CC, email.getCc());
+        addRecipients(message, Message.RecipientType.BCC, email.getCi());
+        message.setSubject(email.getSubject(), "UTF-8");
+
+        MimeBodyPart body = new MimeBodyPart();
+        if (email.isHtmlContent()) {
+            body.setContent(email.getContent(), "text/html; charset=UTF-8");
+        } else {
+            body.setText(email.getContent(), "UTF-8");
+        }
+        Multipart multipart = new MimeMultipart();
+        multipart.addBodyPart(body);
+        Set<EmailSender.Attachment> attachments = email.getAttachments();
+        if (attachments != null) {
+            for (EmailSender.Attachment attachment : attachments) {
+                MimeBodyPart part = new MimeBodyPart();
+                part.setText(String.valueOf(attachment.getContent()), "UTF-8");
+                part.setFileName(attachment.getName());
+                multipart.addBodyPart(part);
+            }
+        }
+        message.setContent(multipart);
+        return message;
+    }
+
+    private static void addRecipients(MimeMessage message, Message.RecipientType type, Collection<String> addresses) throws MessagingException {
+        if (addresses != null) {
+            for (String address : addresses) {
+                message.addRecipient(type, new InternetAddress(address));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Send batches of emails over the persistent connections of a {@link SmtpSessionPool}.
+ */
+public class PooledSmtpEmailSender implements EmailBatchSender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledSmtpEmailSender.class);
+
+    private final SmtpSessionPool smtpSessionPool;
+
+    private final String from;
+
+    public PooledSmtpEmailSender(SmtpSessionPool smtpSessionPool, String from) {
+        requireNonNull(smtpSessionPool, "smtpSessionPool must be defined.");
+        if (isBlank(from)) {
+            throw new IllegalArgumentException("from must be defined.");
+        }
+        this.smtpSessionPool = smtpSessionPool;
+        this.from = from;
+    }
+
+    @Override
+    public int send(List<EmailSenderActor.EmailSenderMsg> emails) {
+        requireNonNull(emails, "emails must be defined.");
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        for (EmailSenderActor.EmailSenderMsg email : emails) {
+            try {
+                messages.add(MimeMessages.create(smtpSessionPool.getSession(), from, email));
+            } catch (MessagingException e) {
+                LOGGER.error("Unable to build email '{}'.", email.getSubject(), e);
+            }
+        }
+        try {
+            return smtpSessionPool.send(messages);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+
+    @Override
+    public void stop() {
+        smtpSessionPool.stop();
+    }
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.model.RawMessage;
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Properties;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Send batches of emails through Amazon SES, every batch reuses the same SES client and its connections.
+ */
+public class SesEmailBatchSender implements EmailBatchSender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SesEmailBatchSender.class);
+
+    private final AmazonSimpleEmailService amazonSimpleEmailService;
+
+    private final String from;
+
+    private final Session session;
+
+    public SesEmailBatchSender(AmazonSimpleEmailService amazonSimpleEmailService, String from) {
+        requireNonNull(amazonSimpleEmailService, "amazonSimpleEmailService must be defined.");
+        if (isBlank(from)) {
+            throw new IllegalArgumentException("from must be defined.");
+        }
+        this.amazonSimpleEmailService = amazonSimpleEmailService;
+        this.from = from;
+        this.session = Session.getInstance(new Properties());
+    }
+
+    @Override
+    public int send(List<EmailSenderActor.EmailSenderMsg> emails) {
+        requireNonNull(emails, "emails must be defined.");
+        int sent = 0;
+        for (EmailSenderActor.EmailSenderMsg email : emails) {
+            try {
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                MimeMessages.create(session, from, email).writeTo(output);
+                amazonSimpleEmailService.sendRawEmail(new SendRawEmailRequest(new RawMessage(ByteBuffer.wrap(output.toByteArray()))));
+                sent++;
+            } catch (MessagingException | IOException | AmazonClientException e) {
+                LOGGER.error("Unable to send email '{}'.", email.getSubject(), e);
+            }
+        }
+        if (sent < emails.size()) {
+            LOGGER.warn("{} emails of a batch of {} were not sent.", emails.size() - sent, emails.size());
+        }
+        return sent;
+    }
+
+    @Override
+    public void stop() {
+        amazonSimpleEmailService.shutdown();
+    }
+
+}
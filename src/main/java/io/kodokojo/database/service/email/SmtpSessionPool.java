@@ -0,0 +1,134 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.MessagingException;
+import javax.mail.NoSuchProviderException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Fixed size pool of SMTP transports which stay connected between two sends.
+ * <p>
+ * A transport is borrowed for a whole batch of messages, then given back still connected.
+ * A transport closed by the server is reconnected on its next use.
+ * </p>
+ */
+public class SmtpSessionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SmtpSessionPool.class);
+
+    private final Session session;
+
+    private final String username;
+
+    private final String password;
+
+    private final BlockingQueue<Transport> transports;
+
+    public SmtpSessionPool(String host, int port, String username, String password, boolean startTls, int size) {
+        if (isBlank(host)) {
+            throw new IllegalArgumentException("host must be defined.");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be greater than 0.");
+        }
+        this.username = username;
+        this.password = password;
+
+        Properties properties = new Properties();
+        properties.put("mail.smtp.host", host);
+        properties.put("mail.smtp.port", Integer.toString(port));
+        properties.put("mail.smtp.auth", Boolean.toString(!isBlank(username)));
+        properties.put("mail.smtp.starttls.enable", Boolean.toString(startTls));
+        session = Session.getInstance(properties);
+
+        transports = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                transports.add(session.getTransport("smtp"));
+            }
+        } catch (NoSuchProviderException e) {
+            throw new IllegalStateException("Unable to create SMTP transport.", e);
+        }
+    }
+
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Send messages on a single pooled transport, blocking until one is available.
+     * @param messages Messages to send.
+     * @return The number of messages successfully sent.
+     */
+    public int send(List<MimeMessage> messages) throws InterruptedException {
+        Transport transport = transports.take();
+        try {
+            int sent = 0;
+            for (MimeMessage message : messages) {
+                if (send(transport, message)) {
+                    sent++;
+                }
+            }
+            return sent;
+        } finally {
+            transports.add(transport);
+        }
+    }
+
+    private boolean send(Transport transport, MimeMessage message) {
+        //  A single retry, on a fresh connection, in case the server closed the previous one.
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                if (!transport.isConnected()) {
+                    transport.connect(username, password);
+                }
+                transport.sendMessage(message, message.getAllRecipients());
+                return true;
+            } catch (MessagingException e) {
+                LOGGER.warn("Unable to send email on attempt {}: {}", attempt + 1, e.getMessage());
+                close(transport);
+            }
+        }
+        return false;
+    }
+
+    public void stop() {
+        transports.forEach(SmtpSessionPool::close);
+    }
+
+    private static void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            LOGGER.debug("Unable to close SMTP transport.", e);
+        }
+    }
+
+}
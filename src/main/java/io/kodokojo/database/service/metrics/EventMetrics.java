@@ -0,0 +1,184 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.metrics;
+
+import io.kodokojo.commons.event.Event;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Measure events handled by an endpoint, per event type: received count, latency from receipt to reply and errors.
+ * <p>
+ * Events waiting for a reply are tracked by identity up to a maximum count, the oldest ones are then dropped and
+ * counted as unreplied. Fire and forget events are only counted.
+ * </p>
+ */
+public class EventMetrics {
+
+    public static final String RECEIVED_COUNTER = "kodokojo_event_received_total";
+
+    public static final String REPLY_LATENCY_HISTOGRAM = "kodokojo_event_reply_latency_seconds";
+
+    public static final String ERROR_COUNTER = "kodokojo_event_errors_total";
+
+    public static final String UNREPLIED_COUNTER = "kodokojo_event_unreplied_total";
+
+    public static final String IN_FLIGHT_GAUGE = "kodokojo_event_in_flight";
+
+    public static final String EVENT_TYPE_LABEL = "event_type";
+
+    public static final String REASON_LABEL = "reason";
+
+    public static final String CONVERSION_FAILED = "conversion_failed";
+
+    public static final String UNHANDLED = "unhandled";
+
+    /**
+     * The handler answered with a <code>Status.Failure</code>.
+     */
+    public static final String REPLY_FAILED = "reply_failed";
+
+    /**
+     * No reply came in time, or the saga which handled the event gave up waiting.
+     */
+    public static final String TIMED_OUT = "timed_out";
+
+    /**
+     * The event was rejected by a full endpoint mailbox.
+     */
+    public static final String SHED = "shed";
+
+    private final MetricsRegistry metricsRegistry;
+
+    private final int maxInFlight;
+
+    private final Map<EventIdentity, Long> inFlight;
+
+    private final ConcurrentMap<String, EventTypeMetrics> eventTypeMetrics = new ConcurrentHashMap<>();
+
+    public EventMetrics(MetricsRegistry metricsRegistry, int maxInFlight) {
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0.");
+        }
+        this.metricsRegistry = metricsRegistry;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new LinkedHashMap<EventIdentity, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<EventIdentity, Long> eldest) {
+                boolean remove = size() > EventMetrics.this.maxInFlight;
+                if (remove) {
+                    metricsOf(eldest.getKey().event).unreplied.increment();
+                }
+                return remove;
+            }
+        };
+        metricsRegistry.gauge(IN_FLIGHT_GAUGE, this::inFlight);
+    }
+
+    public void received(Event event) {
+        received(event, true);
+    }
+
+    /**
+     * Count a received event.
+     * @param event The received event.
+     * @param replyExpected <code>false</code> for fire and forget events, their latency is not measured as no reply
+     *                      event will ever release them.
+     */
+    public void received(Event event, boolean replyExpected) {
+        metricsOf(event).received.increment();
+        if (replyExpected) {
+            synchronized (inFlight) {
+                inFlight.put(new EventIdentity(event), System.nanoTime());
+            }
+        }
+    }
+
+    public void replied(Event event) {
+        Long receivedAt;
+        synchronized (inFlight) {
+            receivedAt = inFlight.remove(new EventIdentity(event));
+        }
+        if (receivedAt != null) {
+            metricsOf(event).replyLatency.observeNanos(System.nanoTime() - receivedAt);
+        }
+    }
+
+    public void failed(Event event, String reason) {
+        synchronized (inFlight) {
+            inFlight.remove(new EventIdentity(event));
+        }
+        metricsRegistry.counter(ERROR_COUNTER, EVENT_TYPE_LABEL, event.getEventType(), REASON_LABEL, reason).increment();
+    }
+
+    public int inFlight() {
+        synchronized (inFlight) {
+            return inFlight.size();
+        }
+    }
+
+    private EventTypeMetrics metricsOf(Event event) {
+        String eventType = event.getEventType() == null ? "" : event.getEventType();
+        return eventTypeMetrics.computeIfAbsent(eventType, type -> new EventTypeMetrics(metricsRegistry, type));
+    }
+
+    private static class EventTypeMetrics {
+
+        private final LongAdder received;
+
+        private final LongAdder unreplied;
+
+        private final MetricsRegistry.Histogram replyLatency;
+
+        EventTypeMetrics(MetricsRegistry metricsRegistry, String eventType) {
+            received = metricsRegistry.counter(RECEIVED_COUNTER, EVENT_TYPE_LABEL, eventType);
+            unreplied = metricsRegistry.counter(UNREPLIED_COUNTER, EVENT_TYPE_LABEL, eventType);
+            replyLatency = metricsRegistry.histogram(REPLY_LATENCY_HISTOGRAM, EVENT_TYPE_LABEL, eventType);
+        }
+    }
+
+    /**
+     * Events are matched by identity, the reply carries the event instance which had been received.
+     */
+    private static class EventIdentity {
+
+        private final Event event;
+
+        EventIdentity(Event event) {
+            this.event = event;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof EventIdentity && ((EventIdentity) o).event == event;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(event);
+        }
+    }
+
+}
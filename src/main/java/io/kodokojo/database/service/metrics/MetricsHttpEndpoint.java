@@ -0,0 +1,48 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.metrics;
+
+import spark.Spark;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publish the metrics in the Prometheus text format on the HTTP server of the health check endpoint.
+ * Must be started once the {@link io.kodokojo.commons.service.healthcheck.HttpHealthCheckEndpoint} is started.
+ */
+public class MetricsHttpEndpoint {
+
+    public static final String PATH = "/metrics";
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metricsRegistry;
+
+    public MetricsHttpEndpoint(MetricsRegistry metricsRegistry) {
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    public void start() {
+        Spark.get(PATH, (request, response) -> {
+            response.type(CONTENT_TYPE);
+            return metricsRegistry.toPrometheusText();
+        });
+    }
+
+}
@@ -0,0 +1,219 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Hold runtime metrics of the service: monotonic counters, gauges evaluated on read and latency histograms.
+ * <p>
+ * Each metric may be declined by labels, given as name/value pairs, e.g. <code>counter("events_total", "event_type", type)</code>.
+ * </p>
+ */
+public class MetricsRegistry {
+
+    private final ConcurrentMap<MetricKey, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<MetricKey, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<MetricKey, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name, String... labels) {
+        return counters.computeIfAbsent(new MetricKey(name, labels), key -> new LongAdder());
+    }
+
+    public void gauge(String name, Supplier<? extends Number> supplier, String... labels) {
+        requireNonNull(supplier, "supplier must be defined.");
+        gauges.put(new MetricKey(name, labels), supplier);
+    }
+
+    public Histogram histogram(String name, String... labels) {
+        return histograms.computeIfAbsent(new MetricKey(name, labels), key -> new Histogram());
+    }
+
+    public Map<String, Long> counters() {
+        Map<String, Long> res = new TreeMap<>();
+        counters.forEach((key, counter) -> res.put(key.toString(), counter.sum()));
+        return Collections.unmodifiableMap(res);
+    }
+
+    public Map<String, Number> gauges() {
+        Map<String, Number> res = new TreeMap<>();
+        gauges.forEach((key, supplier) -> res.put(key.toString(), supplier.get()));
+        return Collections.unmodifiableMap(res);
+    }
+
+    public Map<String, Histogram> histograms() {
+        Map<String, Histogram> res = new TreeMap<>();
+        histograms.forEach((key, histogram) -> res.put(key.toString(), histogram));
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * Render all metrics in the Prometheus text exposition format.
+     * @return Metrics as text, grouped by metric name.
+     */
+    public String toPrometheusText() {
+        Map<String, StringBuilder> families = new TreeMap<>();
+        counters.forEach((key, counter) -> family(families, key.name, "counter")
+                .append(key).append(' ').append(counter.sum()).append('\n'));
+        gauges.forEach((key, supplier) -> family(families, key.name, "gauge")
+                .append(key).append(' ').append(supplier.get()).append('\n'));
+        histograms.forEach((key, histogram) -> {
+            StringBuilder family = family(families, key.name, "histogram");
+            long[] counts = histogram.cumulativeCounts();
+            for (int i = 0; i < Histogram.BUCKETS.length; i++) {
+                family.append(key.withSuffixAndLabel("_bucket", "le", Double.toString(Histogram.BUCKETS[i]))).append(' ').append(counts[i]).append('\n');
+            }
+            family.append(key.withSuffixAndLabel("_bucket", "le", "+Inf")).append(' ').append(histogram.count()).append('\n');
+            family.append(key.withSuffix("_sum")).append(' ').append(histogram.sum()).append('\n');
+            family.append(key.withSuffix("_count")).append(' ').append(histogram.count()).append('\n');
+        });
+        StringBuilder res = new StringBuilder();
+        families.values().forEach(res::append);
+        return res.toString();
+    }
+
+    private static StringBuilder family(Map<String, StringBuilder> families, String name, String type) {
+        return families.computeIfAbsent(name, n -> new StringBuilder("# TYPE ").append(n).append(' ').append(type).append('\n'));
+    }
+
+    /**
+     * Latency histogram with fixed buckets, in seconds.
+     */
+    public static class Histogram {
+
+        static final double[] BUCKETS = {0.001, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length];
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder sumNanos = new LongAdder();
+
+        Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        public void observeNanos(long nanos) {
+            double seconds = nanos / 1e9;
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (seconds <= BUCKETS[i]) {
+                    buckets[i].increment();
+                    break;
+                }
+            }
+            count.increment();
+            sumNanos.add(nanos);
+        }
+
+        public long count() {
+            return count.sum();
+        }
+
+        public double sum() {
+            return sumNanos.sum() / 1e9;
+        }
+
+        long[] cumulativeCounts() {
+            long[] res = new long[buckets.length];
+            long total = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                total += buckets[i].sum();
+                res[i] = total;
+            }
+            return res;
+        }
+    }
+
+    private static class MetricKey {
+
+        private final String name;
+
+        private final String[] labels;
+
+        private final String rendered;
+
+        MetricKey(String name, String[] labels) {
+            if (isBlank(name)) {
+                throw new IllegalArgumentException("name must be defined.");
+            }
+            requireNonNull(labels, "labels must be defined.");
+            if (labels.length % 2 != 0) {
+                throw new IllegalArgumentException("labels must be defined as name/value pairs.");
+            }
+            this.name = name;
+            this.labels = labels;
+            this.rendered = render(name, labels);
+        }
+
+        String withSuffix(String suffix) {
+            return render(name + suffix, labels);
+        }
+
+        String withSuffixAndLabel(String suffix, String labelName, String labelValue) {
+            String[] extended = new String[labels.length + 2];
+            System.arraycopy(labels, 0, extended, 0, labels.length);
+            extended[labels.length] = labelName;
+            extended[labels.length + 1] = labelValue;
+            return render(name + suffix, extended);
+        }
+
+        private static String render(String name, String[] labels) {
+            if (labels.length == 0) {
+                return name;
+            }
+            StringBuilder res = new StringBuilder(name).append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    res.append(',');
+                }
+                String value = labels[i + 1] == null ? "" : labels[i + 1];
+                res.append(labels[i]).append("=\"").append(value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n")).append('"');
+            }
+            return res.append('}').toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof MetricKey && rendered.equals(((MetricKey) o).rendered));
+        }
+
+        @Override
+        public int hashCode() {
+            return rendered.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return rendered;
+        }
+    }
+
+}
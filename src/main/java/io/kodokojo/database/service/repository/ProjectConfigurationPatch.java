@@ -0,0 +1,241 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.repository;
+
+import io.kodokojo.commons.model.BrickConfiguration;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.ProjectConfigurationBuilder;
+import io.kodokojo.commons.model.StackConfiguration;
+import io.kodokojo.commons.model.User;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Change to apply on a {@link ProjectConfiguration}, expressed as deltas: users to add or remove, brick properties to
+ * set and stacks to replace. It is applied by a {@link ProjectConfigurationPatcher} on the loaded configuration.
+ * <p>
+ * A patch is carried by a sharded entity message, so it may be sent to the node which owns its project configuration.
+ * </p>
+ */
+public class ProjectConfigurationPatch implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String projectConfigurationId;
+
+    private final List<User> usersToAdd;
+
+    private final Set<String> userIdsToRemove;
+
+    private final List<BrickPropertiesChange> brickPropertiesChanges;
+
+    private final List<StackConfiguration> stacksToReplace;
+
+    private ProjectConfigurationPatch(Builder builder) {
+        this.projectConfigurationId = builder.projectConfigurationId;
+        this.usersToAdd = Collections.unmodifiableList(new ArrayList<>(builder.usersToAdd));
+        this.userIdsToRemove = Collections.unmodifiableSet(new LinkedHashSet<>(builder.userIdsToRemove));
+        this.brickPropertiesChanges = Collections.unmodifiableList(new ArrayList<>(builder.brickPropertiesChanges));
+        this.stacksToReplace = Collections.unmodifiableList(new ArrayList<>(builder.stacksToReplace));
+    }
+
+    public static Builder builder(String projectConfigurationId) {
+        return new Builder(projectConfigurationId);
+    }
+
+    public String getProjectConfigurationId() {
+        return projectConfigurationId;
+    }
+
+    public List<User> getUsersToAdd() {
+        return usersToAdd;
+    }
+
+    public Set<String> getUserIdsToRemove() {
+        return userIdsToRemove;
+    }
+
+    public List<BrickPropertiesChange> getBrickPropertiesChanges() {
+        return brickPropertiesChanges;
+    }
+
+    public List<StackConfiguration> getStacksToReplace() {
+        return stacksToReplace;
+    }
+
+    public boolean isEmpty() {
+        return usersToAdd.isEmpty() && userIdsToRemove.isEmpty() && brickPropertiesChanges.isEmpty() && stacksToReplace.isEmpty();
+    }
+
+    /**
+     * Apply this patch on a loaded configuration, stacks and brick properties of the given configuration are modified in place.
+     * @param projectConfiguration The current configuration.
+     * @return The patched configuration, or an empty Optional if the patch doesn't change anything.
+     */
+    public Optional<ProjectConfiguration> applyTo(ProjectConfiguration projectConfiguration) {
+        requireNonNull(projectConfiguration, "projectConfiguration must be defined.");
+        boolean changed = false;
+        for (StackConfiguration stack : stacksToReplace) {
+            Collection<StackConfiguration> stacks = projectConfiguration.getStackConfigurations();
+            stacks.removeIf(existing -> existing.getName().equals(stack.getName()));
+            stacks.add(stack);
+            changed = true;
+        }
+        for (BrickPropertiesChange brickPropertiesChange : brickPropertiesChanges) {
+            changed |= brickPropertiesChange.applyTo(projectConfiguration);
+        }
+        if (!usersToAdd.isEmpty() || !userIdsToRemove.isEmpty()) {
+            Map<String, User> users = new LinkedHashMap<>();
+            Iterator<User> iterator = projectConfiguration.getUsers();
+            while (iterator.hasNext()) {
+                User user = iterator.next();
+                users.put(user.getIdentifier(), user);
+            }
+            boolean usersChanged = false;
+            for (User user : usersToAdd) {
+                usersChanged |= users.putIfAbsent(user.getIdentifier(), user) == null;
+            }
+            for (String userId : userIdsToRemove) {
+                usersChanged |= users.remove(userId) != null;
+            }
+            if (usersChanged) {
+                ProjectConfigurationBuilder builder = new ProjectConfigurationBuilder(projectConfiguration);
+                builder.setUsers(new ArrayList<>(users.values()));
+                return Optional.of(builder.build());
+            }
+        }
+        return changed ? Optional.of(projectConfiguration) : Optional.empty();
+    }
+
+    public static class BrickPropertiesChange implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String stackName;
+
+        private final String brickName;
+
+        private final Map<String, Serializable> properties;
+
+        public BrickPropertiesChange(String stackName, String brickName, Map<String, Serializable> properties) {
+            if (isBlank(stackName)) {
+                throw new IllegalArgumentException("stackName must be defined.");
+            }
+            if (isBlank(brickName)) {
+                throw new IllegalArgumentException("brickName must be defined.");
+            }
+            requireNonNull(properties, "properties must be defined.");
+            this.stackName = stackName;
+            this.brickName = brickName;
+            this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+        }
+
+        public String getStackName() {
+            return stackName;
+        }
+
+        public String getBrickName() {
+            return brickName;
+        }
+
+        public Map<String, Serializable> getProperties() {
+            return properties;
+        }
+
+        private boolean applyTo(ProjectConfiguration projectConfiguration) {
+            Optional<BrickConfiguration> brickConfiguration = projectConfiguration.getStackConfigurations().stream()
+                    .filter(s -> s.getName().equals(stackName))
+                    .findFirst()
+                    .flatMap(s -> s.getBrickConfigurations().stream().filter(b -> b.getName().equals(brickName)).findFirst());
+            if (!brickConfiguration.isPresent()) {
+                return false;
+            }
+            Map<String, Serializable> current = brickConfiguration.get().getProperties();
+            boolean changed = false;
+            for (Map.Entry<String, Serializable> entry : properties.entrySet()) {
+                if (!Objects.equals(current.get(entry.getKey()), entry.getValue())) {
+                    current.put(entry.getKey(), entry.getValue());
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+
+    public static class Builder {
+
+        private final String projectConfigurationId;
+
+        private final List<User> usersToAdd = new ArrayList<>();
+
+        private final Set<String> userIdsToRemove = new LinkedHashSet<>();
+
+        private final List<BrickPropertiesChange> brickPropertiesChanges = new ArrayList<>();
+
+        private final List<StackConfiguration> stacksToReplace = new ArrayList<>();
+
+        private Builder(String projectConfigurationId) {
+            if (isBlank(projectConfigurationId)) {
+                throw new IllegalArgumentException("projectConfigurationId must be defined.");
+            }
+            this.projectConfigurationId = projectConfigurationId;
+        }
+
+        public Builder addUsers(Collection<User> users) {
+            requireNonNull(users, "users must be defined.");
+            usersToAdd.addAll(users);
+            return this;
+        }
+
+        public Builder removeUsers(Collection<String> userIds) {
+            requireNonNull(userIds, "userIds must be defined.");
+            userIdsToRemove.addAll(userIds);
+            return this;
+        }
+
+        public Builder setBrickProperties(String stackName, String brickName, Map<String, Serializable> properties) {
+            brickPropertiesChanges.add(new BrickPropertiesChange(stackName, brickName, properties));
+            return this;
+        }
+
+        public Builder replaceStack(StackConfiguration stackConfiguration) {
+            requireNonNull(stackConfiguration, "stackConfiguration must be defined.");
+            stacksToReplace.add(stackConfiguration);
+            return this;
+        }
+
+        public ProjectConfigurationPatch build() {
+            return new ProjectConfigurationPatch(this);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.repository;
+
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Apply a {@link ProjectConfigurationPatch} on the stored project configuration.
+ * <p>
+ * The configuration is always loaded and rewritten as a whole, the patch only avoids the write when it changes nothing.
+ * </p>
+ */
+@FunctionalInterface
+public interface ProjectConfigurationPatcher {
+
+    /**
+     * @return <code>false</code> if the project configuration doesn't exist.
+     */
+    boolean applyPatch(ProjectConfigurationPatch patch);
+
+    /**
+     * Provide a patcher for the given ProjectRepository. The configuration is loaded, patched, then written only if
+     * the patch changes it.
+     * @param projectRepository The ProjectRepository to wrap.
+     * @return A ProjectConfigurationPatcher backed by the given ProjectRepository.
+     */
+    static ProjectConfigurationPatcher of(ProjectRepository projectRepository) {
+        requireNonNull(projectRepository, "projectRepository must be defined.");
+        return patch -> {
+            requireNonNull(patch, "patch must be defined.");
+            ProjectConfiguration projectConfiguration = projectRepository.getProjectConfigurationById(patch.getProjectConfigurationId());
+            if (projectConfiguration == null) {
+                return false;
+            }
+            Optional<ProjectConfiguration> patched = patch.applyTo(projectConfiguration);
+            patched.ifPresent(projectRepository::updateProjectConfiguration);
+            return true;
+        };
+    }
+
+}
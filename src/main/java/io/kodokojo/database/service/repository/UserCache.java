@@ -0,0 +1,248 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded read-through cache of users, shared by the actors which resolve users by identifier.
+ * <p>
+ * Entries are evicted on the least recently used basis when the cache is full, and expire after the given time to live.
+ * Each write on a user from this service must be followed by an {@link #invalidate(String)}. A max size of 0 disable
+ * the cache, all reads then go to the backing store.
+ * </p>
+ * <p>
+ * A read-through load takes the invalidation generation of its user before reading the store, the loaded user is only
+ * cached if no invalidation happened meanwhile, so a load racing with a write can't cache the previous state.
+ * Generations are kept per stripe of identifiers, an invalidation may then skip the caching of another user's load.
+ * </p>
+ */
+public class UserCache {
+
+    public static final String HIT_COUNTER = "user_cache_hit_total";
+
+    public static final String MISS_COUNTER = "user_cache_miss_total";
+
+    public static final String EVICTION_COUNTER = "user_cache_eviction_total";
+
+    public static final String SIZE_GAUGE = "user_cache_size";
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries;
+
+    //  Invalidation generation of each stripe of identifiers, guarded by entries.
+    private final long[] invalidations = new long[INVALIDATION_STRIPES];
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    public UserCache(int maxSize, long ttl, TimeUnit ttlUnit, MetricsRegistry metricsRegistry) {
+        this(maxSize, ttl, ttlUnit, metricsRegistry, System::nanoTime);
+    }
+
+    UserCache(int maxSize, long ttl, TimeUnit ttlUnit, MetricsRegistry metricsRegistry, LongSupplier clock) {
+        requireNonNull(ttlUnit, "ttlUnit must be defined.");
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        requireNonNull(clock, "clock must be defined.");
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must be positive.");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be greater than 0.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlUnit.toNanos(ttl);
+        this.clock = clock;
+        this.hits = metricsRegistry.counter(HIT_COUNTER);
+        this.misses = metricsRegistry.counter(MISS_COUNTER);
+        this.evictions = metricsRegistry.counter(EVICTION_COUNTER);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                boolean remove = size() > UserCache.this.maxSize;
+                if (remove) {
+                    evictions.increment();
+                }
+                return remove;
+            }
+        };
+        metricsRegistry.gauge(SIZE_GAUGE, this::size);
+    }
+
+    /**
+     * Provide a user from the cache, or from the given UserFetcher if absent or expired.
+     * @param identifier Identifier of the user.
+     * @param userFetcher Backing store used on a cache miss.
+     * @return The user, or <code>null</code> if unknown.
+     */
+    public User getUserByIdentifier(String identifier, UserFetcher userFetcher) {
+        requireNonNull(userFetcher, "userFetcher must be defined.");
+        User user = lookup(identifier);
+        if (user == null) {
+            long generation = invalidationGeneration(identifier);
+            user = userFetcher.getUserByIdentifier(identifier);
+            putLoaded(user, generation);
+        }
+        return user;
+    }
+
+    /**
+     * Provide users from the cache, the missing ones are fetched from the given UserFetcher, once per identifier.
+     * Each missing user costs a read of the store, only cached users and repeated identifiers are spared.
+     * @param identifiers Identifiers of the users.
+     * @param userFetcher Backing store used for the cache misses.
+     * @return Known users.
+     */
+    public Set<User> getUsersByIdentifiers(Collection<String> identifiers, UserFetcher userFetcher) {
+        requireNonNull(identifiers, "identifiers must be defined.");
+        requireNonNull(userFetcher, "userFetcher must be defined.");
+        Set<User> res = new HashSet<>();
+        Set<String> missing = new HashSet<>();
+        for (String identifier : identifiers) {
+            User user = lookup(identifier);
+            if (user == null) {
+                missing.add(identifier);
+            } else {
+                res.add(user);
+            }
+        }
+        for (String identifier : missing) {
+            long generation = invalidationGeneration(identifier);
+            User user = userFetcher.getUserByIdentifier(identifier);
+            if (user != null) {
+                putLoaded(user, generation);
+                res.add(user);
+            }
+        }
+        return res;
+    }
+
+    public void put(User user) {
+        if (maxSize > 0 && user != null && user.getIdentifier() != null) {
+            synchronized (entries) {
+                entries.put(user.getIdentifier(), new Entry(user, clock.getAsLong() + ttlNanos));
+            }
+        }
+    }
+
+    public void invalidate(String identifier) {
+        if (maxSize > 0 && identifier != null) {
+            synchronized (entries) {
+                invalidations[stripe(identifier)]++;
+                entries.remove(identifier);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            for (int i = 0; i < invalidations.length; i++) {
+                invalidations[i]++;
+            }
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long invalidationGeneration(String identifier) {
+        if (identifier == null) {
+            return 0;
+        }
+        synchronized (entries) {
+            return invalidations[stripe(identifier)];
+        }
+    }
+
+    /**
+     * Cache a user loaded from the store, unless it was invalidated since the given generation was taken.
+     */
+    private void putLoaded(User user, long generation) {
+        if (maxSize > 0 && user != null && user.getIdentifier() != null) {
+            synchronized (entries) {
+                if (invalidations[stripe(user.getIdentifier())] == generation) {
+                    entries.put(user.getIdentifier(), new Entry(user, clock.getAsLong() + ttlNanos));
+                }
+            }
+        }
+    }
+
+    private static int stripe(String identifier) {
+        return (identifier.hashCode() & Integer.MAX_VALUE) % INVALIDATION_STRIPES;
+    }
+
+    private User lookup(String identifier) {
+        if (maxSize == 0 || identifier == null) {
+            misses.increment();
+            return null;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(identifier);
+            if (entry != null && entry.expireAt - clock.getAsLong() > 0) {
+                hits.increment();
+                return entry.user;
+            }
+            if (entry != null) {
+                entries.remove(identifier);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private static class Entry {
+
+        private final User user;
+
+        private final long expireAt;
+
+        Entry(User user, long expireAt) {
+            this.user = user;
+            this.expireAt = expireAt;
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.security;
+
+import io.kodokojo.commons.RSAUtils;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keep a pool of pre-generated RSA key pairs to avoid generating them on the actor dispatcher.
+ * <p>
+ * A background thread fills the pool up to its size each time the pool depth reaches the low watermark.
+ * When the pool is empty, the key pair is generated inline. A pool size of 0 disable the pool.
+ * </p>
+ */
+public class RsaKeyPairPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RsaKeyPairPool.class);
+
+    public static final String DEPTH_GAUGE = "rsa_keypair_pool_depth";
+
+    public static final String REFILL_RATE_GAUGE = "rsa_keypair_pool_refill_per_second";
+
+    public static final String GENERATED_COUNTER = "rsa_keypair_pool_generated_total";
+
+    public static final String SERVED_COUNTER = "rsa_keypair_pool_served_total";
+
+    public static final String INLINE_COUNTER = "rsa_keypair_pool_inline_generated_total";
+
+    private final BlockingQueue<KeyPair> pool;
+
+    private final int lowWatermark;
+
+    private final ExecutorService refiller;
+
+    private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+    private final AtomicLong refillRate = new AtomicLong(0);
+
+    private final LongAdder generated;
+
+    private final LongAdder served;
+
+    private final LongAdder inlineGenerated;
+
+    private volatile boolean stopped = false;
+
+    public RsaKeyPairPool(int size, int lowWatermark, MetricsRegistry metricsRegistry) {
+        requireNonNull(metricsRegistry, "metricsRegistry must be defined.");
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be positive.");
+        }
+        if (lowWatermark < 0 || (size > 0 && lowWatermark >= size)) {
+            throw new IllegalArgumentException("lowWatermark must be positive and lower than size.");
+        }
+        this.pool = size > 0 ? new ArrayBlockingQueue<>(size) : null;
+        this.lowWatermark = lowWatermark;
+        this.refiller = size > 0 ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rsa-keypair-pool-refiller");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }) : null;
+        this.generated = metricsRegistry.counter(GENERATED_COUNTER);
+        this.served = metricsRegistry.counter(SERVED_COUNTER);
+        this.inlineGenerated = metricsRegistry.counter(INLINE_COUNTER);
+        metricsRegistry.gauge(DEPTH_GAUGE, this::depth);
+        metricsRegistry.gauge(REFILL_RATE_GAUGE, refillRate::get);
+    }
+
+    /**
+     * Start to fill the pool in background.
+     */
+    public void start() {
+        if (pool != null) {
+            triggerRefill();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        if (refiller != null) {
+            refiller.shutdownNow();
+        }
+    }
+
+    /**
+     * Provide a key pair from the pool, or generate it inline if the pool is empty.
+     * @return A RSA key pair which had never been provided.
+     * @throws NoSuchAlgorithmException if RSA is not available and the pool is empty.
+     */
+    public KeyPair take() throws NoSuchAlgorithmException {
+        KeyPair keyPair = pool == null ? null : pool.poll();
+        if (keyPair == null) {
+            inlineGenerated.increment();
+            if (LOGGER.isDebugEnabled() && pool != null) {
+                LOGGER.debug("RSA key pair pool is empty, generating key pair inline.");
+            }
+            keyPair = RSAUtils.generateRsaKeyPair();
+        } else {
+            served.increment();
+        }
+        if (pool != null && pool.size() <= lowWatermark) {
+            triggerRefill();
+        }
+        return keyPair;
+    }
+
+    public int depth() {
+        return pool == null ? 0 : pool.size();
+    }
+
+    private void triggerRefill() {
+        if (!stopped && refilling.compareAndSet(false, true)) {
+            refiller.execute(this::refill);
+        }
+    }
+
+    private void refill() {
+        long start = System.nanoTime();
+        int nbGenerated = 0;
+        try {
+            while (!stopped && pool.remainingCapacity() > 0) {
+                if (pool.offer(RSAUtils.generateRsaKeyPair())) {
+                    nbGenerated++;
+                    generated.increment();
+                }
+            }
+        } catch (NoSuchAlgorithmException e) {
+            LOGGER.error("Unable to generate RSA key pair to fill the pool.", e);
+            return;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (nbGenerated > 0 && elapsed > 0) {
+                refillRate.set(nbGenerated * TimeUnit.SECONDS.toNanos(1) / elapsed);
+            }
+            refilling.set(false);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("RSA key pair pool refilled with {} key pairs.", nbGenerated);
+        }
+        //  A consumer may have drained the pool while the refill flag was still set.
+        if (pool.size() <= lowWatermark) {
+            triggerRefill();
+        }
+    }
+
+}
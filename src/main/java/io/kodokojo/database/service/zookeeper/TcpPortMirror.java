@@ -0,0 +1,235 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.zookeeper;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * In-memory mirror of the TCP port of each project, stored under {@link ZookeeperBootstrapConfigurationProvider#KODOKOJO_TCP_PORT}.
+ * <p>
+ * The mirror is loaded by {@link #start()}, then kept current by a children watch on the parent node and a data
+ * watch on each project node. Reads are served locally, ZooKeeper is only reached by writes, which also update the mirror.
+ * The whole mirror is reloaded when an expired ZooKeeper session is replaced, as its watches are lost with it.
+ * </p>
+ */
+public class TcpPortMirror {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TcpPortMirror.class);
+
+    /**
+     * Creation zxid of a node created by this mirror until it is loaded, any node loaded from ZooKeeper is more recent.
+     */
+    private static final long UNKNOWN_CZXID = 0;
+
+    private final ZookeeperClient zookeeperClient;
+
+    private final Map<String, PortEntry> ports = new ConcurrentHashMap<>();
+
+    private final Watcher childrenWatcher = this::onChildrenChanged;
+
+    private final Watcher dataWatcher = this::onDataChanged;
+
+    public TcpPortMirror(ZookeeperClient zookeeperClient) {
+        requireNonNull(zookeeperClient, "zookeeperClient must be defined.");
+        this.zookeeperClient = zookeeperClient;
+    }
+
+    /**
+     * Load all the project ports and register the watches, blocking until the mirror is complete.
+     */
+    public TcpPortMirror start() {
+        zookeeperClient.addSessionListener(this::onSessionRenewed);
+        try {
+            zookeeperClient.await(zookeeperClient.ensurePath(ZookeeperBootstrapConfigurationProvider.KODOKOJO_ROOT)
+                    .thenCompose(v -> zookeeperClient.ensurePath(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT))
+                    .thenCompose(v -> loadChildren(false)));
+        } catch (Exception e) {
+            throw new RuntimeException("Unable to load Tcp ports from " + ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + ".", ZookeeperClient.unwrap(e));
+        }
+        LOGGER.info("Loaded Tcp port of {} projects.", ports.size());
+        return this;
+    }
+
+    /**
+     * @return The Tcp port of the project, or <code>null</code> if none is stored.
+     */
+    public Integer getPort(String projectName) {
+        PortEntry entry = ports.get(projectName);
+        return entry == null ? null : entry.port;
+    }
+
+    /**
+     * Store the Tcp port of a project. Nothing is written if the mirror already holds this port.
+     * @return A stage completed once ZooKeeper and the mirror are updated.
+     */
+    public CompletionStage<Void> store(String projectName, int port) {
+        if (isBlank(projectName)) {
+            throw new IllegalArgumentException("projectName must be defined.");
+        }
+        PortEntry entry = ports.get(projectName);
+        if (entry != null && entry.port == port) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String path = path(projectName);
+        byte[] data = Integer.toString(port).getBytes();
+        CompletionStage<Void> write = entry == null ?
+                zookeeperClient.create(path, data).thenCompose(name -> {
+                    update(projectName, new PortEntry(port, 0, UNKNOWN_CZXID));
+                    //  Register the data watch of the new node, and learn its creation zxid.
+                    return loadData(projectName);
+                }) :
+                zookeeperClient.setData(path, data, entry.version).thenApply(stat -> {
+                    update(projectName, new PortEntry(port, stat));
+                    return null;
+                });
+        //  The mirror was behind ZooKeeper, reload the node then write once more.
+        CompletableFuture<Void> res = new CompletableFuture<>();
+        write.whenComplete((v, e) -> {
+            Throwable cause = ZookeeperClient.unwrap(e);
+            if (cause == null) {
+                res.complete(null);
+            } else if (cause instanceof KeeperException.NodeExistsException || cause instanceof KeeperException.BadVersionException) {
+                loadData(projectName)
+                        .thenCompose(loaded -> zookeeperClient.setData(path, data, ports.get(projectName).version))
+                        .whenComplete((stat, retryFailure) -> {
+                            if (retryFailure == null) {
+                                update(projectName, new PortEntry(port, stat));
+                                res.complete(null);
+                            } else {
+                                res.completeExceptionally(ZookeeperClient.unwrap(retryFailure));
+                            }
+                        });
+            } else {
+                res.completeExceptionally(cause);
+            }
+        });
+        return res;
+    }
+
+    public int size() {
+        return ports.size();
+    }
+
+    /**
+     * @param reloadAll <code>true</code> to load the projects already known too, e.g. when their data watches are lost.
+     */
+    private CompletionStage<Void> loadChildren(boolean reloadAll) {
+        return zookeeperClient.getChildren(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT, childrenWatcher).thenCompose(children -> {
+            Set<String> projects = new HashSet<>(children);
+            ports.keySet().retainAll(projects);
+            CompletableFuture<?>[] loads = children.stream()
+                    .filter(projectName -> reloadAll || !ports.containsKey(projectName))
+                    .map(projectName -> loadData(projectName).toCompletableFuture())
+                    .toArray(CompletableFuture[]::new);
+            return CompletableFuture.allOf(loads);
+        });
+    }
+
+    private CompletionStage<Void> loadData(String projectName) {
+        return zookeeperClient.getData(path(projectName), dataWatcher).handle((nodeData, e) -> {
+            Throwable cause = ZookeeperClient.unwrap(e);
+            if (cause == null) {
+                try {
+                    update(projectName, new PortEntry(Integer.parseInt(new String(nodeData.getData())), nodeData.getStat()));
+                } catch (NumberFormatException nfe) {
+                    LOGGER.warn("Ignore invalid Tcp port stored for project {}.", projectName);
+                }
+            } else if (cause instanceof KeeperException.NoNodeException) {
+                ports.remove(projectName);
+            } else {
+                LOGGER.error("Unable to load Tcp port of project {}.", projectName, cause);
+            }
+            return null;
+        });
+    }
+
+    //  Keep the most recent version, a watch notification may race with a local write. A node deleted then created
+    //  again starts over at version 0, the most recent node, created with the greatest zxid, wins first.
+    private void update(String projectName, PortEntry entry) {
+        ports.merge(projectName, entry, (previous, next) -> {
+            if (next.czxid != previous.czxid) {
+                return next.czxid > previous.czxid ? next : previous;
+            }
+            return next.version >= previous.version ? next : previous;
+        });
+    }
+
+    private void onChildrenChanged(WatchedEvent event) {
+        if (event.getType() == Watcher.Event.EventType.NodeChildrenChanged) {
+            loadChildren(false);
+        }
+    }
+
+    private void onSessionRenewed() {
+        LOGGER.info("Zookeeper session renewed, reload Tcp ports from {}.", ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT);
+        loadChildren(true);
+    }
+
+    private void onDataChanged(WatchedEvent event) {
+        String path = event.getPath();
+        if (path == null) {
+            return;
+        }
+        String projectName = path.substring(path.lastIndexOf('/') + 1);
+        if (event.getType() == Watcher.Event.EventType.NodeDataChanged) {
+            loadData(projectName);
+        } else if (event.getType() == Watcher.Event.EventType.NodeDeleted) {
+            ports.remove(projectName);
+        }
+    }
+
+    private static String path(String projectName) {
+        return ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + "/" + projectName;
+    }
+
+    private static class PortEntry {
+
+        private final int port;
+
+        private final int version;
+
+        private final long czxid;
+
+        private PortEntry(int port, int version, long czxid) {
+            this.port = port;
+            this.version = version;
+            this.czxid = czxid;
+        }
+
+        private PortEntry(int port, Stat stat) {
+            this(port, stat.getVersion(), stat.getCzxid());
+        }
+    }
+
+}
@@ -17,95 +17,145 @@
  */
 package io.kodokojo.database.service.zookeeper;
 
-import io.kodokojo.commons.config.ZookeeperConfig;
 import io.kodokojo.database.service.BootstrapConfigurationProvider;
 import javaslang.control.Try;
-import org.apache.zookeeper.*;
-import org.apache.zookeeper.data.Stat;
+import org.apache.zookeeper.KeeperException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import static java.util.Objects.requireNonNull;
 
-public class ZookeeperBootstrapConfigurationProvider implements BootstrapConfigurationProvider, Watcher {
+public class ZookeeperBootstrapConfigurationProvider implements BootstrapConfigurationProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZookeeperBootstrapConfigurationProvider.class);
 
-    public static final String KODOKOJO_TCP_PORT = "/kodokojo/tcpports";
+    public static final String KODOKOJO_ROOT = "/kodokojo";
 
-    public  static final String KODOKOJO_PORT_INDEX = "/kodokojo/portIndex";
+    public static final String KODOKOJO_TCP_PORT = KODOKOJO_ROOT + "/tcpports";
+
+    public  static final String KODOKOJO_PORT_INDEX = KODOKOJO_ROOT + "/portIndex";
 
     public static final int INITIAL_PORT = 10022;
 
-    private final ZooKeeper zooKeeper;
+    public static final int DEFAULT_PORT_LEASE_SIZE = 16;
 
-    public ZookeeperBootstrapConfigurationProvider(ZookeeperConfig zookeeperConfig) {
-        requireNonNull(zookeeperConfig, "zookeeperConfig must be defined.");
-        try {
-            zooKeeper = new ZooKeeper(zookeeperConfig.url(), 2000, this);
-            Stat stat = zooKeeper.exists("/kodokojo", this);
-            if (stat == null) {
-                zooKeeper.create("/kodokojo",new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
-            }
-            stat = zooKeeper.exists(KODOKOJO_TCP_PORT, this);
-            if (stat == null) {
-                zooKeeper.create(KODOKOJO_TCP_PORT,new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
-            }
-        } catch (IOException | InterruptedException | KeeperException e) {
-            throw new RuntimeException("Unable to connect to Zookeeper on url " + zookeeperConfig.url() + ".", e);
+    private static final int MAX_LEASE_ATTEMPTS = 10;
+
+    private final ZookeeperClient zookeeperClient;
+
+    private final TcpPortMirror tcpPortMirror;
+
+    private final int portLeaseSize;
+
+    //  Next port index to provide and exclusive end of the port index block leased by this instance.
+    private int nextPortIndex = 0;
+
+    private int leaseEndPortIndex = 0;
+
+    public ZookeeperBootstrapConfigurationProvider(ZookeeperClient zookeeperClient, TcpPortMirror tcpPortMirror) {
+        this(zookeeperClient, tcpPortMirror, DEFAULT_PORT_LEASE_SIZE);
+    }
+
+    public ZookeeperBootstrapConfigurationProvider(ZookeeperClient zookeeperClient, TcpPortMirror tcpPortMirror, int portLeaseSize) {
+        requireNonNull(zookeeperClient, "zookeeperClient must be defined.");
+        requireNonNull(tcpPortMirror, "tcpPortMirror must be defined.");
+        if (portLeaseSize <= 0) {
+            throw new IllegalArgumentException("portLeaseSize must be greater than 0.");
         }
+        this.zookeeperClient = zookeeperClient;
+        this.tcpPortMirror = tcpPortMirror;
+        this.portLeaseSize = portLeaseSize;
     }
 
 
     @Override
     public int provideTcpPortEntrypoint(String projectName, String stackName) {
-        String path = KODOKOJO_TCP_PORT + "/" + projectName;
-
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug("Trying to provide a new Tcp port for project {}.", projectName);
         }
-        Try<Integer> aTry = Try.of(() -> {
-            Stat stat = zooKeeper.exists(path, this);
-            if (stat == null) {
-                return generateNewPortIndex().andThenTry(port -> {
-                    zooKeeper.create(path, port.toString().getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug("Generate Tcp port {} on zookeeper path '{}'.", path, path);
-                    }
-                }).onFailure(e -> {
-                    LOGGER.error("An error occur while trying to provide a new TCP port for project {}", projectName, e);
-                }).getOrElse(-1);
-            } else {
-                byte[] data = zooKeeper.getData(path, this, stat);
-                Integer res = Integer.valueOf(new String(data));
-                return res + INITIAL_PORT;
+        //  The port is stored on the project path by the ConfigurationStore once the stack is bootstrapped.
+        Integer existing = tcpPortMirror.getPort(projectName);
+        if (existing != null) {
+            return existing;
+        }
+        return generateNewPortIndex().onSuccess(port -> {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Provide Tcp port {} for project '{}'.", port, projectName);
             }
-        });
-        return aTry.getOrElse(-1);
+        }).onFailure(failure -> {
+            LOGGER.error("An error occur while trying to provide a new TCP port for project {}", projectName, failure);
+        }).getOrElse(-1);
     }
 
-    @Override
-    public void process(WatchedEvent event) {
-        //  Nothing to do.
+    /**
+     * Provide a new port from the block leased by this instance, lease a new block first if the current one is exhausted.
+     * @return A port which had never been provided by any instance.
+     */
+    protected final synchronized Try<Integer> generateNewPortIndex() {
+        return Try.of(() -> {
+            if (nextPortIndex >= leaseEndPortIndex) {
+                int lastLeased = zookeeperClient.await(leasePortBlock(1));
+                nextPortIndex = lastLeased + 1;
+                leaseEndPortIndex = lastLeased + portLeaseSize + 1;
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Leased Tcp port index block [{}, {}[.", nextPortIndex, leaseEndPortIndex);
+                }
+            }
+            int port = nextPortIndex + INITIAL_PORT;
+            nextPortIndex++;
+            return port;
+        });
     }
 
-    protected final Try<Integer> generateNewPortIndex() {
-        return Try.of(() -> {
-            Stat stat = zooKeeper.exists(KODOKOJO_PORT_INDEX, this);
-            Integer port = 1;
-            if (stat == null) {
-                zooKeeper.create(KODOKOJO_PORT_INDEX, port.toString().getBytes(), ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+    /**
+     * Lease the next block of port indexes with a compare-and-set on {@link #KODOKOJO_PORT_INDEX}, which contains the
+     * last port index leased by any instance. A lost race is retried.
+     * @return The last port index leased before this block.
+     */
+    private CompletionStage<Integer> leasePortBlock(int attempt) {
+        CompletionStage<Integer> lease = zookeeperClient.getData(KODOKOJO_PORT_INDEX)
+                .thenCompose(nodeData -> {
+                    int lastLeased = Integer.parseInt(new String(nodeData.getData()));
+                    return zookeeperClient.setData(KODOKOJO_PORT_INDEX, Integer.toString(lastLeased + portLeaseSize).getBytes(), nodeData.getStat().getVersion())
+                            .thenApply(stat -> lastLeased);
+                });
+        CompletableFuture<Integer> res = new CompletableFuture<>();
+        lease.whenComplete((lastLeased, e) -> {
+            Throwable cause = ZookeeperClient.unwrap(e);
+            if (cause == null) {
+                res.complete(lastLeased);
+            } else if (cause instanceof KeeperException.NoNodeException) {
+                //  First lease ever, a concurrent first lease make the creation fail and is retried as a conflict.
+                zookeeperClient.create(KODOKOJO_PORT_INDEX, Integer.toString(portLeaseSize).getBytes())
+                        .thenApply(name -> 0)
+                        .whenComplete((first, createFailure) -> retryOnConflict(attempt, first, createFailure, res));
             } else {
-                byte[] data = zooKeeper.getData(KODOKOJO_PORT_INDEX, this, stat);
-                int version = stat.getVersion();
-                port = Integer.parseInt(new String(data));
-                port++;
-                zooKeeper.setData(KODOKOJO_PORT_INDEX, port.toString().getBytes(), version);
-
+                retryOnConflict(attempt, lastLeased, cause, res);
             }
-            return port + INITIAL_PORT;
         });
+        return res;
+    }
+
+    private void retryOnConflict(int attempt, Integer lastLeased, Throwable e, CompletableFuture<Integer> res) {
+        Throwable cause = ZookeeperClient.unwrap(e);
+        if (cause == null) {
+            res.complete(lastLeased);
+        } else if (!(cause instanceof KeeperException.BadVersionException || cause instanceof KeeperException.NodeExistsException)) {
+            res.completeExceptionally(cause);
+        } else if (attempt >= MAX_LEASE_ATTEMPTS) {
+            res.completeExceptionally(new IllegalStateException("Unable to lease a port index block after " + MAX_LEASE_ATTEMPTS + " attempts.", cause));
+        } else {
+            LOGGER.debug("Port index block lease conflict on attempt {}, retrying.", attempt);
+            leasePortBlock(attempt + 1).whenComplete((retried, retryFailure) -> {
+                if (retryFailure == null) {
+                    res.complete(retried);
+                } else {
+                    res.completeExceptionally(ZookeeperClient.unwrap(retryFailure));
+                }
+            });
+        }
     }
 }
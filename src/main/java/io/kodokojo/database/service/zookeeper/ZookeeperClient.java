@@ -0,0 +1,296 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.zookeeper;
+
+import io.kodokojo.commons.config.ZookeeperConfig;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static org.apache.commons.lang.StringUtils.isBlank;
+
+/**
+ * Single ZooKeeper session shared by all the components of the service which access ZooKeeper.
+ * <p>
+ * Operations use the asynchronous API of ZooKeeper and return a {@link CompletionStage}, so several requests can be
+ * pipelined on the session without holding a thread for each one. No watch is registered unless explicitly given.
+ * </p>
+ * <p>
+ * An expired session is replaced by a new one. The watches of the expired session are lost, components which rely on
+ * them register a session listener to be told once the new session is connected, see {@link #addSessionListener(Runnable)}.
+ * </p>
+ */
+public class ZookeeperClient implements Watcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ZookeeperClient.class);
+
+    public static final int SESSION_TIMEOUT_MILLIS = 2000;
+
+    private static final long OPERATION_TIMEOUT_MILLIS = 10000;
+
+    private final Function<Watcher, ZooKeeper> sessionFactory;
+
+    private final List<Runnable> sessionListeners = new CopyOnWriteArrayList<>();
+
+    private volatile ZooKeeper zooKeeper;
+
+    private volatile boolean sessionExpired;
+
+    private volatile boolean stopped;
+
+    public ZookeeperClient(ZookeeperConfig zookeeperConfig) {
+        requireNonNull(zookeeperConfig, "zookeeperConfig must be defined.");
+        sessionFactory = watcher -> {
+            try {
+                return new ZooKeeper(zookeeperConfig.url(), SESSION_TIMEOUT_MILLIS, watcher);
+            } catch (IOException e) {
+                throw new RuntimeException("Unable to connect to Zookeeper on url " + zookeeperConfig.url() + ".", e);
+            }
+        };
+        zooKeeper = sessionFactory.apply(this);
+    }
+
+    ZookeeperClient(ZooKeeper zooKeeper) {
+        this(zooKeeper, watcher -> {
+            throw new IllegalStateException("Unable to open a new Zookeeper session.");
+        });
+    }
+
+    /**
+     * @param sessionFactory Open the session which replaces an expired one.
+     */
+    ZookeeperClient(ZooKeeper zooKeeper, Function<Watcher, ZooKeeper> sessionFactory) {
+        requireNonNull(zooKeeper, "zooKeeper must be defined.");
+        requireNonNull(sessionFactory, "sessionFactory must be defined.");
+        this.zooKeeper = zooKeeper;
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * Register a listener run once a new session, which replaced an expired one, is connected. It runs on the event
+     * thread of ZooKeeper and must not block.
+     */
+    public void addSessionListener(Runnable listener) {
+        requireNonNull(listener, "listener must be defined.");
+        sessionListeners.add(listener);
+    }
+
+    /**
+     * @return The Stat of the node, or <code>null</code> if the node does not exist.
+     */
+    public CompletionStage<Stat> exists(String path) {
+        checkPath(path);
+        CompletableFuture<Stat> res = new CompletableFuture<>();
+        zooKeeper.exists(path, false, (rc, p, ctx, stat) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK || code == KeeperException.Code.NONODE) {
+                res.complete(stat);
+            } else {
+                res.completeExceptionally(KeeperException.create(code, p));
+            }
+        }, null);
+        return res;
+    }
+
+    /**
+     * @return The data of the node, failed with a {@link KeeperException.NoNodeException} if the node does not exist.
+     */
+    public CompletionStage<NodeData> getData(String path) {
+        return getData(path, null);
+    }
+
+    /**
+     * @param watcher Watcher to notify of the next change of the node, may be <code>null</code>.
+     */
+    public CompletionStage<NodeData> getData(String path, Watcher watcher) {
+        checkPath(path);
+        CompletableFuture<NodeData> res = new CompletableFuture<>();
+        zooKeeper.getData(path, watcher, (rc, p, ctx, data, stat) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK) {
+                res.complete(new NodeData(data, stat));
+            } else {
+                res.completeExceptionally(KeeperException.create(code, p));
+            }
+        }, null);
+        return res;
+    }
+
+    /**
+     * @param watcher Watcher to notify of the next change of the children of the node, may be <code>null</code>.
+     */
+    public CompletionStage<List<String>> getChildren(String path, Watcher watcher) {
+        checkPath(path);
+        CompletableFuture<List<String>> res = new CompletableFuture<>();
+        zooKeeper.getChildren(path, watcher, (AsyncCallback.ChildrenCallback) (rc, p, ctx, children) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK) {
+                res.complete(children);
+            } else {
+                res.completeExceptionally(KeeperException.create(code, p));
+            }
+        }, null);
+        return res;
+    }
+
+    public CompletionStage<String> create(String path, byte[] data) {
+        checkPath(path);
+        CompletableFuture<String> res = new CompletableFuture<>();
+        zooKeeper.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT, (rc, p, ctx, name) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK) {
+                res.complete(name);
+            } else {
+                res.completeExceptionally(KeeperException.create(code, p));
+            }
+        }, null);
+        return res;
+    }
+
+    /**
+     * Set the data of a node only if its version is still the given one.
+     * @return The new Stat of the node, failed with a {@link KeeperException.BadVersionException} if the node changed meanwhile.
+     */
+    public CompletionStage<Stat> setData(String path, byte[] data, int version) {
+        checkPath(path);
+        CompletableFuture<Stat> res = new CompletableFuture<>();
+        zooKeeper.setData(path, data, version, (rc, p, ctx, stat) -> {
+            KeeperException.Code code = KeeperException.Code.get(rc);
+            if (code == KeeperException.Code.OK) {
+                res.complete(stat);
+            } else {
+                res.completeExceptionally(KeeperException.create(code, p));
+            }
+        }, null);
+        return res;
+    }
+
+    /**
+     * Create an empty persistent node if it does not exist yet. The parent node must exist.
+     */
+    public CompletionStage<Void> ensurePath(String path) {
+        CompletableFuture<Void> res = new CompletableFuture<>();
+        create(path, new byte[0]).whenComplete((name, e) -> {
+            Throwable cause = unwrap(e);
+            if (cause == null || cause instanceof KeeperException.NodeExistsException) {
+                res.complete(null);
+            } else {
+                res.completeExceptionally(cause);
+            }
+        });
+        return res;
+    }
+
+    /**
+     * Wait for the result of an operation, for callers which must stay synchronous.
+     */
+    public <T> T await(CompletionStage<T> stage) throws InterruptedException, ExecutionException, TimeoutException {
+        return stage.toCompletableFuture().get(OPERATION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        stopped = true;
+        try {
+            zooKeeper.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void process(WatchedEvent event) {
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Zookeeper session state: {}.", event.getState());
+        }
+        if (event.getType() != Event.EventType.None || stopped) {
+            return;
+        }
+        if (event.getState() == Event.KeeperState.Expired) {
+            LOGGER.warn("Zookeeper session expired, open a new one.");
+            sessionExpired = true;
+            zooKeeper = sessionFactory.apply(this);
+        } else if (event.getState() == Event.KeeperState.SyncConnected && sessionExpired) {
+            sessionExpired = false;
+            LOGGER.info("Zookeeper session renewed.");
+            for (Runnable listener : sessionListeners) {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Session listener failed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The cause of a failure of a composed stage.
+     */
+    public static Throwable unwrap(Throwable e) {
+        Throwable res = e;
+        while ((res instanceof CompletionException || res instanceof ExecutionException) && res.getCause() != null) {
+            res = res.getCause();
+        }
+        return res;
+    }
+
+    private static void checkPath(String path) {
+        if (isBlank(path)) {
+            throw new IllegalArgumentException("path must be defined.");
+        }
+    }
+
+    public static class NodeData {
+
+        private final byte[] data;
+
+        private final Stat stat;
+
+        public NodeData(byte[] data, Stat stat) {
+            this.data = data;
+            this.stat = stat;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+
+        public Stat getStat() {
+            return stat;
+        }
+    }
+
+}
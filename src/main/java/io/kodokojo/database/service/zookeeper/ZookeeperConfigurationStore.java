@@ -17,58 +17,42 @@
  */
 package io.kodokojo.database.service.zookeeper;
 
-import io.kodokojo.commons.config.ZookeeperConfig;
 import io.kodokojo.commons.model.BootstrapStackData;
 import io.kodokojo.database.service.ConfigurationStore;
 import io.kodokojo.commons.service.ssl.SSLKeyPair;
 import javaslang.control.Try;
-import org.apache.zookeeper.*;
-import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.util.concurrent.CompletionStage;
 
 import static java.util.Objects.requireNonNull;
 
-public class ZookeeperConfigurationStore implements ConfigurationStore, Watcher {
+public class ZookeeperConfigurationStore implements ConfigurationStore {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ZookeeperConfigurationStore.class);
 
+    private final ZookeeperClient zookeeperClient;
 
-    private final ZooKeeper zooKeeper;
+    private final TcpPortMirror tcpPortMirror;
 
-    public ZookeeperConfigurationStore(ZookeeperConfig zookeeperConfig) {
-        requireNonNull(zookeeperConfig, "zookeeperConfig must be defined.");
-        try {
-            zooKeeper = new ZooKeeper(zookeeperConfig.url(), 2000, this);
-            zooKeeper.exists(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT, this);
-        } catch (IOException | InterruptedException | KeeperException e) {
-            throw new RuntimeException("Unable to connect to Zookeeper on url " + zookeeperConfig.url() + ".", e);
-        }
+    public ZookeeperConfigurationStore(ZookeeperClient zookeeperClient, TcpPortMirror tcpPortMirror) {
+        requireNonNull(zookeeperClient, "zookeeperClient must be defined.");
+        requireNonNull(tcpPortMirror, "tcpPortMirror must be defined.");
+        this.zookeeperClient = zookeeperClient;
+        this.tcpPortMirror = tcpPortMirror;
     }
 
     @Override
     public boolean storeBootstrapStackData(BootstrapStackData bootstrapStackData) {
         requireNonNull(bootstrapStackData, "bootstrapStackData must be defined.");
-        return Try.of(() -> {
-            String path = ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + "/" + bootstrapStackData.getProjectName();
-            byte[] data = ("" + bootstrapStackData.getSshPort()).getBytes();
-            Stat stat = zooKeeper.exists(path, this);
-            if (stat == null) {
-                zooKeeper.create(path, data, ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Store Tcp port {} on zookeeper path '{}'.", path, path);
-                }
-            } else {
-                int version = stat.getVersion();
-                zooKeeper.setData(path, data, version);
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Update Tcp port {} on zookeeper path '{}'.", path, path);
-                }
+        CompletionStage<Boolean> stored = tcpPortMirror.store(bootstrapStackData.getProjectName(), bootstrapStackData.getSshPort()).thenApply(v -> {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Store Tcp port {} for project '{}'.", bootstrapStackData.getSshPort(), bootstrapStackData.getProjectName());
             }
             return true;
-        }).isSuccess();
+        });
+        return Try.of(() -> zookeeperClient.await(stored)).getOrElse(false);
     }
 
     @Override
@@ -76,10 +60,4 @@ public class ZookeeperConfigurationStore implements ConfigurationStore, Watcher
         return true;
     }
 
-    @Override
-    public void process(WatchedEvent event) {
-        //  Nothing to do.
-    }
-
-
 }
@@ -0,0 +1,217 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Status;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import io.kodokojo.database.service.metrics.EventMetrics;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BoundedEndpointMailboxTest {
+
+    private static final String REJECT_MAILBOX = "test-reject-mailbox";
+
+    private static final String DROP_MAILBOX = "test-drop-mailbox";
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create("mailbox", ConfigFactory.parseString(
+                REJECT_MAILBOX + " { mailbox-type = \"" + BoundedEndpointMailbox.class.getName() + "\", mailbox-capacity = 1000, low-priority-capacity = 1000, overflow-policy = reject }\n" +
+                        DROP_MAILBOX + " { mailbox-type = \"" + BoundedEndpointMailbox.class.getName() + "\", mailbox-capacity = 4, low-priority-capacity = 2, overflow-policy = drop-low-priority }"
+        ).withFallback(ConfigFactory.load()));
+    }
+
+    @Test
+    public void invalid_overflow_policy_is_refused() {
+        // given
+        String policy = "nack";
+
+        // when
+        Throwable thrown = null;
+        try {
+            new BoundedEndpointMailbox(10, 10, policy);
+        } catch (IllegalArgumentException e) {
+            thrown = e;
+        }
+
+        // then
+        assertThat(thrown).isNotNull();
+    }
+
+    @Test
+    public void low_priority_messages_are_dropped_before_requests_are_rejected() throws Exception {
+        new JavaTestKit(actorSystem) {{
+            // given
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            BoundedEndpointMailbox.bindMetricsRegistry(metricsRegistry);
+            actorSystem.eventStream().subscribe(getRef(), BoundedEndpointMailbox.MailboxOverflow.class);
+            CountDownLatch released = new CountDownLatch(1);
+            ActorRef endpoint = actorSystem.actorOf(Props.create(BlockedActor.class, released).withMailbox(DROP_MAILBOX), "dropEndpoint");
+            endpoint.tell("block", getRef());
+            expectMsgEquals("blocked");
+            Event brickStateUpdate = mock(Event.class);
+            when(brickStateUpdate.getEventType()).thenReturn(Event.BRICK_STATE_UPDATE);
+
+            // when
+            endpoint.tell(brickStateUpdate, ActorRef.noSender());
+            endpoint.tell(brickStateUpdate, ActorRef.noSender());
+            endpoint.tell(brickStateUpdate, ActorRef.noSender());
+            endpoint.tell("request-1", getRef());
+            endpoint.tell("request-2", getRef());
+            endpoint.tell("request-3", getRef());
+
+            // then
+            BoundedEndpointMailbox.MailboxOverflow overflow = expectMsgClass(BoundedEndpointMailbox.MailboxOverflow.class);
+            assertThat(overflow.getMessage()).isEqualTo("request-3");
+            assertThat(overflow.getReceiver()).isEqualTo(endpoint);
+            String mailbox = "{" + BoundedEndpointMailbox.MAILBOX_LABEL + "=\"/user/dropEndpoint\"";
+            assertThat(metricsRegistry.gauges().get(BoundedEndpointMailbox.DEPTH_GAUGE + mailbox + "}").intValue()).isEqualTo(4);
+            assertThat(metricsRegistry.counters().get(BoundedEndpointMailbox.SHED_COUNTER + mailbox + "," + BoundedEndpointMailbox.REASON_LABEL + "=\"" + BoundedEndpointMailbox.DROPPED + "\"}")).isEqualTo(1L);
+            assertThat(metricsRegistry.counters().get(BoundedEndpointMailbox.SHED_COUNTER + mailbox + "," + BoundedEndpointMailbox.REASON_LABEL + "=\"" + BoundedEndpointMailbox.REJECTED + "\"}")).isEqualTo(1L);
+
+            released.countDown();
+            expectMsgEquals("request-1");
+            expectMsgEquals("request-2");
+            actorSystem.eventStream().unsubscribe(getRef());
+            actorSystem.stop(endpoint);
+        }};
+    }
+
+    @Test
+    public void rejected_request_from_an_actor_is_answered_with_a_retryable_failure() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ActorRef shedding = actorSystem.actorOf(EndpointLoadSheddingActor.PROPS(mock(EventBus.class), mock(EventBuilderFactory.class), 5000));
+            JavaTestKit requester = new JavaTestKit(actorSystem);
+
+            // when
+            shedding.tell(new BoundedEndpointMailbox.MailboxOverflow("request", requester.getRef(), getRef()), ActorRef.noSender());
+
+            // then
+            Status.Failure failure = requester.expectMsgClass(Status.Failure.class);
+            assertThat(failure.cause()).isInstanceOf(EndpointLoadSheddingActor.EndpointOverloadedException.class);
+            assertThat(((EndpointLoadSheddingActor.EndpointOverloadedException) failure.cause()).getRetryAfterMillis()).isEqualTo(5000L);
+            actorSystem.stop(shedding);
+        }};
+    }
+
+    @Test
+    public void shed_event_is_released_so_its_retry_is_handled() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.MINUTES, EventReplyWatcherActorTest.MESSAGE_ID_HEADER, new MetricsRegistry());
+            EventBus eventBus = mock(EventBus.class);
+            ActorRef shedding = actorSystem.actorOf(EndpointLoadSheddingActor.PROPS(eventBus, mock(EventBuilderFactory.class, RETURNS_DEEP_STUBS), 5000, cache));
+            Event event = EventReplyWatcherActorTest.anEvent("1234");
+            cache.admit(event);
+            EventBusOriginMessage request = mock(EventBusOriginMessage.class);
+            when(request.originalEvent()).thenReturn(event);
+            when(request.initialSenderIsEventBus()).thenReturn(true);
+            JavaTestKit subEndpoint = new JavaTestKit(actorSystem);
+            ActorRef watcher = actorSystem.actorOf(EventReplyWatcherActor.PROPS(new EventMetrics(new MetricsRegistry(), 10), cache, event, subEndpoint.getRef()));
+            watch(watcher);
+            watcher.tell(request, getRef());
+            subEndpoint.expectMsgEquals(request);
+
+            // when
+            shedding.tell(new BoundedEndpointMailbox.MailboxOverflow(request, watcher, subEndpoint.getRef()), ActorRef.noSender());
+
+            // then
+            expectTerminated(watcher);
+            verify(eventBus, timeout(1000)).send(any(Event.class));
+            assertThat(cache.admit(EventReplyWatcherActorTest.anEvent("1234"))).isNull();
+            expectNoMsg(duration("100 milliseconds"));
+            actorSystem.stop(shedding);
+        }};
+    }
+
+    @Test
+    public void replay_storm_on_a_stalled_endpoint_is_shed_beyond_the_mailbox_capacity() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            int stormSize = 20000;
+            int capacity = 1000;
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            BoundedEndpointMailbox.bindMetricsRegistry(metricsRegistry);
+            CountDownLatch released = new CountDownLatch(1);
+            ActorRef endpoint = actorSystem.actorOf(Props.create(BlockedActor.class, released).withMailbox(REJECT_MAILBOX), "stormEndpoint");
+            endpoint.tell("block", getRef());
+            expectMsgEquals("blocked");
+            String mailbox = "{" + BoundedEndpointMailbox.MAILBOX_LABEL + "=\"/user/stormEndpoint\"";
+
+            // when
+            int maxDepth = 0;
+            for (int i = 0; i < stormSize; i++) {
+                endpoint.tell(new byte[1024], ActorRef.noSender());
+                maxDepth = Math.max(maxDepth, metricsRegistry.gauges().get(BoundedEndpointMailbox.DEPTH_GAUGE + mailbox + "}").intValue());
+            }
+
+            // then
+            assertThat(maxDepth).isEqualTo(capacity);
+            assertThat(metricsRegistry.counters().get(BoundedEndpointMailbox.SHED_COUNTER + mailbox + "," + BoundedEndpointMailbox.REASON_LABEL + "=\"" + BoundedEndpointMailbox.REJECTED + "\"}")).isEqualTo((long) (stormSize - capacity));
+            released.countDown();
+            actorSystem.stop(endpoint);
+        }};
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    public static class BlockedActor extends AbstractActor {
+
+        public BlockedActor(CountDownLatch released) {
+            receive(ReceiveBuilder.matchEquals("block", msg -> {
+                sender().tell("blocked", self());
+                released.await(30, TimeUnit.SECONDS);
+            }).match(String.class, msg -> sender().tell(msg, self()))
+                    .matchAny(msg -> {})
+                    .build());
+        }
+
+    }
+
+}
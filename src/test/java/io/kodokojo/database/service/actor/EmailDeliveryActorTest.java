@@ -0,0 +1,94 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmailDeliveryActorTest {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create();
+    }
+
+    @Test
+    public void batch_queued_emails_and_drop_them_when_queue_is_full() throws Exception {
+        // given
+        CountDownLatch firstBatchReleased = new CountDownLatch(1);
+        CountDownLatch allSent = new CountDownLatch(6);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        EmailBatchSender emailBatchSender = emails -> {
+            batchSizes.add(emails.size());
+            try {
+                firstBatchReleased.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            emails.forEach(email -> allSent.countDown());
+            return emails.size();
+        };
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        ActorRef subject = actorSystem.actorOf(EmailDeliveryActor.PROPS(emailBatchSender, 5, 1, 4, metricsRegistry));
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            subject.tell(anEmail(i), ActorRef.noSender());
+        }
+        //  Release the first batch once every email has been either queued or dropped.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (metricsRegistry.counter(EmailDeliveryActor.REJECTED_COUNTER).sum() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        firstBatchReleased.countDown();
+
+        // then
+        assertThat(allSent.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(batchSizes).containsExactly(1, 4, 1);
+        assertThat(metricsRegistry.counter(EmailDeliveryActor.REJECTED_COUNTER).sum()).isEqualTo(2);
+        actorSystem.stop(subject);
+    }
+
+    private static EmailSenderActor.EmailSenderMsg anEmail(int index) {
+        return new EmailSenderActor.EmailSenderMsg(Collections.singletonList("user" + index + "@kodokojo.io"), null, null, "Email " + index, "content", false, Collections.emptySet());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+import akka.testkit.TestActorRef;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import io.kodokojo.commons.config.ApplicationConfig;
+import io.kodokojo.commons.dto.UserUpdateDto;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.event.EventBuilderFactory;
+import io.kodokojo.commons.event.EventBus;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.BrickFactory;
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.config.DatabaseConfig;
+import io.kodokojo.database.config.module.EndpointModule;
+import io.kodokojo.database.service.BootstrapConfigurationProvider;
+import io.kodokojo.database.service.ConfigurationStore;
+import io.kodokojo.database.service.email.EmailBatchSender;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.actor.user.UserGenerateIdentifierActor;
+import io.kodokojo.database.service.actor.user.UserMessage;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import io.kodokojo.test.DataBuilder;
+import javaslang.control.Try;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Matchers;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static akka.pattern.Patterns.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class EndpointActorTest implements DataBuilder {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        //  Workers reach the endpoint through EndpointActor.ACTOR_PATH.
+        actorSystem = ActorSystem.create("kodokojo");
+    }
+
+    @Test
+    public void convert_user_update_request_without_reading_the_user_store() {
+        // given
+        UserRepository userRepository = mock(UserRepository.class);
+        UserUpdateDto userUpdateDto = mock(UserUpdateDto.class);
+        when(userUpdateDto.getIdentifier()).thenReturn("5678");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(event.getPayload(UserUpdateDto.class)).thenReturn(userUpdateDto);
+        TestActorRef<EndpointActor> subject = TestActorRef.create(actorSystem, EndpointActor.PROPS(anInjector(userRepository)));
+
+        // when
+        Try<?> result = subject.underlyingActor().convertToActorRefWithMessage(event, anUser());
+
+        // then
+        assertThat(result.isSuccess()).isTrue();
+        verify(userRepository, never()).getUserByIdentifier(Matchers.anyString());
+        subject.stop();
+    }
+
+    @Test
+    public void endpoint_keep_dispatching_while_user_store_is_slow() throws Exception {
+        // given
+        CountDownLatch storeEntered = new CountDownLatch(1);
+        CountDownLatch storeReleased = new CountDownLatch(1);
+        User user = anUser();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getUserByIdentifier(Matchers.anyString())).thenAnswer(invocation -> {
+            storeEntered.countDown();
+            storeReleased.await(30, TimeUnit.SECONDS);
+            return user;
+        });
+        when(userRepository.generateId()).thenReturn("1234");
+        ActorRef endpoint = actorSystem.actorOf(EndpointActor.PROPS(anInjector(userRepository)), "endpoint");
+        UserUpdateDto userUpdateDto = mock(UserUpdateDto.class);
+        when(userUpdateDto.getIdentifier()).thenReturn(user.getIdentifier());
+        when(userUpdateDto.getPassword()).thenReturn("newPassword");
+        when(userUpdateDto.getSshPublicKey()).thenReturn("newSSH");
+        when(userUpdateDto.getFirstName()).thenReturn("Marcel");
+        when(userUpdateDto.getLastName()).thenReturn("Dupond");
+        when(userUpdateDto.getEmail()).thenReturn("marcel@dupond.com");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.USER_UPDATE_REQUEST);
+        when(event.getPayload(UserUpdateDto.class)).thenReturn(userUpdateDto);
+
+        // when
+        Future<Object> update = ask(endpoint, EndpointActor.userUpdateMessage(event, user), DataBuilder.thirtySeconds);
+        assertThat(storeEntered.await(2, TimeUnit.SECONDS)).isTrue();
+        Object generated = Await.result(ask(endpoint, new UserGenerateIdentifierActor.UserGenerateIdentifierMsg(event), DataBuilder.thirtySeconds), DataBuilder.twoSeconds);
+
+        // then
+        assertThat(generated).isInstanceOf(UserGenerateIdentifierActor.UserGenerateIdentifierResultMsg.class);
+        assertThat(((UserGenerateIdentifierActor.UserGenerateIdentifierResultMsg) generated).getGenerateId()).isEqualTo("1234");
+        assertThat(update.isCompleted()).isFalse();
+
+        storeReleased.countDown();
+        Object updated = Await.result(update, DataBuilder.twoSeconds);
+        assertThat(updated).isInstanceOf(UserMessage.UserUpdateMessageResultUser.class);
+        assertThat(((UserMessage.UserUpdateMessageResultUser) updated).isSuccess()).isTrue();
+        actorSystem.stop(endpoint);
+    }
+
+    private static Injector anInjector(UserRepository userRepository) {
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        UserCache userCache = new UserCache(0, 1, TimeUnit.MINUTES, metricsRegistry);
+        RsaKeyPairPool rsaKeyPairPool = new RsaKeyPairPool(0, 0, metricsRegistry);
+        WorkerRouting workerRouting = WorkerRouting.perMessage();
+        ApplicationConfig applicationConfig = mock(ApplicationConfig.class);
+        OrganisationRepository organisationRepository = mock(OrganisationRepository.class);
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+        DatabaseConfig databaseConfig = mock(DatabaseConfig.class);
+        when(databaseConfig.brickStateCoalescingMaxEvents()).thenReturn(1);
+        when(databaseConfig.emailDeliveryQueueSize()).thenReturn(16);
+        when(databaseConfig.emailDeliveryConcurrency()).thenReturn(1);
+        when(databaseConfig.emailDeliveryBatchSize()).thenReturn(16);
+        return Guice.createInjector(new EndpointModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(UserRepository.class).toInstance(userRepository);
+                bind(UserFetcher.class).toInstance(userRepository);
+                bind(OrganisationRepository.class).toInstance(organisationRepository);
+                bind(ProjectRepository.class).toInstance(projectRepository);
+                bind(UserCache.class).toInstance(userCache);
+                bind(MetricsRegistry.class).toInstance(metricsRegistry);
+                bind(RsaKeyPairPool.class).toInstance(rsaKeyPairPool);
+                bind(WorkerRouting.class).toInstance(workerRouting);
+                bind(ApplicationConfig.class).toInstance(applicationConfig);
+                bind(DatabaseConfig.class).toInstance(databaseConfig);
+                bind(EventBus.class).toInstance(mock(EventBus.class));
+                bind(EventBuilderFactory.class).toInstance(mock(EventBuilderFactory.class));
+                bind(EmailSender.class).toInstance(mock(EmailSender.class));
+                bind(EmailBatchSender.class).toInstance(EmailBatchSender.of(mock(EmailSender.class)));
+                bind(EmailTemplateEngine.class).toInstance(new EmailTemplateEngine(null));
+                bind(BrickFactory.class).toInstance(mock(BrickFactory.class));
+                bind(BootstrapConfigurationProvider.class).toInstance(mock(BootstrapConfigurationProvider.class));
+                bind(ConfigurationStore.class).toInstance(mock(ConfigurationStore.class));
+            }
+        });
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import io.kodokojo.database.service.actor.project.ProjectUpdaterMessages;
+import io.kodokojo.database.service.actor.user.UserGenerateIdentifierActor;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class EndpointRoutingTableTest {
+
+    @Test
+    public void route_message_by_its_class() {
+        // given
+        ActorRef userEndpoint = mock(ActorRef.class);
+        ActorRef projectEndpoint = mock(ActorRef.class);
+        EndpointRoutingTable routingTable = EndpointRoutingTable.builder()
+                .route(UserGenerateIdentifierActor.UserGenerateIdentifierMsg.class, userEndpoint)
+                .route(ProjectUpdaterMessages.ProjectUpdateMsg.class, projectEndpoint)
+                .build();
+        Object msg = new UserGenerateIdentifierActor.UserGenerateIdentifierMsg(null, false);
+
+        // when
+        boolean routed = routingTable.routes(msg);
+        ActorRef target = routingTable.targetOf(msg);
+
+        // then
+        assertThat(routed).isTrue();
+        assertThat(target).isEqualTo(userEndpoint);
+        assertThat(routingTable.routes("not routed")).isFalse();
+        assertThat(routingTable.targetOf("not routed")).isNull();
+    }
+
+    @Test
+    public void route_subclass_to_the_target_of_its_parent() {
+        // given
+        ActorRef target = mock(ActorRef.class);
+        EndpointRoutingTable routingTable = EndpointRoutingTable.builder()
+                .route(Number.class, target)
+                .build();
+
+        // when
+        ActorRef integerTarget = routingTable.targetOf(42);
+        ActorRef longTarget = routingTable.targetOf(42L);
+
+        // then
+        assertThat(integerTarget).isEqualTo(target);
+        assertThat(longTarget).isEqualTo(target);
+        assertThat(routingTable.routes(42)).isTrue();
+    }
+
+    @Test
+    public void resolve_supplied_target_for_each_message() {
+        // given
+        ActorRef[] targets = {mock(ActorRef.class), mock(ActorRef.class)};
+        int[] created = {0};
+        EndpointRoutingTable routingTable = EndpointRoutingTable.builder()
+                .route(String.class, () -> targets[created[0]++])
+                .build();
+
+        // when
+        boolean routed = routingTable.routes("first");
+        ActorRef first = routingTable.targetOf("first");
+        ActorRef second = routingTable.targetOf("second");
+
+        // then
+        assertThat(routed).isTrue();
+        assertThat(first).isEqualTo(targets[0]);
+        assertThat(second).isEqualTo(targets[1]);
+    }
+
+    @Test
+    public void route_event_by_its_type() {
+        // given
+        ActorRef userEndpoint = mock(ActorRef.class);
+        EventBusOriginMessage msg = mock(EventBusOriginMessage.class);
+        EndpointRoutingTable routingTable = EndpointRoutingTable.builder()
+                .routeEvent(Event.USER_IDENTIFIER_CREATION_REQUEST, userEndpoint, (event, requester) -> msg)
+                .build();
+
+        // when
+        EndpointRoutingTable.EventRoute eventRoute = routingTable.eventRoute(Event.USER_IDENTIFIER_CREATION_REQUEST);
+
+        // then
+        assertThat(eventRoute).isNotNull();
+        assertThat(eventRoute.getTarget()).isEqualTo(userEndpoint);
+        assertThat(eventRoute.createMessage(null, null)).isEqualTo(msg);
+        assertThat(routingTable.eventRoute(Event.BRICK_STATE_UPDATE)).isNull();
+    }
+
+    @Test
+    public void route_fire_and_forget_event_without_reply() {
+        // given
+        ActorRef projectEndpoint = mock(ActorRef.class);
+        EndpointRoutingTable routingTable = EndpointRoutingTable.builder()
+                .routeEvent(Event.USER_IDENTIFIER_CREATION_REQUEST, projectEndpoint, (event, requester) -> null)
+                .routeEventWithoutReply(Event.BRICK_STATE_UPDATE, projectEndpoint, (event, requester) -> null)
+                .build();
+
+        // when
+        EndpointRoutingTable.EventRoute replied = routingTable.eventRoute(Event.USER_IDENTIFIER_CREATION_REQUEST);
+        EndpointRoutingTable.EventRoute fireAndForget = routingTable.eventRoute(Event.BRICK_STATE_UPDATE);
+
+        // then
+        assertThat(replied.isReplyExpected()).isTrue();
+        assertThat(fireAndForget.isReplyExpected()).isFalse();
+        assertThat(fireAndForget.getTarget()).isEqualTo(projectEndpoint);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refuse_two_routes_for_the_same_message() {
+        EndpointRoutingTable.builder()
+                .route(String.class, mock(ActorRef.class))
+                .route(String.class, mock(ActorRef.class));
+    }
+
+}
@@ -0,0 +1,199 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.actor.message.EventBusOriginMessage;
+import io.kodokojo.database.service.actor.project.BrickStateEventPersistenceActor;
+import io.kodokojo.database.service.actor.user.UserGenerateIdentifierActor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EndpointShardsTest {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create();
+    }
+
+    @Test
+    public void events_are_keyed_by_organisation_and_brick_events_by_project_configuration() {
+        // given
+        Event organisationEvent = anEvent(Event.USER_CREATION_REQUEST, "org-1");
+        Event sameOrganisationEvent = anEvent(Event.PROJECTCONFIG_CREATION_REQUEST, "org-1");
+        Event brickStateEvent = anEvent(Event.BRICK_STATE_UPDATE, "org-1");
+        BrickStateEvent brickState = mock(BrickStateEvent.class);
+        when(brickState.getProjectConfigurationIdentifier()).thenReturn("pc-1");
+        when(brickStateEvent.getPayload(BrickStateEvent.class)).thenReturn(brickState);
+
+        // when
+        String organisationKey = EndpointShards.shardKey(organisationEvent);
+        String sameOrganisationKey = EndpointShards.shardKey(sameOrganisationEvent);
+        String brickStateKey = EndpointShards.shardKey(brickStateEvent);
+
+        // then
+        assertThat(organisationKey).isEqualTo(sameOrganisationKey);
+        assertThat(brickStateKey).isNotEqualTo(organisationKey).contains("pc-1");
+    }
+
+    @Test
+    public void flushed_brick_states_are_keyed_as_their_brick_events() {
+        // given
+        Event brickStateEvent = anEvent(Event.BRICK_STATE_UPDATE, "org-1");
+        BrickStateEvent brickState = mock(BrickStateEvent.class);
+        when(brickState.getProjectConfigurationIdentifier()).thenReturn("pc-1");
+        when(brickStateEvent.getPayload(BrickStateEvent.class)).thenReturn(brickState);
+
+        // when
+        String flushKey = EndpointShards.shardKey(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg("pc-1", Collections.singletonList(brickState), 1));
+
+        // then
+        assertThat(flushKey).isEqualTo(EndpointShards.shardKey(brickStateEvent));
+    }
+
+    @Test
+    public void reply_is_keyed_as_its_request() {
+        // given
+        Event event = anEvent(Event.USER_IDENTIFIER_CREATION_REQUEST, null);
+        UserGenerateIdentifierActor.UserGenerateIdentifierMsg request = new UserGenerateIdentifierActor.UserGenerateIdentifierMsg(event, true);
+
+        // when
+        String requestKey = EndpointShards.shardKey(request);
+        String replyKey = EndpointShards.shardKey(new UserGenerateIdentifierActor.UserGenerateIdentifierResultMsg("1234", event));
+
+        // then
+        assertThat(replyKey).isEqualTo(requestKey).isEqualTo(EndpointShards.shardKey(event));
+    }
+
+    @Test
+    public void events_of_an_organisation_are_handled_in_order_by_a_single_shard() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            int organisationCount = 16;
+            int eventCount = 1000;
+            ActorRef endpoint = actorSystem.actorOf(EndpointShards.PROPS(Props.create(RecordingShard.class, getRef()), 4));
+            List<Event> organisationEvents = new ArrayList<>();
+            for (int i = 0; i < organisationCount; i++) {
+                organisationEvents.add(anEvent(Event.USER_CREATION_REQUEST, "org-" + i));
+            }
+            Map<Event, List<Integer>> sent = new HashMap<>();
+
+            // when
+            for (int i = 0; i < eventCount; i++) {
+                Event event = organisationEvents.get(i % organisationCount);
+                sent.computeIfAbsent(event, e -> new ArrayList<>()).add(i);
+                endpoint.tell(new Sequenced(event, i), ActorRef.noSender());
+            }
+
+            // then
+            Map<Event, List<Integer>> received = new HashMap<>();
+            Map<Event, Set<ActorRef>> shards = new HashMap<>();
+            Set<ActorRef> allShards = new HashSet<>();
+            for (Object msg : receiveN(eventCount)) {
+                Recorded recorded = (Recorded) msg;
+                received.computeIfAbsent(recorded.sequenced.event, e -> new ArrayList<>()).add(recorded.sequenced.sequence);
+                shards.computeIfAbsent(recorded.sequenced.event, e -> new HashSet<>()).add(recorded.shard);
+                allShards.add(recorded.shard);
+            }
+            assertThat(received).isEqualTo(sent);
+            shards.values().forEach(organisationShards -> assertThat(organisationShards).hasSize(1));
+            assertThat(allShards.size()).isGreaterThan(1);
+            actorSystem.stop(endpoint);
+        }};
+    }
+
+    private static Event anEvent(String eventType, String organisationId) {
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(eventType);
+        Map<String, String> custom = organisationId == null ? Collections.emptyMap() : Collections.singletonMap(Event.ORGANISATION_ID_CUSTOM_HEADER, organisationId);
+        doReturn(custom).when(event).getCustom();
+        return event;
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    static class Sequenced implements EventBusOriginMessage {
+
+        private final Event event;
+
+        private final int sequence;
+
+        Sequenced(Event event, int sequence) {
+            this.event = event;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public boolean initialSenderIsEventBus() {
+            return true;
+        }
+
+        @Override
+        public Event originalEvent() {
+            return event;
+        }
+    }
+
+    static class Recorded {
+
+        private final Sequenced sequenced;
+
+        private final ActorRef shard;
+
+        Recorded(Sequenced sequenced, ActorRef shard) {
+            this.sequenced = sequenced;
+            this.shard = shard;
+        }
+    }
+
+    public static class RecordingShard extends AbstractActor {
+
+        public RecordingShard(ActorRef probe) {
+            receive(ReceiveBuilder.match(Sequenced.class, msg -> probe.tell(new Recorded(msg, self()), self())).build());
+        }
+
+    }
+
+}
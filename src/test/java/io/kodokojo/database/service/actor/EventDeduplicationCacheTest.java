@@ -0,0 +1,115 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class EventDeduplicationCacheTest {
+
+    private static final String HEADER = "messageId";
+
+    @Test
+    public void redelivery_in_progress_is_recognized_then_replayed_once_replied() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.MINUTES, HEADER, metricsRegistry);
+        EventReplyableMessage reply = mock(EventReplyableMessage.class);
+        Event event = anEvent("1234");
+
+        // when
+        EventDeduplicationCache.Entry first = cache.admit(event);
+        EventDeduplicationCache.Entry inProgress = cache.admit(anEvent("1234"));
+        boolean recorded = cache.replied(event, reply);
+        EventDeduplicationCache.Entry replied = cache.admit(anEvent("1234"));
+
+        // then
+        assertThat(first).isNull();
+        assertThat(inProgress).isNotNull();
+        assertThat(inProgress.getReply()).isNull();
+        assertThat(recorded).isTrue();
+        assertThat(replied.getReply()).isSameAs(reply);
+        assertThat(cache.replied(event, reply)).isFalse();
+        String hit = EventDeduplicationCache.HIT_COUNTER + "{" + EventDeduplicationCache.STATE_LABEL + "=\"";
+        assertThat(metricsRegistry.counters().get(hit + EventDeduplicationCache.IN_PROGRESS + "\"}")).isEqualTo(1L);
+        assertThat(metricsRegistry.counters().get(hit + EventDeduplicationCache.REPLAYED + "\"}")).isEqualTo(1L);
+        assertThat(metricsRegistry.counters().get(EventDeduplicationCache.MISS_COUNTER)).isEqualTo(1L);
+    }
+
+    @Test
+    public void redelivery_after_the_window_is_handled_again() {
+        // given
+        AtomicLong clock = new AtomicLong(0);
+        EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.SECONDS, HEADER, new MetricsRegistry(), clock::get);
+        cache.admit(anEvent("1234"));
+
+        // when
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        EventDeduplicationCache.Entry entry = cache.admit(anEvent("1234"));
+
+        // then
+        assertThat(entry).isNull();
+    }
+
+    @Test
+    public void oldest_events_are_evicted_when_cache_is_full() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        EventDeduplicationCache cache = new EventDeduplicationCache(2, 1, TimeUnit.MINUTES, HEADER, metricsRegistry);
+
+        // when
+        cache.admit(anEvent("1"));
+        cache.admit(anEvent("2"));
+        cache.admit(anEvent("3"));
+
+        // then
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.admit(anEvent("1"))).isNull();
+        assertThat(metricsRegistry.counters().get(EventDeduplicationCache.EVICTION_COUNTER)).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    public void released_event_is_handled_again() {
+        // given
+        EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.MINUTES, HEADER, new MetricsRegistry());
+        cache.admit(anEvent("1234"));
+
+        // when
+        cache.release(anEvent("1234"));
+
+        // then
+        assertThat(cache.admit(anEvent("1234"))).isNull();
+    }
+
+    private static Event anEvent(String messageId) {
+        Event event = mock(Event.class);
+        doReturn(Collections.singletonMap(HEADER, messageId)).when(event).getCustom();
+        return event;
+    }
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Status;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.service.actor.message.EventReplyableMessage;
+import io.kodokojo.database.service.metrics.EventMetrics;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventReplyWatcherActorTest {
+
+    static final String MESSAGE_ID_HEADER = "messageId";
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create("watcher", ConfigFactory.parseString("kodokojo.saga." + EventReplyWatcherActor.SAGA + ".receive-timeout = 300ms")
+                .withFallback(ConfigFactory.load()));
+    }
+
+    @Test
+    public void failed_request_is_released_so_its_retry_is_handled() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.MINUTES, MESSAGE_ID_HEADER, new MetricsRegistry());
+            Event event = anEvent("1234");
+            cache.admit(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(new EventMetrics(new MetricsRegistry(), 10), cache, event, target.getRef()));
+            watch(subject);
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+            target.reply(new Status.Failure(new IllegalStateException("Saga failed.")));
+
+            // then
+            expectMsgClass(Status.Failure.class);
+            expectTerminated(subject);
+            assertThat(cache.admit(anEvent("1234"))).isNull();
+        }};
+    }
+
+    @Test
+    public void replied_request_stays_recorded() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            EventDeduplicationCache cache = new EventDeduplicationCache(10, 1, TimeUnit.MINUTES, MESSAGE_ID_HEADER, new MetricsRegistry());
+            Event event = anEvent("5678");
+            cache.admit(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(new EventMetrics(new MetricsRegistry(), 10), cache, event, target.getRef()));
+            EventReplyableMessage reply = mock(EventReplyableMessage.class);
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+            target.reply(reply);
+
+            // then
+            assertThat(expectMsgClass(EventReplyableMessage.class)).isSameAs(reply);
+            assertThat(cache.admit(anEvent("5678"))).isNotNull();
+        }};
+    }
+
+    @Test
+    public void plain_acknowledgement_is_timed_as_a_reply() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            EventMetrics eventMetrics = new EventMetrics(metricsRegistry, 10);
+            Event event = anEvent("1111");
+            when(event.getEventType()).thenReturn(Event.ORGANISATION_CHANGE_ADMIN_REQUEST);
+            eventMetrics.received(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(eventMetrics, null, event, target.getRef()));
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+            target.reply(Boolean.TRUE);
+
+            // then
+            expectMsgEquals(Boolean.TRUE);
+            assertThat(eventMetrics.inFlight()).isEqualTo(0);
+            assertThat(metricsRegistry.histograms().get(EventMetrics.REPLY_LATENCY_HISTOGRAM + "{" + EventMetrics.EVENT_TYPE_LABEL + "=\"" + Event.ORGANISATION_CHANGE_ADMIN_REQUEST + "\"}").count()).isEqualTo(1L);
+        }};
+    }
+
+    @Test
+    public void abandoned_saga_is_counted_as_timed_out() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            EventMetrics eventMetrics = new EventMetrics(metricsRegistry, 10);
+            Event event = anEvent("2222");
+            when(event.getEventType()).thenReturn(Event.PROJECTCONFIG_CHANGE_USER_REQUEST);
+            eventMetrics.received(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(eventMetrics, null, event, target.getRef()));
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+            target.reply(new Status.Failure(new TimeoutException("Saga abandoned.")));
+
+            // then
+            expectMsgClass(Status.Failure.class);
+            assertThat(eventMetrics.inFlight()).isEqualTo(0);
+            assertThat(metricsRegistry.counters().get(errorCounter(Event.PROJECTCONFIG_CHANGE_USER_REQUEST, EventMetrics.TIMED_OUT))).isEqualTo(1L);
+        }};
+    }
+
+    @Test
+    public void failure_reply_is_counted_as_an_error() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            EventMetrics eventMetrics = new EventMetrics(metricsRegistry, 10);
+            Event event = anEvent("3333");
+            when(event.getEventType()).thenReturn(Event.BRICK_PROPERTY_UPDATE_REQUEST);
+            eventMetrics.received(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(eventMetrics, null, event, target.getRef()));
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+            target.reply(new Status.Failure(new IllegalStateException("Unable to store.")));
+
+            // then
+            expectMsgClass(Status.Failure.class);
+            assertThat(eventMetrics.inFlight()).isEqualTo(0);
+            assertThat(metricsRegistry.counters().get(errorCounter(Event.BRICK_PROPERTY_UPDATE_REQUEST, EventMetrics.REPLY_FAILED))).isEqualTo(1L);
+        }};
+    }
+
+    @Test
+    public void request_without_reply_is_counted_as_timed_out() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            EventMetrics eventMetrics = new EventMetrics(metricsRegistry, 10);
+            Event event = anEvent("4444");
+            when(event.getEventType()).thenReturn(Event.BRICK_PROPERTY_UPDATE_REQUEST);
+            eventMetrics.received(event);
+            JavaTestKit target = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(EventReplyWatcherActor.PROPS(eventMetrics, null, event, target.getRef()));
+            watch(subject);
+
+            // when
+            subject.tell("request", getRef());
+            target.expectMsgEquals("request");
+
+            // then
+            expectTerminated(duration("5 seconds"), subject);
+            assertThat(eventMetrics.inFlight()).isEqualTo(0);
+            assertThat(metricsRegistry.counters().get(errorCounter(Event.BRICK_PROPERTY_UPDATE_REQUEST, EventMetrics.TIMED_OUT))).isEqualTo(1L);
+        }};
+    }
+
+    private static String errorCounter(String eventType, String reason) {
+        return EventMetrics.ERROR_COUNTER + "{" + EventMetrics.EVENT_TYPE_LABEL + "=\"" + eventType + "\"," + EventMetrics.REASON_LABEL + "=\"" + reason + "\"}";
+    }
+
+    static Event anEvent(String messageId) {
+        Event event = mock(Event.class);
+        doReturn(Collections.singletonMap(MESSAGE_ID_HEADER, messageId)).when(event).getCustom();
+        return event;
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+}
@@ -0,0 +1,76 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.test.DataBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import scala.concurrent.Await;
+
+import static akka.pattern.Patterns.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InstrumentedThreadPoolConfiguratorTest {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create();
+    }
+
+    @Test
+    public void worker_run_on_blocking_io_dispatcher_and_publish_its_saturation() throws Exception {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        InstrumentedThreadPoolConfigurator.bindMetricsRegistry(metricsRegistry);
+        ActorRef worker = actorSystem.actorOf(Props.create(ThreadNameActor.class).withDispatcher(ActorDispatchers.BLOCKING_IO));
+
+        // when
+        Object threadName = Await.result(ask(worker, "thread?", DataBuilder.thirtySeconds), DataBuilder.twoSeconds);
+
+        // then
+        assertThat((String) threadName).contains(ActorDispatchers.BLOCKING_IO);
+        String label = "{" + InstrumentedThreadPoolConfigurator.DISPATCHER_LABEL + "=\"" + ActorDispatchers.BLOCKING_IO + "\"}";
+        assertThat(metricsRegistry.gauges()).containsKey(InstrumentedThreadPoolConfigurator.SATURATION_GAUGE + label);
+        assertThat(metricsRegistry.gauges().get(InstrumentedThreadPoolConfigurator.POOL_SIZE_GAUGE + label).intValue()).isEqualTo(32);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    public static class ThreadNameActor extends AbstractActor {
+
+        public ThreadNameActor() {
+            receive(ReceiveBuilder.matchAny(msg -> sender().tell(Thread.currentThread().getName(), self())).build());
+        }
+
+    }
+
+}
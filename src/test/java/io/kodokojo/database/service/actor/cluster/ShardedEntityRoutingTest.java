@@ -0,0 +1,244 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.cluster;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.cluster.Cluster;
+import akka.cluster.Member;
+import akka.cluster.MemberStatus;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
+import io.kodokojo.database.service.actor.project.BrickPropertyToBrickConfigurationActor;
+import io.kodokojo.database.service.actor.project.ProjectConfigurationUpdaterActor;
+import io.kodokojo.database.service.repository.ProjectConfigurationPatch;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShardedEntityRoutingTest {
+
+    private static final AtomicInteger IN_FLIGHT = new AtomicInteger();
+
+    private static final AtomicInteger MAX_IN_FLIGHT = new AtomicInteger();
+
+    private static ActorSystem firstNode;
+
+    private static ActorSystem secondNode;
+
+    private static ShardedEntityRouting firstRouting;
+
+    private static ShardedEntityRouting secondRouting;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        //  Nodes are named as in production, entities reach their local endpoint through EndpointActor.ACTOR_PATH.
+        Config config = ConfigFactory.parseString("akka.remote.netty.tcp.port = 0\n" +
+                "akka.loglevel = WARNING\n" +
+                "kodokojo.cluster.entity-reply-timeout = 5s").withFallback(ConfigFactory.load("cluster"));
+        firstNode = ActorSystem.create("kodokojo", config);
+        secondNode = ActorSystem.create("kodokojo", config);
+        firstNode.actorOf(Props.create(EndpointStandIn.class), "endpoint");
+        secondNode.actorOf(Props.create(EndpointStandIn.class), "endpoint");
+
+        Cluster.get(firstNode).join(Cluster.get(firstNode).selfAddress());
+        Cluster.get(secondNode).join(Cluster.get(firstNode).selfAddress());
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (upMembers(firstNode) < 2 || upMembers(secondNode) < 2) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(100);
+        }
+        firstRouting = ShardedEntityRouting.start(firstNode);
+        secondRouting = ShardedEntityRouting.start(secondNode);
+    }
+
+    @Test
+    public void messages_of_an_entity_received_on_both_nodes_are_handled_one_at_a_time_by_its_owner() {
+        new JavaTestKit(firstNode) {{
+            // given
+            JavaTestKit secondRequester = new JavaTestKit(secondNode);
+            int messageCount = 10;
+
+            // when
+            for (int i = 0; i < messageCount; i++) {
+                assertThat(firstRouting.route(new OrganisationWrite("org-1", i), getRef())).isTrue();
+                assertThat(secondRouting.route(new OrganisationWrite("org-1", i), secondRequester.getRef())).isTrue();
+            }
+
+            // then
+            Set<String> owners = new HashSet<>();
+            for (Object reply : receiveN(messageCount, duration("20 seconds"))) {
+                owners.add((String) reply);
+            }
+            for (Object reply : secondRequester.receiveN(messageCount, duration("20 seconds"))) {
+                owners.add((String) reply);
+            }
+            assertThat(owners).hasSize(1);
+            assertThat(MAX_IN_FLIGHT.get()).isEqualTo(1);
+        }};
+    }
+
+    @Test
+    public void patch_and_organisation_membership_messages_reach_the_owner_from_both_nodes() {
+        new JavaTestKit(firstNode) {{
+            // given
+            JavaTestKit secondRequester = new JavaTestKit(secondNode);
+            User user = new User("user-1", "entity-1", "John Doe", "jdoe", "jdoe@kodokojo.io", "password", "ssh-rsa key");
+            Map<String, Serializable> properties = new HashMap<>();
+            properties.put("url", "https://ci.kodokojo.io");
+            ProjectConfigurationPatch patch = ProjectConfigurationPatch.builder("pc-1")
+                    .addUsers(Collections.singletonList(user))
+                    .removeUsers(Collections.singletonList("user-2"))
+                    .setBrickProperties("build-A", "jenkins", properties)
+                    .build();
+
+            // when
+            for (JavaTestKit requester : Arrays.asList(this, secondRequester)) {
+                ShardedEntityRouting routing = requester == this ? firstRouting : secondRouting;
+                assertThat(routing.route(new ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg(user, null, patch), requester.getRef())).isTrue();
+                assertThat(routing.route(new OrganisationMessage.ChangeUserToOrganisationMsg(user, OrganisationMessage.TypeChange.ADD, null, "user-1", "org-2", false), requester.getRef())).isTrue();
+            }
+
+            // then
+            Set<String> owners = new HashSet<>();
+            for (Object reply : receiveN(2, duration("20 seconds"))) {
+                owners.add((String) reply);
+            }
+            for (Object reply : secondRequester.receiveN(2, duration("20 seconds"))) {
+                owners.add((String) reply);
+            }
+            //  Each requester got both replies, whichever node owns the entities one of them crossed the network.
+            assertThat(owners).isNotEmpty();
+        }};
+    }
+
+    @Test
+    public void brick_property_update_reply_reaches_the_requester_from_both_nodes() {
+        new JavaTestKit(firstNode) {{
+            // given
+            JavaTestKit secondRequester = new JavaTestKit(secondNode);
+            User user = new User("user-1", "entity-1", "John Doe", "jdoe", "jdoe@kodokojo.io", "password", "ssh-rsa key");
+            Map<String, Serializable> properties = new HashMap<>();
+            properties.put("url", "https://ci.kodokojo.io");
+
+            // when
+            assertThat(firstRouting.route(new BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg(user, null, "pc-2", "build-A", "jenkins", properties), getRef())).isTrue();
+            assertThat(secondRouting.route(new BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg(user, null, "pc-2", "build-A", "jenkins", properties), secondRequester.getRef())).isTrue();
+
+            // then
+            //  Whichever node owns the project configuration, one of the replies crossed the network.
+            BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationResultMsg firstResult = expectMsgClass(duration("20 seconds"), BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationResultMsg.class);
+            BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationResultMsg secondResult = secondRequester.expectMsgClass(duration("20 seconds"), BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationResultMsg.class);
+            assertThat(firstResult.isSuccess()).isTrue();
+            assertThat(secondResult.isSuccess()).isTrue();
+        }};
+    }
+
+    @Test
+    public void message_without_entity_identifier_stay_local() {
+        // given
+        OrganisationWrite write = new OrganisationWrite(null, 0);
+
+        // when
+        boolean routed = firstRouting.route(write, null);
+
+        // then
+        assertThat(routed).isFalse();
+    }
+
+    private static int upMembers(ActorSystem node) {
+        int count = 0;
+        for (Member member : Cluster.get(node).state().getMembers()) {
+            if (member.status() == MemberStatus.up()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(secondNode);
+        JavaTestKit.shutdownActorSystem(firstNode);
+        firstNode = null;
+        secondNode = null;
+    }
+
+    static class OrganisationWrite implements ShardedEntityMessage, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String organisationId;
+
+        private final int sequence;
+
+        OrganisationWrite(String organisationId, int sequence) {
+            this.organisationId = organisationId;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public String entityType() {
+            return ORGANISATION;
+        }
+
+        @Override
+        public String entityId() {
+            return organisationId;
+        }
+    }
+
+    /**
+     * Reply the address of its node, after a short write during which no other write of the entity may run. Brick
+     * property updates get the result message the project endpoint would reply.
+     */
+    public static class EndpointStandIn extends AbstractActor {
+
+        public EndpointStandIn() {
+            receive(ReceiveBuilder.match(ShardedEntityActor.OwnedEntityMsg.class, owned -> owned.getMessage() instanceof OrganisationWrite, owned -> {
+                MAX_IN_FLIGHT.accumulateAndGet(IN_FLIGHT.incrementAndGet(), Math::max);
+                Thread.sleep(10);
+                IN_FLIGHT.decrementAndGet();
+                sender().tell(Cluster.get(getContext().system()).selfAddress().toString(), self());
+            }).match(ShardedEntityActor.OwnedEntityMsg.class, owned -> owned.getMessage() instanceof BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationMsg, owned -> {
+                sender().tell(new BrickPropertyToBrickConfigurationActor.BrickPropertyToBrickConfigurationResultMsg(true), self());
+            }).match(ShardedEntityActor.OwnedEntityMsg.class, owned -> {
+                sender().tell(Cluster.get(getContext().system()).selfAddress().toString(), self());
+            }).build());
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.organisation;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.dispatch.Futures;
+import akka.japi.pf.ReceiveBuilder;
+import akka.pattern.Patterns;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.test.DataBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+import scala.concurrent.duration.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OrganisationCreatorActorTest implements DataBuilder {
+
+    private static final int NB_ORGANISATIONS = 500;
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        //  Small default dispatcher, a blocking creator would starve the endpoint which must reply.
+        actorSystem = ActorSystem.create("kodokojo", ConfigFactory.parseString(
+                "akka.actor.default-dispatcher.fork-join-executor.parallelism-min = 2\n" +
+                        "akka.actor.default-dispatcher.fork-join-executor.parallelism-max = 2"
+        ).withFallback(ConfigFactory.load()));
+        actorSystem.actorOf(Props.create(ChangeUserToOrganisationStubActor.class), "endpoint");
+    }
+
+    @Test
+    public void create_many_organisations_concurrently() throws Exception {
+        // GIVEN
+        User requester = anUser();
+        OrganisationRepository organisationRepository = Mockito.mock(OrganisationRepository.class);
+        Mockito.when(organisationRepository.addOrganisation(Matchers.any(Organisation.class))).thenReturn("1234");
+
+        // WHEN
+        List<Future<Object>> futures = new ArrayList<>(NB_ORGANISATIONS);
+        for (int i = 0; i < NB_ORGANISATIONS; i++) {
+            ActorRef subject = actorSystem.actorOf(OrganisationCreatorActor.PROPS(organisationRepository));
+            OrganisationCreatorActor.OrganisationCreateMsg msg = new OrganisationCreatorActor.OrganisationCreateMsg(requester, null, new Organisation("organisation-" + i), false);
+            futures.add(Patterns.ask(subject, msg, DataBuilder.thirtySeconds));
+        }
+        Iterable<Object> results = Await.result(Futures.sequence(futures, actorSystem.dispatcher()), Duration.create(20, TimeUnit.SECONDS));
+
+        // THEN
+        assertThat(results).hasSize(NB_ORGANISATIONS);
+        for (Object result : results) {
+            assertThat(result).isInstanceOf(OrganisationCreatorActor.OrganisationCreatedResultMsg.class);
+        }
+        Mockito.verify(organisationRepository, Mockito.times(NB_ORGANISATIONS)).addOrganisation(Matchers.any(Organisation.class));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    public static class ChangeUserToOrganisationStubActor extends AbstractActor {
+
+        public ChangeUserToOrganisationStubActor() {
+            receive(ReceiveBuilder
+                    .match(OrganisationMessage.ChangeUserToOrganisationMsg.class, msg -> sender().tell(Boolean.TRUE, self()))
+                    .matchAny(this::unhandled)
+                    .build());
+        }
+
+    }
+
+}
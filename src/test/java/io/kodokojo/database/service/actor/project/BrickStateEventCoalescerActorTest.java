@@ -0,0 +1,191 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.project;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import io.kodokojo.commons.event.Event;
+import io.kodokojo.commons.model.BrickType;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BrickStateEventCoalescerActorTest {
+
+    private static ActorSystem actorSystem;
+
+    private static JavaTestKit endpoint;
+
+    @BeforeClass
+    public static void setup() {
+        //  Flushed batches reach the endpoint through EndpointActor.ACTOR_PATH.
+        actorSystem = ActorSystem.create("kodokojo");
+        endpoint = new JavaTestKit(actorSystem);
+        actorSystem.actorOf(Props.create(EndpointStandIn.class, endpoint.getRef()), "endpoint");
+    }
+
+    @Test
+    public void buffer_is_flushed_when_its_window_elapsed_and_every_requester_receive_the_result() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            JavaTestKit otherRequester = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(BrickStateEventCoalescerActor.PROPS(300, 64));
+
+            // when
+            subject.tell(aBrickStateMsg("pc-window", "jenkins", BrickStateEvent.State.STARTING), getRef());
+            subject.tell(aBrickStateMsg("pc-window", "nexus", BrickStateEvent.State.STARTING), otherRequester.getRef());
+
+            // then
+            endpoint.expectNoMsg(duration("150 milliseconds"));
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg batch = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            assertThat(batch.getProjectConfigurationIdentifier()).isEqualTo("pc-window");
+            assertThat(batch.getBrickStateEvents()).extracting(BrickStateEvent::getBrickName).containsExactly("jenkins", "nexus");
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-window", batch.getFlushId(), true));
+            expectMsgEquals(Boolean.TRUE);
+            otherRequester.expectMsgEquals(Boolean.TRUE);
+            actorSystem.stop(subject);
+        }};
+    }
+
+    @Test
+    public void buffer_is_flushed_as_soon_as_it_contains_the_maximum_number_of_events() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ActorRef subject = actorSystem.actorOf(BrickStateEventCoalescerActor.PROPS(60000, 2));
+
+            // when
+            subject.tell(aBrickStateMsg("pc-full", "jenkins", BrickStateEvent.State.STARTING), getRef());
+            subject.tell(aBrickStateMsg("pc-full", "nexus", BrickStateEvent.State.STARTING), getRef());
+
+            // then
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg batch = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            assertThat(batch.getBrickStateEvents()).hasSize(2);
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-full", batch.getFlushId(), false));
+            expectMsgEquals(Boolean.FALSE);
+            expectMsgEquals(Boolean.FALSE);
+            actorSystem.stop(subject);
+        }};
+    }
+
+    @Test
+    public void only_the_latest_state_of_each_brick_is_persisted() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ActorRef subject = actorSystem.actorOf(BrickStateEventCoalescerActor.PROPS(60000, 3));
+
+            // when
+            subject.tell(aBrickStateMsg("pc-latest", "jenkins", BrickStateEvent.State.STARTING), getRef());
+            subject.tell(aBrickStateMsg("pc-latest", "nexus", BrickStateEvent.State.STARTING), getRef());
+            subject.tell(aBrickStateMsg("pc-latest", "jenkins", BrickStateEvent.State.RUNNING), getRef());
+
+            // then
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg batch = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            assertThat(batch.getBrickStateEvents()).extracting(BrickStateEvent::getBrickName).containsExactly("nexus", "jenkins");
+            assertThat(batch.getBrickStateEvents()).extracting(BrickStateEvent::getState).containsExactly(BrickStateEvent.State.STARTING, BrickStateEvent.State.RUNNING);
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-latest", batch.getFlushId(), true));
+            receiveN(3);
+            actorSystem.stop(subject);
+        }};
+    }
+
+    @Test
+    public void window_of_a_buffer_flushed_because_full_does_not_flush_the_next_buffer() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ActorRef subject = actorSystem.actorOf(BrickStateEventCoalescerActor.PROPS(600, 2));
+            subject.tell(aBrickStateMsg("pc-generation", "jenkins", BrickStateEvent.State.STARTING), getRef());
+            subject.tell(aBrickStateMsg("pc-generation", "nexus", BrickStateEvent.State.STARTING), getRef());
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg first = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-generation", first.getFlushId(), true));
+            receiveN(2);
+
+            // when
+            expectNoMsg(duration("300 milliseconds"));
+            subject.tell(aBrickStateMsg("pc-generation", "jenkins", BrickStateEvent.State.RUNNING), getRef());
+
+            // then
+            //  The window of the first buffer would have elapsed meanwhile, the second buffer waits for its own window.
+            endpoint.expectNoMsg(duration("450 milliseconds"));
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg second = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            assertThat(second.getFlushId()).isNotEqualTo(first.getFlushId());
+            assertThat(second.getBrickStateEvents()).extracting(BrickStateEvent::getState).containsExactly(BrickStateEvent.State.RUNNING);
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-generation", second.getFlushId(), true));
+            expectMsgEquals(Boolean.TRUE);
+            actorSystem.stop(subject);
+        }};
+    }
+
+    @Test
+    public void a_single_batch_per_project_is_persisted_at_a_time_and_stale_results_are_ignored() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            JavaTestKit secondRequester = new JavaTestKit(actorSystem);
+            ActorRef subject = actorSystem.actorOf(BrickStateEventCoalescerActor.PROPS(0, 64));
+            subject.tell(aBrickStateMsg("pc-in-flight", "jenkins", BrickStateEvent.State.STARTING), getRef());
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg first = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            ActorRef coalescer = endpoint.getLastSender();
+
+            // when
+            subject.tell(aBrickStateMsg("pc-in-flight", "jenkins", BrickStateEvent.State.RUNNING), secondRequester.getRef());
+            coalescer.tell(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-in-flight", first.getFlushId() + 1000, true), ActorRef.noSender());
+
+            // then
+            endpoint.expectNoMsg(duration("300 milliseconds"));
+            expectNoMsg(duration("100 milliseconds"));
+            coalescer.tell(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-in-flight", first.getFlushId(), true), ActorRef.noSender());
+            expectMsgEquals(Boolean.TRUE);
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg second = endpoint.expectMsgClass(duration("2 seconds"), BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg.class);
+            assertThat(second.getBrickStateEvents()).extracting(BrickStateEvent::getState).containsExactly(BrickStateEvent.State.RUNNING);
+            endpoint.reply(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg("pc-in-flight", second.getFlushId(), true));
+            secondRequester.expectMsgEquals(Boolean.TRUE);
+            actorSystem.stop(subject);
+        }};
+    }
+
+    private static BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg aBrickStateMsg(String projectConfigurationIdentifier, String brickName, BrickStateEvent.State state) {
+        BrickStateEvent brickStateEvent = new BrickStateEvent(projectConfigurationIdentifier, "build-A", BrickType.CI.name(), brickName, state, "1.0");
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(Event.BRICK_STATE_UPDATE);
+        when(event.getPayload(BrickStateEvent.class)).thenReturn(brickStateEvent);
+        return new BrickStateEventPersistenceActor.BrickStateEventPersistenceMsg(null, event);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    //  Forward messages sent to the endpoint to the probe, which replies in place of the persistence actor.
+    public static class EndpointStandIn extends AbstractActor {
+
+        public EndpointStandIn(ActorRef probe) {
+            receive(ReceiveBuilder.matchAny(msg -> probe.forward(msg, getContext())).build());
+        }
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.project;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+import io.kodokojo.commons.model.BrickType;
+import io.kodokojo.commons.model.Project;
+import io.kodokojo.commons.model.Stack;
+import io.kodokojo.commons.model.StackType;
+import io.kodokojo.commons.service.actor.message.BrickStateEvent;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BrickStateEventPersistenceActorTest {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create();
+    }
+
+    @Test
+    public void apply_brick_states_replace_previous_states_and_create_missing_stacks() {
+        // given
+        Project project = aProject(aBrickState("build-A", "jenkins", BrickStateEvent.State.STARTING), aBrickState("build-A", "nexus", BrickStateEvent.State.RUNNING));
+
+        // when
+        Project updated = BrickStateEventPersistenceActor.applyBrickStateEvents(project, Arrays.asList(
+                aBrickState("build-A", "jenkins", BrickStateEvent.State.RUNNING),
+                aBrickState("build-A", "sonar", BrickStateEvent.State.STARTING),
+                aBrickState("run-B", "jenkins", BrickStateEvent.State.STARTING)
+        ));
+
+        // then
+        Map<String, Stack> stacks = updated.getStacks().stream().collect(Collectors.toMap(Stack::getName, Function.identity()));
+        assertThat(stacks).containsOnlyKeys("build-A", "run-B");
+        assertThat(statesByBrickName(stacks.get("build-A")))
+                .containsEntry("jenkins", BrickStateEvent.State.RUNNING)
+                .containsEntry("nexus", BrickStateEvent.State.RUNNING)
+                .containsEntry("sonar", BrickStateEvent.State.STARTING)
+                .hasSize(3);
+        assertThat(statesByBrickName(stacks.get("run-B"))).containsOnlyKeys("jenkins");
+    }
+
+    @Test
+    public void batch_is_written_before_the_result_is_replied() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ProjectRepository projectRepository = mock(ProjectRepository.class);
+            when(projectRepository.getProjectByProjectConfigurationId("123456")).thenReturn(aProject(aBrickState("build-A", "jenkins", BrickStateEvent.State.STARTING)));
+            ActorRef subject = actorSystem.actorOf(BrickStateEventPersistenceActor.PROPS(projectRepository));
+
+            // when
+            subject.tell(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg("123456", Collections.singletonList(aBrickState("build-A", "jenkins", BrickStateEvent.State.RUNNING)), 42), getRef());
+
+            // then
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg result = expectMsgClass(BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg.class);
+            assertThat(result.isSuccess()).isTrue();
+            assertThat(result.getFlushId()).isEqualTo(42);
+            ArgumentCaptor<Project> written = ArgumentCaptor.forClass(Project.class);
+            verify(projectRepository).updateProject(written.capture());
+            assertThat(statesByBrickName(written.getValue().getStacks().iterator().next())).containsEntry("jenkins", BrickStateEvent.State.RUNNING);
+        }};
+    }
+
+    @Test
+    public void batch_of_an_unknown_project_is_not_persisted() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ProjectRepository projectRepository = mock(ProjectRepository.class);
+            ActorRef subject = actorSystem.actorOf(BrickStateEventPersistenceActor.PROPS(projectRepository));
+
+            // when
+            subject.tell(new BrickStateEventPersistenceActor.BrickStateEventsPersistenceMsg("123456", Collections.singletonList(aBrickState("build-A", "jenkins", BrickStateEvent.State.RUNNING)), 1), getRef());
+
+            // then
+            BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg result = expectMsgClass(BrickStateEventPersistenceActor.BrickStateEventsPersistenceResultMsg.class);
+            assertThat(result.isSuccess()).isFalse();
+        }};
+    }
+
+    private static Project aProject(BrickStateEvent... brickStateEvents) {
+        Set<Stack> stacks = new HashSet<>();
+        stacks.add(new Stack("build-A", StackType.BUILD, new HashSet<>(Arrays.asList(brickStateEvents))));
+        return new Project("123456", "Acme", new Date(), stacks);
+    }
+
+    private static BrickStateEvent aBrickState(String stackName, String brickName, BrickStateEvent.State state) {
+        return new BrickStateEvent("123456", stackName, BrickType.CI.name(), brickName, state, "1.0");
+    }
+
+    private static Map<String, BrickStateEvent.State> statesByBrickName(Stack stack) {
+        return stack.getBrickStateEvents().stream().collect(Collectors.toMap(BrickStateEvent::getBrickName, BrickStateEvent::getState));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+}
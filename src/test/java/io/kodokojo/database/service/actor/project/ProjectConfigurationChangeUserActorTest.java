@@ -0,0 +1,161 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.project;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.TypeChange;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.ProjectFetcher;
+import io.kodokojo.database.service.actor.SagaTimeout;
+import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
+import io.kodokojo.database.service.actor.user.UserFetcherActor;
+import io.kodokojo.test.DataBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ProjectConfigurationChangeUserActorTest implements DataBuilder {
+
+    private static ActorSystem actorSystem;
+
+    private static JavaTestKit endpoint;
+
+    @BeforeClass
+    public static void setup() {
+        //  The actor reaches the endpoint through EndpointActor.ACTOR_PATH.
+        actorSystem = ActorSystem.create("kodokojo", ConfigFactory.parseString(
+                "kodokojo.saga." + ProjectConfigurationChangeUserActor.SAGA + ".receive-timeout = 500ms"
+        ).withFallback(ConfigFactory.load()));
+        endpoint = new JavaTestKit(actorSystem);
+        actorSystem.actorOf(Props.create(EndpointStandIn.class, endpoint.getRef()), "endpoint");
+    }
+
+    @Test
+    public void adding_users_fetch_them_once_and_write_once() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+            when(projectConfiguration.getIdentifier()).thenReturn("1234");
+            when(projectConfiguration.getEntityIdentifier()).thenReturn("5678");
+            ProjectFetcher projectFetcher = mock(ProjectFetcher.class);
+            when(projectFetcher.getProjectConfigurationById("1234")).thenReturn(projectConfiguration);
+            List<String> userIds = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                userIds.add("user-" + i);
+            }
+            ActorRef subject = actorSystem.actorOf(ProjectConfigurationChangeUserActor.PROPS(projectFetcher));
+
+            // when
+            subject.tell(new ProjectConfigurationChangeUserActor.ProjectConfigurationChangeEventUserMsg(null, null, TypeChange.ADD, "1234", userIds), getRef());
+
+            // then
+            ProjectConfigurationChangeUserActor.ProjectConfigurationChangeUserResultMsg result = expectMsgClass(duration("5 seconds"), ProjectConfigurationChangeUserActor.ProjectConfigurationChangeUserResultMsg.class);
+            assertThat(result.isSuccess()).isTrue();
+
+            Object[] received = endpoint.receiveN(3);
+            List<Class<?>> types = new ArrayList<>();
+            for (Object msg : received) {
+                types.add(msg.getClass());
+            }
+            assertThat(types).containsOnly(UserFetcherActor.UserFetchMsg.class, OrganisationMessage.AddUsersToOrganisationMsg.class, ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg.class);
+            for (Object msg : received) {
+                if (msg instanceof ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg) {
+                    assertThat(((ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg) msg).getPatch().getUsersToAdd()).hasSize(50);
+                }
+            }
+            endpoint.expectNoMsg(duration("200 milliseconds"));
+        }};
+    }
+
+    @Test
+    public void unanswered_user_fetch_fails_the_request_and_stops_the_actor() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+            when(projectConfiguration.getIdentifier()).thenReturn("4321");
+            ProjectFetcher projectFetcher = mock(ProjectFetcher.class);
+            when(projectFetcher.getProjectConfigurationById("4321")).thenReturn(projectConfiguration);
+            JavaTestKit abandoned = new JavaTestKit(actorSystem);
+            actorSystem.eventStream().subscribe(abandoned.getRef(), SagaTimeout.SagaAbandoned.class);
+            ActorRef subject = actorSystem.actorOf(ProjectConfigurationChangeUserActor.PROPS(projectFetcher));
+            watch(subject);
+
+            // when
+            subject.tell(new ProjectConfigurationChangeUserActor.ProjectConfigurationChangeEventUserMsg(null, null, TypeChange.ADD, "4321", Collections.singletonList(EndpointStandIn.UNANSWERED)), getRef());
+
+            // then
+            endpoint.expectMsgClass(UserFetcherActor.UserFetchMsg.class);
+            ProjectConfigurationChangeUserActor.ProjectConfigurationChangeUserResultMsg result = expectMsgClass(duration("5 seconds"), ProjectConfigurationChangeUserActor.ProjectConfigurationChangeUserResultMsg.class);
+            assertThat(result.isSuccess()).isFalse();
+            expectTerminated(subject);
+            SagaTimeout.SagaAbandoned sagaAbandoned = abandoned.expectMsgClass(SagaTimeout.SagaAbandoned.class);
+            assertThat(sagaAbandoned.getSaga()).isEqualTo(ProjectConfigurationChangeUserActor.SAGA);
+            assertThat(sagaAbandoned.getActorPath()).isEqualTo(subject.path().toString());
+            actorSystem.eventStream().unsubscribe(abandoned.getRef());
+        }};
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    //  Forward messages sent to the endpoint to the probe, and reply as the user and project endpoints would.
+    public static class EndpointStandIn extends AbstractActor {
+
+        //  User fetch requested for this identifier is never answered.
+        static final String UNANSWERED = "unanswered";
+
+        public EndpointStandIn(ActorRef probe) {
+            receive(ReceiveBuilder.match(UserFetcherActor.UserFetchMsg.class, msg -> msg.getUserIds().contains(UNANSWERED), msg -> probe.tell(msg, self()))
+                    .match(UserFetcherActor.UserFetchMsg.class, msg -> {
+                probe.tell(msg, self());
+                Set<String> userIds = msg.getUserIds();
+                Set<User> users = userIds.stream().map(EndpointStandIn::aUser).collect(Collectors.toCollection(HashSet::new));
+                sender().tell(new UserFetcherActor.UserFetchResultMsg(msg.getRequester(), msg.originalEvent(), userIds, users), self());
+            }).match(ProjectConfigurationUpdaterActor.ProjectConfigurationPatchMsg.class, msg -> {
+                probe.tell(msg, self());
+                sender().tell(new ProjectConfigurationUpdaterActor.ProjectConfigurationPatchResultMsg(msg.getRequester(), msg.originalEvent(), true), self());
+            }).matchAny(msg -> probe.tell(msg, self())).build());
+        }
+
+        private static User aUser(String identifier) {
+            return new User(identifier, "5678", identifier, identifier, identifier + "@kodokojo.io", "password", "ssh-rsa AAAA", false);
+        }
+    }
+
+}
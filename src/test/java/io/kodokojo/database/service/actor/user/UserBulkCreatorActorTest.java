@@ -0,0 +1,187 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.user;
+
+import akka.actor.AbstractActor;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Status;
+import akka.japi.pf.ReceiveBuilder;
+import akka.testkit.JavaTestKit;
+import com.typesafe.config.ConfigFactory;
+import io.kodokojo.commons.model.Organisation;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import io.kodokojo.commons.service.repository.OrganisationRepository;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.actor.SagaTimeout;
+import io.kodokojo.database.service.actor.organisation.OrganisationMessage;
+import io.kodokojo.database.service.email.EmailTemplateEngine;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.database.service.security.RsaKeyPairPool;
+import io.kodokojo.test.DataBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static akka.pattern.Patterns.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserBulkCreatorActorTest implements DataBuilder {
+
+    private static ActorSystem actorSystem;
+
+    private static JavaTestKit endpoint;
+
+    private static OrganisationRepository organisationRepository;
+
+    @BeforeClass
+    public static void setup() {
+        //  The saga reaches the endpoint through EndpointActor.ACTOR_PATH.
+        actorSystem = ActorSystem.create("kodokojo", ConfigFactory.parseString(
+                "kodokojo.saga." + UserBulkCreatorActor.SAGA + ".receive-timeout = 3s"
+        ).withFallback(ConfigFactory.load()));
+        endpoint = new JavaTestKit(actorSystem);
+        actorSystem.actorOf(Props.create(EndpointStandIn.class, endpoint.getRef()), "endpoint");
+        organisationRepository = mock(OrganisationRepository.class);
+        when(organisationRepository.getOrganisationById("5678")).thenReturn(new Organisation("Kodokojo"));
+        when(organisationRepository.getOrganisationById(EndpointStandIn.UNANSWERED)).thenReturn(new Organisation("Kodokojo"));
+    }
+
+    @Test
+    public void create_users_with_one_membership_update() throws Exception {
+        // given
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.usernameAlreadyExist("jpthiery")).thenReturn(true);
+        AtomicInteger ids = new AtomicInteger();
+        when(userRepository.generateId()).thenAnswer(invocation -> "id-" + ids.getAndIncrement());
+        when(userRepository.addUser(any(User.class))).thenReturn(true);
+        List<UserBulkCreatorActor.UserBulkCreationRequest.Entry> entries = Arrays.asList(
+                new UserBulkCreatorActor.UserBulkCreationRequest.Entry("jpthiery@kodokojo.io", "jpthiery"),
+                new UserBulkCreatorActor.UserBulkCreationRequest.Entry("aletaxin@kodokojo.io", "aletaxin"),
+                new UserBulkCreatorActor.UserBulkCreationRequest.Entry("aletaxin@kodokojo.io", "aletaxin"),
+                new UserBulkCreatorActor.UserBulkCreationRequest.Entry("smaurel@kodokojo.io", "smaurel"),
+                new UserBulkCreatorActor.UserBulkCreationRequest.Entry("jdoe@kodokojo.io", "jdoe")
+        );
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        ActorRef subject = actorSystem.actorOf(UserBulkCreatorActor.PROPS(userRepository, organisationRepository, new RsaKeyPairPool(0, 0, metricsRegistry), new UserCache(0, 1, TimeUnit.MINUTES, metricsRegistry), new EmailTemplateEngine(null), 2));
+
+        // when
+        Object result = Await.result(ask(subject, new UserBulkCreatorActor.EventUserBulkCreateMsg(anUser(), null, "5678", entries), DataBuilder.thirtySeconds), Duration.create(30, TimeUnit.SECONDS));
+
+        // then
+        assertThat(result).isInstanceOf(UserBulkCreatorActor.UserBulkCreateResultMsg.class);
+        UserBulkCreatorActor.UserBulkCreateResultMsg resultMsg = (UserBulkCreatorActor.UserBulkCreateResultMsg) result;
+        assertThat(resultMsg.getCreated().stream().map(User::getUsername).collect(Collectors.toList())).containsExactly("aletaxin", "smaurel", "jdoe");
+        assertThat(resultMsg.getRejected()).containsOnly("aletaxin", "jpthiery");
+
+        verify(userRepository, times(4)).usernameAlreadyExist(anyString());
+        verify(userRepository, times(3)).generateId();
+        verify(userRepository, times(3)).addUser(any(User.class));
+
+        List<Object> received = Arrays.asList(endpoint.receiveN(4));
+        List<OrganisationMessage.AddUsersToOrganisationMsg> membershipUpdates = received.stream()
+                .filter(msg -> msg instanceof OrganisationMessage.AddUsersToOrganisationMsg)
+                .map(msg -> (OrganisationMessage.AddUsersToOrganisationMsg) msg)
+                .collect(Collectors.toList());
+        assertThat(membershipUpdates).hasSize(1);
+        assertThat(membershipUpdates.get(0).getUserIds()).containsExactly("id-0", "id-1", "id-2");
+        assertThat(received.stream().filter(msg -> msg instanceof EmailSenderActor.EmailSenderMsg).count()).isEqualTo(3);
+    }
+
+    @Test
+    public void unknown_organisation_fails_the_request_before_any_user_is_stored() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            UserRepository userRepository = mock(UserRepository.class);
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            ActorRef subject = actorSystem.actorOf(UserBulkCreatorActor.PROPS(userRepository, organisationRepository, new RsaKeyPairPool(0, 0, metricsRegistry), new UserCache(0, 1, TimeUnit.MINUTES, metricsRegistry), new EmailTemplateEngine(null), 2));
+            watch(subject);
+
+            // when
+            subject.tell(new UserBulkCreatorActor.EventUserBulkCreateMsg(anUser(), null, "unknown", Collections.singletonList(new UserBulkCreatorActor.UserBulkCreationRequest.Entry("jdoe@kodokojo.io", "jdoe"))), getRef());
+
+            // then
+            Status.Failure failure = expectMsgClass(Status.Failure.class);
+            assertThat(failure.cause()).isInstanceOf(IllegalArgumentException.class);
+            expectTerminated(subject);
+            verifyZeroInteractions(userRepository);
+        }};
+    }
+
+    @Test
+    public void unanswered_membership_update_fails_the_request_and_stops_the_actor() {
+        new JavaTestKit(actorSystem) {{
+            // given
+            UserRepository userRepository = mock(UserRepository.class);
+            when(userRepository.generateId()).thenReturn("id-0");
+            when(userRepository.addUser(any(User.class))).thenReturn(true);
+            MetricsRegistry metricsRegistry = new MetricsRegistry();
+            JavaTestKit abandoned = new JavaTestKit(actorSystem);
+            actorSystem.eventStream().subscribe(abandoned.getRef(), SagaTimeout.SagaAbandoned.class);
+            ActorRef subject = actorSystem.actorOf(UserBulkCreatorActor.PROPS(userRepository, organisationRepository, new RsaKeyPairPool(0, 0, metricsRegistry), new UserCache(0, 1, TimeUnit.MINUTES, metricsRegistry), new EmailTemplateEngine(null), 2));
+            watch(subject);
+
+            // when
+            subject.tell(new UserBulkCreatorActor.EventUserBulkCreateMsg(anUser(), null, EndpointStandIn.UNANSWERED, Collections.singletonList(new UserBulkCreatorActor.UserBulkCreationRequest.Entry("jdoe@kodokojo.io", "jdoe"))), getRef());
+
+            // then
+            Status.Failure failure = expectMsgClass(duration("10 seconds"), Status.Failure.class);
+            assertThat(failure.cause()).isInstanceOf(TimeoutException.class);
+            expectTerminated(subject);
+            SagaTimeout.SagaAbandoned sagaAbandoned = abandoned.expectMsgClass(SagaTimeout.SagaAbandoned.class);
+            assertThat(sagaAbandoned.getSaga()).isEqualTo(UserBulkCreatorActor.SAGA);
+            actorSystem.eventStream().unsubscribe(abandoned.getRef());
+            endpoint.receiveN(2);
+        }};
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+    //  Forward messages sent to the endpoint to the probe and acknowledge membership updates, but those of the UNANSWERED organisation.
+    public static class EndpointStandIn extends AbstractActor {
+
+        static final String UNANSWERED = "unanswered";
+
+        public EndpointStandIn(ActorRef probe) {
+            receive(ReceiveBuilder.match(OrganisationMessage.AddUsersToOrganisationMsg.class, msg -> UNANSWERED.equals(msg.getOrganisationId()), msg -> probe.tell(msg, self()))
+                    .match(OrganisationMessage.AddUsersToOrganisationMsg.class, msg -> {
+                probe.tell(msg, self());
+                sender().tell(Boolean.TRUE, self());
+            }).matchAny(msg -> probe.tell(msg, self())).build());
+        }
+    }
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.actor.user;
+
+import akka.actor.Actor;
+import akka.actor.ActorSystem;
+import akka.testkit.JavaTestKit;
+import akka.testkit.TestActorRef;
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
+import io.kodokojo.test.DataBuilder;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import scala.concurrent.Await;
+import scala.concurrent.Future;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static akka.pattern.Patterns.ask;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserFetcherActorTest implements DataBuilder {
+
+    private static ActorSystem actorSystem;
+
+    @BeforeClass
+    public static void setup() {
+        actorSystem = ActorSystem.create();
+    }
+
+    @Test
+    public void fetch_users_one_by_one_and_ignore_unknown_ones() throws Exception {
+        // given
+        User user = anUser();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getUserByIdentifier("1234")).thenReturn(user);
+        TestActorRef<Actor> subject = TestActorRef.create(actorSystem, UserFetcherActor.PROPS(userRepository, new UserCache(0, 1, TimeUnit.MINUTES, new MetricsRegistry())));
+        Collection<String> userIds = new HashSet<>(Arrays.asList("1234", "unknown"));
+
+        // when
+        Future<Object> future = ask(subject, new UserFetcherActor.UserFetchMsg(null, null, new HashSet<>(userIds)), DataBuilder.thirtySeconds);
+        Object result = Await.result(future, DataBuilder.twoSeconds);
+
+        // then
+        assertThat(((UserFetcherActor.UserFetchResultMsg) result).getUsers()).containsOnly(user);
+    }
+
+    @Test
+    public void cached_users_are_not_fetched_again() throws Exception {
+        // given
+        User user = new User("1234", "5678", "John Doe", "jdoe", "jdoe@kodokojo.io", "password", "ssh-rsa key");
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.getUserByIdentifier(user.getIdentifier())).thenReturn(user);
+        TestActorRef<Actor> subject = TestActorRef.create(actorSystem, UserFetcherActor.PROPS(userRepository, new UserCache(16, 1, TimeUnit.MINUTES, new MetricsRegistry())));
+        UserFetcherActor.UserFetchMsg msg = new UserFetcherActor.UserFetchMsg(null, null, Collections.singleton(user.getIdentifier()));
+
+        // when
+        Await.result(ask(subject, msg, DataBuilder.thirtySeconds), DataBuilder.twoSeconds);
+        Object result = Await.result(ask(subject, msg, DataBuilder.thirtySeconds), DataBuilder.twoSeconds);
+
+        // then
+        assertThat(((UserFetcherActor.UserFetchResultMsg) result).getUsers()).containsOnly(user);
+        verify(userRepository, times(1)).getUserByIdentifier(user.getIdentifier());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        JavaTestKit.shutdownActorSystem(actorSystem);
+        actorSystem = null;
+    }
+
+}
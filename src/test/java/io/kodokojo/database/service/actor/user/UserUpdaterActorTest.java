@@ -24,6 +24,8 @@ import akka.testkit.TestActorRef;
 import akka.util.Timeout;
 import io.kodokojo.commons.model.User;
 import io.kodokojo.commons.service.repository.UserRepository;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.database.service.repository.UserCache;
 import io.kodokojo.test.DataBuilder;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -60,7 +62,7 @@ public class UserUpdaterActorTest implements DataBuilder {
 
         UserRepository userRepository = mock(UserRepository.class);
 
-        TestActorRef<Actor> subject = TestActorRef.create(actorSystem, UserUpdaterActor.PROPS(userRepository));
+        TestActorRef<Actor> subject = TestActorRef.create(actorSystem, UserUpdaterActor.PROPS(userRepository, new UserCache(0, 1, TimeUnit.MINUTES, new MetricsRegistry())));
         //actorSystem.actorOf(Props.create())
 
         // when
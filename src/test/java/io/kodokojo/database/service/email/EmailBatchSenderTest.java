@@ -0,0 +1,64 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class EmailBatchSenderTest {
+
+    @Test
+    public void a_failing_email_does_not_prevent_the_rest_of_the_batch_to_be_sent() {
+        // given
+        EmailSender emailSender = mock(EmailSender.class);
+        doThrow(new IllegalStateException("Mailbox unavailable")).when(emailSender)
+                .send(any(), any(), any(), eq("Kodo Kojo user 1 created"), anyString(), anyBoolean(), any());
+        EmailBatchSender emailBatchSender = EmailBatchSender.of(emailSender);
+
+        // when
+        int sent = emailBatchSender.send(anEmailBatch(3));
+
+        // then
+        assertThat(sent).isEqualTo(2);
+        verify(emailSender, times(3)).send(any(), any(), any(), anyString(), anyString(), anyBoolean(), any());
+    }
+
+    private static List<EmailSenderActor.EmailSenderMsg> anEmailBatch(int size) {
+        List<EmailSenderActor.EmailSenderMsg> emails = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            emails.add(new EmailSenderActor.EmailSenderMsg(Collections.singletonList("user" + i + "@kodokojo.io"), null, null, "Kodo Kojo user " + i + " created", "<p>Welcome</p>", true, Collections.emptySet()));
+        }
+        return emails;
+    }
+
+}
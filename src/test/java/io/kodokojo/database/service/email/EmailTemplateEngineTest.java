@@ -0,0 +1,73 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EmailTemplateEngineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void render_user_created_template_from_classpath() {
+        // given
+        EmailTemplateEngine emailTemplateEngine = new EmailTemplateEngine(null).precompile(EmailTemplateEngine.USER_CREATED);
+
+        // when
+        String first = emailTemplateEngine.render(EmailTemplateEngine.USER_CREATED, aModel("jpthiery", "p4ssw0rd"));
+        String second = emailTemplateEngine.render(EmailTemplateEngine.USER_CREATED, aModel("mdupond", "s3cr3t"));
+
+        // then
+        assertThat(first).startsWith("<!DOCTYPE html").contains("jpthiery account details").contains("p4ssw0rd").doesNotContain("mdupond");
+        assertThat(second).contains("mdupond account details").contains("s3cr3t").doesNotContain("jpthiery");
+        assertThat(first).doesNotContain("$!{");
+    }
+
+    @Test
+    public void render_template_overridden_from_file_system() throws Exception {
+        // given
+        File override = new File(temporaryFolder.getRoot(), EmailTemplateEngine.USER_CREATED);
+        FileUtils.writeStringToFile(override, "Welcome $username", StandardCharsets.UTF_8);
+        EmailTemplateEngine emailTemplateEngine = new EmailTemplateEngine(temporaryFolder.getRoot().getAbsolutePath());
+
+        // when
+        String content = emailTemplateEngine.render(EmailTemplateEngine.USER_CREATED, aModel("jpthiery", "p4ssw0rd"));
+
+        // then
+        assertThat(content).isEqualTo("Welcome jpthiery");
+    }
+
+    private static Map<String, Object> aModel(String username, String password) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("username", username);
+        model.put("password", password);
+        return model;
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import io.kodokojo.commons.service.EmailSender;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PooledSmtpEmailSenderTest {
+
+    @Test
+    public void send_successive_batches_on_a_single_connection() throws Exception {
+        try (SmtpStandIn smtpStandIn = new SmtpStandIn()) {
+            // given
+            PooledSmtpEmailSender sender = new PooledSmtpEmailSender(new SmtpSessionPool("localhost", smtpStandIn.getPort(), null, null, false, 1), "kodokojo@kodokojo.io");
+
+            // when
+            int firstBatch = sender.send(anEmailBatch(3));
+            int secondBatch = sender.send(anEmailBatch(2));
+            sender.stop();
+
+            // then
+            assertThat(firstBatch).isEqualTo(3);
+            assertThat(secondBatch).isEqualTo(2);
+            assertThat(smtpStandIn.getMessages()).isEqualTo(5);
+            assertThat(smtpStandIn.getConnections()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void report_unsent_emails_when_server_is_unreachable() throws Exception {
+        // given
+        SmtpSessionPool smtpSessionPool;
+        int port;
+        try (SmtpStandIn smtpStandIn = new SmtpStandIn()) {
+            port = smtpStandIn.getPort();
+            smtpSessionPool = new SmtpSessionPool("localhost", port, null, null, false, 1);
+            PooledSmtpEmailSender sender = new PooledSmtpEmailSender(smtpSessionPool, "kodokojo@kodokojo.io");
+            assertThat(sender.send(anEmailBatch(1))).isEqualTo(1);
+        }
+
+        // when
+        int sent = new PooledSmtpEmailSender(smtpSessionPool, "kodokojo@kodokojo.io").send(anEmailBatch(1));
+        smtpSessionPool.stop();
+
+        // then
+        assertThat(sent).isEqualTo(0);
+    }
+
+    private static List<EmailSenderActor.EmailSenderMsg> anEmailBatch(int size) {
+        List<EmailSenderActor.EmailSenderMsg> emails = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Set<EmailSender.Attachment> attachments = new HashSet<>();
+            attachments.add(new EmailSender.PlainTextAttachment<>("ssh-rsa AAAA", "user" + i + ".pub"));
+            emails.add(new EmailSenderActor.EmailSenderMsg(Collections.singletonList("user" + i + "@kodokojo.io"), null, null, "Kodo Kojo user " + i + " created", "<p>Welcome</p>", true, attachments));
+        }
+        return emails;
+    }
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.simpleemail.AmazonSimpleEmailService;
+import com.amazonaws.services.simpleemail.model.SendRawEmailRequest;
+import io.kodokojo.commons.service.actor.EmailSenderActor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SesEmailBatchSenderTest {
+
+    @Test
+    public void a_failing_email_does_not_prevent_the_rest_of_the_batch_to_be_sent_with_the_same_client() {
+        // given
+        AmazonSimpleEmailService amazonSimpleEmailService = mock(AmazonSimpleEmailService.class);
+        when(amazonSimpleEmailService.sendRawEmail(any(SendRawEmailRequest.class)))
+                .thenReturn(null)
+                .thenThrow(new AmazonServiceException("Throttling"))
+                .thenReturn(null);
+        SesEmailBatchSender sender = new SesEmailBatchSender(amazonSimpleEmailService, "kodokojo@kodokojo.io");
+
+        // when
+        int sent = sender.send(anEmailBatch(3));
+        sender.stop();
+
+        // then
+        assertThat(sent).isEqualTo(2);
+        verify(amazonSimpleEmailService, times(3)).sendRawEmail(any(SendRawEmailRequest.class));
+        verify(amazonSimpleEmailService).shutdown();
+    }
+
+    private static List<EmailSenderActor.EmailSenderMsg> anEmailBatch(int size) {
+        List<EmailSenderActor.EmailSenderMsg> emails = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            emails.add(new EmailSenderActor.EmailSenderMsg(Collections.singletonList("user" + i + "@kodokojo.io"), null, null, "Kodo Kojo user " + i + " created", "<p>Welcome</p>", true, Collections.emptySet()));
+        }
+        return emails;
+    }
+
+}
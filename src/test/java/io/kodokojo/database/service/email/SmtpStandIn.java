@@ -0,0 +1,115 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal local SMTP server which accepts every message and counts connections and delivered messages.
+ */
+class SmtpStandIn implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final AtomicInteger messages = new AtomicInteger();
+
+    SmtpStandIn() throws IOException {
+        serverSocket = new ServerSocket(0);
+        Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    int getConnections() {
+        return connections.get();
+    }
+
+    int getMessages() {
+        return messages.get();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                Thread handler = new Thread(() -> handle(socket), "smtp-stand-in-session");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                //  Server socket closed.
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))) {
+            OutputStream out = s.getOutputStream();
+            PrintWriter writer = new PrintWriter(out, true);
+            reply(writer, "220 localhost SMTP stand-in");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String command = line.toUpperCase();
+                if (command.startsWith("EHLO")) {
+                    reply(writer, "250-localhost");
+                    reply(writer, "250 OK");
+                } else if (command.startsWith("DATA")) {
+                    reply(writer, "354 End data with <CR><LF>.<CR><LF>");
+                    while ((line = reader.readLine()) != null && !".".equals(line)) {
+                        //  Skip message content.
+                    }
+                    messages.incrementAndGet();
+                    reply(writer, "250 OK");
+                } else if (command.startsWith("QUIT")) {
+                    reply(writer, "221 Bye");
+                    return;
+                } else {
+                    reply(writer, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            //  Client disconnected.
+        }
+    }
+
+    private static void reply(PrintWriter writer, String line) {
+        writer.print(line + "\r\n");
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+}
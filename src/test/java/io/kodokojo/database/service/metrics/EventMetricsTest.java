@@ -0,0 +1,56 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.metrics;
+
+import io.kodokojo.commons.event.Event;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EventMetricsTest {
+
+    @Test
+    public void fire_and_forget_events_do_not_evict_events_waiting_for_a_reply() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        EventMetrics eventMetrics = new EventMetrics(metricsRegistry, 2);
+        Event request = anEvent(Event.USER_CREATION_REQUEST);
+
+        // when
+        eventMetrics.received(request);
+        for (int i = 0; i < 100; i++) {
+            eventMetrics.received(anEvent(Event.BRICK_STATE_UPDATE), false);
+        }
+        eventMetrics.replied(request);
+
+        // then
+        assertThat(eventMetrics.inFlight()).isEqualTo(0);
+        assertThat(metricsRegistry.counters().get(EventMetrics.RECEIVED_COUNTER + "{" + EventMetrics.EVENT_TYPE_LABEL + "=\"" + Event.BRICK_STATE_UPDATE + "\"}")).isEqualTo(100L);
+        assertThat(metricsRegistry.counters().get(EventMetrics.UNREPLIED_COUNTER + "{" + EventMetrics.EVENT_TYPE_LABEL + "=\"" + Event.USER_CREATION_REQUEST + "\"}")).isEqualTo(0L);
+        assertThat(metricsRegistry.histograms().get(EventMetrics.REPLY_LATENCY_HISTOGRAM + "{" + EventMetrics.EVENT_TYPE_LABEL + "=\"" + Event.USER_CREATION_REQUEST + "\"}").count()).isEqualTo(1L);
+    }
+
+    private static Event anEvent(String eventType) {
+        Event event = mock(Event.class);
+        when(event.getEventType()).thenReturn(eventType);
+        return event;
+    }
+
+}
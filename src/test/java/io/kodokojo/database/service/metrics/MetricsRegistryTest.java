@@ -0,0 +1,62 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void render_labelled_metrics_in_prometheus_text_format() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        metricsRegistry.counter("events_total", "event_type", "user_creation").add(3);
+        metricsRegistry.gauge("pool_depth", () -> 12);
+        metricsRegistry.histogram("latency_seconds", "event_type", "user_creation").observeNanos(TimeUnit.MILLISECONDS.toNanos(20));
+
+        // when
+        String text = metricsRegistry.toPrometheusText();
+
+        // then
+        assertThat(text).contains("# TYPE events_total counter\nevents_total{event_type=\"user_creation\"} 3\n");
+        assertThat(text).contains("# TYPE pool_depth gauge\npool_depth 12\n");
+        assertThat(text).contains("# TYPE latency_seconds histogram\n");
+        assertThat(text).contains("latency_seconds_bucket{event_type=\"user_creation\",le=\"0.01\"} 0\n");
+        assertThat(text).contains("latency_seconds_bucket{event_type=\"user_creation\",le=\"0.025\"} 1\n");
+        assertThat(text).contains("latency_seconds_bucket{event_type=\"user_creation\",le=\"+Inf\"} 1\n");
+        assertThat(text).contains("latency_seconds_count{event_type=\"user_creation\"} 1\n");
+    }
+
+    @Test
+    public void same_labels_share_the_same_counter() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+
+        // when
+        metricsRegistry.counter("errors_total", "reason", "unhandled").increment();
+        metricsRegistry.counter("errors_total", "reason", "unhandled").increment();
+
+        // then
+        assertThat(metricsRegistry.counters().get("errors_total{reason=\"unhandled\"}")).isEqualTo(2L);
+    }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.repository;
+
+import io.kodokojo.commons.model.BrickConfiguration;
+import io.kodokojo.commons.model.ProjectConfiguration;
+import io.kodokojo.commons.model.StackConfiguration;
+import io.kodokojo.commons.service.repository.ProjectRepository;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ProjectConfigurationPatcherTest {
+
+    @Test
+    public void brick_properties_patch_is_written_only_when_it_changes_the_configuration() {
+        // given
+        Map<String, Serializable> properties = new HashMap<>();
+        properties.put("url", "https://ci.kodokojo.io");
+        ProjectRepository projectRepository = aProjectRepository(aProjectConfiguration(properties));
+        ProjectConfigurationPatcher patcher = ProjectConfigurationPatcher.of(projectRepository);
+
+        // when
+        boolean unchanged = patcher.applyPatch(ProjectConfigurationPatch.builder("1234").setBrickProperties("build-A", "jenkins", Collections.singletonMap("url", "https://ci.kodokojo.io")).build());
+        boolean changed = patcher.applyPatch(ProjectConfigurationPatch.builder("1234").setBrickProperties("build-A", "jenkins", Collections.singletonMap("url", "https://jenkins.kodokojo.io")).build());
+
+        // then
+        assertThat(unchanged).isTrue();
+        assertThat(changed).isTrue();
+        assertThat(properties.get("url")).isEqualTo("https://jenkins.kodokojo.io");
+        verify(projectRepository, times(1)).updateProjectConfiguration(any(ProjectConfiguration.class));
+    }
+
+    @Test
+    public void removing_unknown_user_does_not_write() {
+        // given
+        ProjectConfiguration projectConfiguration = aProjectConfiguration(new HashMap<>());
+        when(projectConfiguration.getUsers()).thenReturn(Collections.emptyIterator());
+        ProjectRepository projectRepository = aProjectRepository(projectConfiguration);
+
+        // when
+        boolean applied = ProjectConfigurationPatcher.of(projectRepository).applyPatch(ProjectConfigurationPatch.builder("1234").removeUsers(Collections.singleton("5678")).build());
+
+        // then
+        assertThat(applied).isTrue();
+        verify(projectRepository, never()).updateProjectConfiguration(any(ProjectConfiguration.class));
+    }
+
+    @Test
+    public void patch_of_unknown_project_configuration_is_not_applied() {
+        // given
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+
+        // when
+        boolean applied = ProjectConfigurationPatcher.of(projectRepository).applyPatch(ProjectConfigurationPatch.builder("1234").removeUsers(Collections.singleton("5678")).build());
+
+        // then
+        assertThat(applied).isFalse();
+        verify(projectRepository, never()).updateProjectConfiguration(any(ProjectConfiguration.class));
+    }
+
+    private static ProjectRepository aProjectRepository(ProjectConfiguration projectConfiguration) {
+        ProjectRepository projectRepository = mock(ProjectRepository.class);
+        when(projectRepository.getProjectConfigurationById("1234")).thenReturn(projectConfiguration);
+        return projectRepository;
+    }
+
+    private static ProjectConfiguration aProjectConfiguration(Map<String, Serializable> jenkinsProperties) {
+        BrickConfiguration jenkins = mock(BrickConfiguration.class);
+        when(jenkins.getName()).thenReturn("jenkins");
+        when(jenkins.getProperties()).thenReturn(jenkinsProperties);
+        Set<BrickConfiguration> brickConfigurations = new HashSet<>(Collections.singleton(jenkins));
+        StackConfiguration stackConfiguration = mock(StackConfiguration.class);
+        when(stackConfiguration.getName()).thenReturn("build-A");
+        when(stackConfiguration.getBrickConfigurations()).thenReturn(brickConfigurations);
+        Set<StackConfiguration> stackConfigurations = new HashSet<>(Collections.singleton(stackConfiguration));
+        ProjectConfiguration projectConfiguration = mock(ProjectConfiguration.class);
+        when(projectConfiguration.getStackConfigurations()).thenReturn(stackConfigurations);
+        return projectConfiguration;
+    }
+
+}
@@ -0,0 +1,137 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.repository;
+
+import io.kodokojo.commons.model.User;
+import io.kodokojo.commons.service.repository.UserFetcher;
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import io.kodokojo.test.DataBuilder;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserCacheTest implements DataBuilder {
+
+    @Test
+    public void read_store_once_while_entry_is_cached() {
+        // given
+        User user = anUser();
+        UserFetcher userFetcher = mock(UserFetcher.class);
+        when(userFetcher.getUserByIdentifier(user.getIdentifier())).thenReturn(user);
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        UserCache userCache = new UserCache(10, 1, TimeUnit.MINUTES, metricsRegistry);
+
+        // when
+        userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+        User result = userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+
+        // then
+        assertThat(result).isEqualTo(user);
+        verify(userFetcher, times(1)).getUserByIdentifier(user.getIdentifier());
+        assertThat(metricsRegistry.counters().get(UserCache.HIT_COUNTER)).isEqualTo(1L);
+        assertThat(metricsRegistry.counters().get(UserCache.MISS_COUNTER)).isEqualTo(1L);
+    }
+
+    @Test
+    public void reload_user_once_invalidated() {
+        // given
+        User user = anUser();
+        UserFetcher userFetcher = mock(UserFetcher.class);
+        when(userFetcher.getUserByIdentifier(user.getIdentifier())).thenReturn(user);
+        UserCache userCache = new UserCache(10, 1, TimeUnit.MINUTES, new MetricsRegistry());
+        userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+
+        // when
+        userCache.invalidate(user.getIdentifier());
+        userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+
+        // then
+        verify(userFetcher, times(2)).getUserByIdentifier(user.getIdentifier());
+    }
+
+    @Test
+    public void user_invalidated_while_loaded_is_not_cached() {
+        // given
+        User previous = aUser("1");
+        User updated = new User("1", "5678", "jpthiery", "jpthiery", "updated@kodokojo.io", "password", "ssh-rsa AAAA", false);
+        UserCache userCache = new UserCache(10, 1, TimeUnit.MINUTES, new MetricsRegistry());
+        UserFetcher userFetcher = mock(UserFetcher.class);
+        when(userFetcher.getUserByIdentifier("1")).thenAnswer(invocation -> {
+            //  The user is written and invalidated after the load read the store.
+            userCache.invalidate("1");
+            return previous;
+        }).thenReturn(updated);
+
+        // when
+        User loaded = userCache.getUserByIdentifier("1", userFetcher);
+        User reloaded = userCache.getUserByIdentifier("1", userFetcher);
+
+        // then
+        assertThat(loaded).isSameAs(previous);
+        assertThat(reloaded).isSameAs(updated);
+        verify(userFetcher, times(2)).getUserByIdentifier("1");
+    }
+
+    @Test
+    public void reload_user_once_expired() {
+        // given
+        User user = anUser();
+        UserFetcher userFetcher = mock(UserFetcher.class);
+        when(userFetcher.getUserByIdentifier(user.getIdentifier())).thenReturn(user);
+        AtomicLong clock = new AtomicLong(0);
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        UserCache userCache = new UserCache(10, 1, TimeUnit.SECONDS, metricsRegistry, clock::get);
+        userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+
+        // when
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        userCache.getUserByIdentifier(user.getIdentifier(), userFetcher);
+
+        // then
+        verify(userFetcher, times(2)).getUserByIdentifier(user.getIdentifier());
+        assertThat(metricsRegistry.counters().get(UserCache.EVICTION_COUNTER)).isEqualTo(1L);
+    }
+
+    @Test
+    public void evict_least_recently_used_user_when_full() {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        UserCache userCache = new UserCache(2, 1, TimeUnit.MINUTES, metricsRegistry);
+        UserFetcher userFetcher = mock(UserFetcher.class);
+
+        // when
+        userCache.put(aUser("1"));
+        userCache.put(aUser("2"));
+        userCache.put(aUser("3"));
+
+        // then
+        assertThat(userCache.size()).isEqualTo(2);
+        assertThat(metricsRegistry.counters().get(UserCache.EVICTION_COUNTER)).isEqualTo(1L);
+        userCache.getUserByIdentifier("1", userFetcher);
+        verify(userFetcher).getUserByIdentifier("1");
+    }
+
+    private static User aUser(String identifier) {
+        return new User(identifier, "5678", "jpthiery", "jpthiery", "jpthiery@kodokojo.io", "password", "ssh-rsa AAAA", false);
+    }
+
+}
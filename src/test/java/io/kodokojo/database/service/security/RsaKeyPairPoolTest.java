@@ -0,0 +1,84 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.security;
+
+import io.kodokojo.database.service.metrics.MetricsRegistry;
+import org.junit.After;
+import org.junit.Test;
+
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RsaKeyPairPoolTest {
+
+    private RsaKeyPairPool rsaKeyPairPool;
+
+    @After
+    public void tearDown() {
+        if (rsaKeyPairPool != null) {
+            rsaKeyPairPool.stop();
+        }
+    }
+
+    @Test
+    public void generate_inline_when_pool_is_disabled() throws NoSuchAlgorithmException {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        rsaKeyPairPool = new RsaKeyPairPool(0, 0, metricsRegistry);
+        rsaKeyPairPool.start();
+
+        // when
+        KeyPair keyPair = rsaKeyPairPool.take();
+
+        // then
+        assertThat(keyPair).isNotNull();
+        assertThat(metricsRegistry.counters().get(RsaKeyPairPool.INLINE_COUNTER)).isEqualTo(1L);
+        assertThat(metricsRegistry.gauges().get(RsaKeyPairPool.DEPTH_GAUGE)).isEqualTo(0);
+    }
+
+    @Test
+    public void serve_pre_generated_key_pairs_then_refill() throws Exception {
+        // given
+        MetricsRegistry metricsRegistry = new MetricsRegistry();
+        rsaKeyPairPool = new RsaKeyPairPool(2, 1, metricsRegistry);
+        rsaKeyPairPool.start();
+        waitUntilDepthIs(2);
+
+        // when
+        KeyPair first = rsaKeyPairPool.take();
+        KeyPair second = rsaKeyPairPool.take();
+
+        // then
+        assertThat(first).isNotNull();
+        assertThat(second).isNotSameAs(first);
+        assertThat(metricsRegistry.counters().get(RsaKeyPairPool.SERVED_COUNTER)).isEqualTo(2L);
+        waitUntilDepthIs(2);
+        assertThat(metricsRegistry.counters().get(RsaKeyPairPool.GENERATED_COUNTER)).isGreaterThanOrEqualTo(4L);
+    }
+
+    private void waitUntilDepthIs(int expectedDepth) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 30000;
+        while (rsaKeyPairPool.depth() < expectedDepth && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertThat(rsaKeyPairPool.depth()).isEqualTo(expectedDepth);
+    }
+
+}
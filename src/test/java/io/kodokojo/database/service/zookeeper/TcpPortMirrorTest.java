@@ -0,0 +1,197 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.zookeeper;
+
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class TcpPortMirrorTest {
+
+    private static final String ACME_PATH = ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + "/acme";
+
+    private ZookeeperClient zookeeperClient;
+
+    private ArgumentCaptor<Watcher> childrenWatcher;
+
+    private ArgumentCaptor<Watcher> dataWatcher;
+
+    @Before
+    public void setup() throws Exception {
+        zookeeperClient = mock(ZookeeperClient.class);
+        when(zookeeperClient.await(any())).thenCallRealMethod();
+        when(zookeeperClient.ensurePath(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        childrenWatcher = ArgumentCaptor.forClass(Watcher.class);
+        dataWatcher = ArgumentCaptor.forClass(Watcher.class);
+        when(zookeeperClient.getChildren(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT), childrenWatcher.capture()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList("acme")));
+        when(zookeeperClient.getData(eq(ACME_PATH), dataWatcher.capture()))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10022".getBytes(), aStat(0))));
+    }
+
+    @Test
+    public void known_project_port_is_provided_without_zookeeper_call() {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        ZookeeperBootstrapConfigurationProvider provider = new ZookeeperBootstrapConfigurationProvider(zookeeperClient, mirror);
+        reset(zookeeperClient);
+
+        // when
+        int port = provider.provideTcpPortEntrypoint("acme", "build-A");
+
+        // then
+        assertThat(port).isEqualTo(10022);
+        verifyZeroInteractions(zookeeperClient);
+    }
+
+    @Test
+    public void data_watch_refresh_the_project_port() {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        Watcher watcher = dataWatcher.getValue();
+        when(zookeeperClient.getData(eq(ACME_PATH), any(Watcher.class)))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10040".getBytes(), aStat(1))));
+
+        // when
+        watcher.process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, ACME_PATH));
+
+        // then
+        assertThat(mirror.getPort("acme")).isEqualTo(10040);
+    }
+
+    @Test
+    public void children_watch_add_and_remove_projects() {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        Watcher watcher = childrenWatcher.getValue();
+        when(zookeeperClient.getChildren(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT), any(Watcher.class)))
+                .thenReturn(CompletableFuture.completedFuture(Arrays.asList("kodokojo")));
+        when(zookeeperClient.getData(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + "/kodokojo"), any(Watcher.class)))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10023".getBytes(), aStat(0))));
+
+        // when
+        watcher.process(new WatchedEvent(Watcher.Event.EventType.NodeChildrenChanged, Watcher.Event.KeeperState.SyncConnected, ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT));
+
+        // then
+        assertThat(mirror.getPort("acme")).isNull();
+        assertThat(mirror.getPort("kodokojo")).isEqualTo(10023);
+        assertThat(mirror.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void storing_the_known_port_does_not_write() throws Exception {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+
+        // when
+        zookeeperClient.await(mirror.store("acme", 10022));
+
+        // then
+        verify(zookeeperClient, never()).setData(anyString(), any(byte[].class), anyInt());
+        verify(zookeeperClient, never()).create(anyString(), any(byte[].class));
+    }
+
+    @Test
+    public void storing_a_new_port_update_the_mirror() throws Exception {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        when(zookeeperClient.setData(eq(ACME_PATH), any(byte[].class), eq(0))).thenReturn(CompletableFuture.completedFuture(aStat(1)));
+
+        // when
+        zookeeperClient.await(mirror.store("acme", 10050));
+
+        // then
+        assertThat(mirror.getPort("acme")).isEqualTo(10050);
+        verify(zookeeperClient).setData(eq(ACME_PATH), any(byte[].class), eq(0));
+    }
+
+    @Test
+    public void created_project_node_is_watched() throws Exception {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        String kodokojoPath = ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT + "/kodokojo";
+        when(zookeeperClient.create(eq(kodokojoPath), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(kodokojoPath));
+        ArgumentCaptor<Watcher> createdWatcher = ArgumentCaptor.forClass(Watcher.class);
+        when(zookeeperClient.getData(eq(kodokojoPath), createdWatcher.capture()))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10023".getBytes(), aStat(0, 7))))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10024".getBytes(), aStat(1, 7))));
+
+        // when
+        zookeeperClient.await(mirror.store("kodokojo", 10023));
+        createdWatcher.getValue().process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, kodokojoPath));
+
+        // then
+        assertThat(mirror.getPort("kodokojo")).isEqualTo(10024);
+    }
+
+    @Test
+    public void recreated_project_node_replace_a_more_recent_version() {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        Watcher watcher = dataWatcher.getValue();
+        when(zookeeperClient.getData(eq(ACME_PATH), any(Watcher.class)))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10040".getBytes(), aStat(3, 1))))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10060".getBytes(), aStat(0, 9))));
+        watcher.process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, ACME_PATH));
+
+        // when
+        watcher.process(new WatchedEvent(Watcher.Event.EventType.NodeDataChanged, Watcher.Event.KeeperState.SyncConnected, ACME_PATH));
+
+        // then
+        assertThat(mirror.getPort("acme")).isEqualTo(10060);
+    }
+
+    @Test
+    public void renewed_session_reload_known_projects() {
+        // given
+        TcpPortMirror mirror = new TcpPortMirror(zookeeperClient).start();
+        ArgumentCaptor<Runnable> sessionListener = ArgumentCaptor.forClass(Runnable.class);
+        verify(zookeeperClient).addSessionListener(sessionListener.capture());
+        when(zookeeperClient.getData(eq(ACME_PATH), any(Watcher.class)))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("10070".getBytes(), aStat(2))));
+
+        // when
+        sessionListener.getValue().run();
+
+        // then
+        assertThat(mirror.getPort("acme")).isEqualTo(10070);
+        verify(zookeeperClient, times(2)).getChildren(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_TCP_PORT), any(Watcher.class));
+    }
+
+    private static Stat aStat(int version) {
+        return aStat(version, 0);
+    }
+
+    private static Stat aStat(int version, long czxid) {
+        Stat stat = new Stat();
+        stat.setVersion(version);
+        stat.setCzxid(czxid);
+        return stat;
+    }
+
+}
@@ -0,0 +1,161 @@
+/**
+ * Kodo Kojo - Microservice which allow to access to Database.
+ * Copyright © 2017 Kodo Kojo (infos@kodokojo.io)
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.kodokojo.database.service.zookeeper;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Test;
+import org.mockito.Matchers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.*;
+
+public class ZookeeperClientTest {
+
+    @Test
+    public void exists_complete_with_null_when_node_is_missing() throws Exception {
+        // given
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        doAnswer(invocation -> {
+            ((AsyncCallback.StatCallback) invocation.getArguments()[2]).processResult(KeeperException.Code.NONODE.intValue(), "/kodokojo", null, null);
+            return null;
+        }).when(zooKeeper).exists(eq("/kodokojo"), eq(false), any(AsyncCallback.StatCallback.class), any());
+        ZookeeperClient zookeeperClient = new ZookeeperClient(zooKeeper);
+
+        // when
+        Stat stat = zookeeperClient.await(zookeeperClient.exists("/kodokojo"));
+
+        // then
+        assertThat(stat).isNull();
+    }
+
+    @Test
+    public void get_data_fail_with_keeper_exception() throws Exception {
+        // given
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        doAnswer(invocation -> {
+            ((AsyncCallback.DataCallback) invocation.getArguments()[2]).processResult(KeeperException.Code.NONODE.intValue(), "/kodokojo/portIndex", null, null, null);
+            return null;
+        }).when(zooKeeper).getData(eq("/kodokojo/portIndex"), Matchers.<Watcher>any(), any(AsyncCallback.DataCallback.class), any());
+        ZookeeperClient zookeeperClient = new ZookeeperClient(zooKeeper);
+
+        // when
+        try {
+            zookeeperClient.await(zookeeperClient.getData("/kodokojo/portIndex"));
+            fail("NoNodeException expected.");
+        } catch (ExecutionException e) {
+            // then
+            assertThat(ZookeeperClient.unwrap(e)).isInstanceOf(KeeperException.NoNodeException.class);
+        }
+    }
+
+    @Test
+    public void ensure_path_ignore_existing_node() throws Exception {
+        // given
+        ZooKeeper zooKeeper = mock(ZooKeeper.class);
+        doAnswer(invocation -> {
+            ((AsyncCallback.StringCallback) invocation.getArguments()[4]).processResult(KeeperException.Code.NODEEXISTS.intValue(), "/kodokojo", null, null);
+            return null;
+        }).when(zooKeeper).create(eq("/kodokojo"), any(byte[].class), anyList(), eq(CreateMode.PERSISTENT), any(AsyncCallback.StringCallback.class), any());
+        ZookeeperClient zookeeperClient = new ZookeeperClient(zooKeeper);
+
+        // when
+        CompletableFuture<Void> ensured = zookeeperClient.ensurePath("/kodokojo").toCompletableFuture();
+        zookeeperClient.await(ensured);
+
+        // then
+        assertThat(ensured.isCompletedExceptionally()).isFalse();
+    }
+
+    @Test
+    public void expired_session_is_replaced_then_listeners_are_told_once_connected() throws Exception {
+        // given
+        ZooKeeper expired = mock(ZooKeeper.class);
+        ZooKeeper renewed = mock(ZooKeeper.class);
+        doAnswer(invocation -> {
+            ((AsyncCallback.StatCallback) invocation.getArguments()[2]).processResult(KeeperException.Code.NONODE.intValue(), "/kodokojo", null, null);
+            return null;
+        }).when(renewed).exists(eq("/kodokojo"), eq(false), any(AsyncCallback.StatCallback.class), any());
+        ZookeeperClient zookeeperClient = new ZookeeperClient(expired, watcher -> renewed);
+        AtomicInteger renewals = new AtomicInteger();
+        zookeeperClient.addSessionListener(renewals::incrementAndGet);
+
+        // when
+        zookeeperClient.process(new WatchedEvent(Watcher.Event.EventType.None, Watcher.Event.KeeperState.Expired, null));
+        int renewalsBeforeConnection = renewals.get();
+        zookeeperClient.process(new WatchedEvent(Watcher.Event.EventType.None, Watcher.Event.KeeperState.SyncConnected, null));
+        zookeeperClient.await(zookeeperClient.exists("/kodokojo"));
+
+        // then
+        assertThat(renewalsBeforeConnection).isEqualTo(0);
+        assertThat(renewals.get()).isEqualTo(1);
+        verify(expired, never()).exists(anyString(), anyBoolean(), any(AsyncCallback.StatCallback.class), any());
+    }
+
+    @Test
+    public void reconnection_of_a_live_session_does_not_tell_listeners() {
+        // given
+        ZookeeperClient zookeeperClient = new ZookeeperClient(mock(ZooKeeper.class));
+        AtomicInteger renewals = new AtomicInteger();
+        zookeeperClient.addSessionListener(renewals::incrementAndGet);
+
+        // when
+        zookeeperClient.process(new WatchedEvent(Watcher.Event.EventType.None, Watcher.Event.KeeperState.Disconnected, null));
+        zookeeperClient.process(new WatchedEvent(Watcher.Event.EventType.None, Watcher.Event.KeeperState.SyncConnected, null));
+
+        // then
+        assertThat(renewals.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void retry_port_block_lease_when_another_instance_won_the_race() throws Exception {
+        // given
+        ZookeeperClient zookeeperClient = mock(ZookeeperClient.class);
+        when(zookeeperClient.await(any())).thenCallRealMethod();
+        when(zookeeperClient.ensurePath(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+        Stat stat = new Stat();
+        stat.setVersion(3);
+        when(zookeeperClient.getData(ZookeeperBootstrapConfigurationProvider.KODOKOJO_PORT_INDEX))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("16".getBytes(), stat)))
+                .thenReturn(CompletableFuture.completedFuture(new ZookeeperClient.NodeData("32".getBytes(), stat)));
+        CompletableFuture<Stat> conflict = new CompletableFuture<>();
+        conflict.completeExceptionally(new KeeperException.BadVersionException(ZookeeperBootstrapConfigurationProvider.KODOKOJO_PORT_INDEX));
+        when(zookeeperClient.setData(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_PORT_INDEX), any(byte[].class), eq(3)))
+                .thenReturn(conflict)
+                .thenReturn(CompletableFuture.completedFuture(stat));
+        ZookeeperBootstrapConfigurationProvider provider = new ZookeeperBootstrapConfigurationProvider(zookeeperClient, mock(TcpPortMirror.class), 16);
+
+        // when
+        int port = provider.generateNewPortIndex().get();
+
+        // then
+        assertThat(port).isEqualTo(ZookeeperBootstrapConfigurationProvider.INITIAL_PORT + 33);
+        verify(zookeeperClient, times(2)).setData(eq(ZookeeperBootstrapConfigurationProvider.KODOKOJO_PORT_INDEX), any(byte[].class), eq(3));
+    }
+
+}